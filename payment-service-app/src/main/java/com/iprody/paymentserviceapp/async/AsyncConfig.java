@@ -0,0 +1,38 @@
+package com.iprody.paymentserviceapp.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@EnableConfigurationProperties({StatusBatchProperties.class,
+                                DeduplicationProperties.class,
+                                TimerProperties.class,
+                                DispatchProperties.class,
+                                SenderProperties.class,
+                                OutboxProperties.class,
+                                RetryProperties.class})
+public class AsyncConfig {
+
+    /**
+     * Колесо выполняет задачи в своём потоке: адаптер и повторные попытки
+     * только ставят сообщения в очереди партиций, и события одного платежа
+     * передаются туда в порядке сроков.
+     */
+    @Bean
+    public HashedTimingWheel timingWheel(TimerProperties properties) {
+        return new HashedTimingWheel(properties.tick(),
+                                     properties.wheelSize(),
+                                     Runnable::run);
+    }
+
+    @Bean
+    @Primary
+    public BoundedXPaymentAdapterSender boundedXPaymentAdapterSender(InMemoryXPaymentAdapterMessageBroker broker,
+                                                                     SenderProperties properties,
+                                                                     MeterRegistry meterRegistry) {
+        return new BoundedXPaymentAdapterSender(broker, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,163 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.exception.ErrorMessage;
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Отправитель запросов в X Payment Adapter с ограниченной очередью.
+ *
+ * <p>
+ * Вызывающие потоки кладут сообщения в {@link MpscRingBuffer}, а единственный
+ * поток отправки передаёт их исходному {@link AsyncSender}. Когда очередь
+ * заполнена, поведение определяется {@link OverflowPolicy}: ожидание,
+ * немедленный отказ с {@link ErrorMessage#ADAPTER_QUEUE_FULL} или запись на
+ * диск. Пока в файле вытеснения есть сообщения, новые тоже пишутся туда,
+ * чтобы сохранить порядок отправки.
+ */
+@Slf4j
+public class BoundedXPaymentAdapterSender implements AsyncSender<XPaymentAdapterRequestMessage>, AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SHUTDOWN_TIMEOUT_MS = 5_000;
+
+    private final AsyncSender<XPaymentAdapterRequestMessage> delegate;
+    private final MpscRingBuffer<XPaymentAdapterRequestMessage> queue;
+    private final OverflowPolicy policy;
+    private final long offerTimeoutNanos;
+    private final SpillFile spill;
+    private final Counter rejected;
+    private final Counter spilled;
+    private final Thread consumer;
+
+    private volatile boolean running = true;
+    private volatile boolean consumerParked;
+
+    public BoundedXPaymentAdapterSender(AsyncSender<XPaymentAdapterRequestMessage> delegate,
+                                        SenderProperties properties,
+                                        MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.queue = new MpscRingBuffer<>(properties.capacity());
+        this.policy = properties.overflowPolicy();
+        this.offerTimeoutNanos = properties.offerTimeout().toNanos();
+        this.spill = policy == OverflowPolicy.SPILL ? new SpillFile(properties.spillFile()) : null;
+        this.rejected = Counter.builder("payment.async.sender.rejected")
+                               .description("Adapter requests rejected because the send queue was full")
+                               .tag("policy", policy.name())
+                               .register(meterRegistry);
+        this.spilled = meterRegistry.counter("payment.async.sender.spilled");
+        Gauge.builder("payment.async.sender.queue.size", queue, MpscRingBuffer::size)
+             .description("Adapter requests waiting in the send queue")
+             .register(meterRegistry);
+        Gauge.builder("payment.async.sender.queue.capacity", queue, MpscRingBuffer::capacity)
+             .register(meterRegistry);
+        if (spill != null) {
+            Gauge.builder("payment.async.sender.spill.size", spill, SpillFile::size)
+                 .description("Adapter requests waiting in the spill file")
+                 .register(meterRegistry);
+            if (spill.size() > 0) {
+                log.info("{} spilled adapter request(s) found, they will be sent first", spill.size());
+            }
+        }
+        this.consumer = Thread.ofPlatform()
+                              .name("adapter-sender")
+                              .daemon()
+                              .start(this::run);
+    }
+
+    @Override
+    public void send(XPaymentAdapterRequestMessage message) {
+        if (!running) {
+            throw new ServiceException(ErrorMessage.ADAPTER_QUEUE_FULL);
+        }
+        boolean accepted = switch (policy) {
+            case FAIL -> queue.offer(message);
+            case BLOCK -> offerWithTimeout(message);
+            case SPILL -> offerOrSpill(message);
+        };
+        if (!accepted) {
+            rejected.increment();
+            throw new ServiceException(ErrorMessage.ADAPTER_QUEUE_FULL);
+        }
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(SHUTDOWN_TIMEOUT_MS);
+        if (!queue.isEmpty()) {
+            log.warn("{} adapter request(s) were not sent before shutdown", queue.size());
+        }
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    private boolean offerWithTimeout(XPaymentAdapterRequestMessage message) {
+        if (queue.offer(message)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        long backoff = 1_000;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(this, backoff);
+            if (queue.offer(message)) {
+                return true;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+        return false;
+    }
+
+    private boolean offerOrSpill(XPaymentAdapterRequestMessage message) {
+        if (spill.size() == 0 && queue.offer(message)) {
+            return true;
+        }
+        spill.append(message);
+        spilled.increment();
+        return true;
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            XPaymentAdapterRequestMessage message = next();
+            if (message != null) {
+                deliver(message);
+                continue;
+            }
+            consumerParked = true;
+            if (queue.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            consumerParked = false;
+        }
+    }
+
+    private XPaymentAdapterRequestMessage next() {
+        XPaymentAdapterRequestMessage message = queue.poll();
+        if (message == null && spill != null) {
+            message = spill.poll();
+        }
+        return message;
+    }
+
+    private void deliver(XPaymentAdapterRequestMessage message) {
+        try {
+            delegate.send(message);
+        } catch (RuntimeException e) {
+            log.error("Unable to send payment {} to the adapter", message.getPaymentGuid(), e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки отбрасывания повторно доставленных ответов X Payment Adapter.
+ *
+ * @param enabled  включает проверку на дубликаты
+ * @param window   сколько помнится идентификатор сообщения
+ * @param capacity сколько идентификаторов помнится за половину окна
+ */
+@ConfigurationProperties(prefix = "payment.async.dedup")
+public record DeduplicationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10m") Duration window,
+        @DefaultValue("262144") int capacity
+) {
+
+}
@@ -0,0 +1,19 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки упорядоченной обработки ответов X Payment Adapter.
+ *
+ * @param partitions количество партиций; {@code 0} — по числу доступных процессоров
+ */
+@ConfigurationProperties(prefix = "payment.async.dispatch")
+public record DispatchProperties(
+        @DefaultValue("0") int partitions
+) {
+
+    public int effectivePartitions() {
+        return partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,151 @@
+package com.iprody.paymentserviceapp.async;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограниченное по размеру и времени множество UUID.
+ *
+ * <p>
+ * Идентификаторы хранятся как пары {@code long} в двух таблицах с открытой
+ * адресацией — текущем и предыдущем поколении. Новые идентификаторы
+ * попадают в текущее поколение; когда оно заполнено или прошла половина
+ * окна, предыдущее поколение очищается и становится текущим. Поэтому
+ * идентификатор помнится не меньше половины окна и не дольше целого окна,
+ * а память не превышает двух таблиц.
+ *
+ * <p>
+ * Нулевой UUID не запоминается и всегда считается новым.
+ */
+public class ExpiringUuidSet {
+
+    private final int capacity;
+    private final long generationNanos;
+    private final LongSupplier clock;
+
+    private Generation current;
+    private Generation previous;
+    private long generationStart;
+
+    public ExpiringUuidSet(int capacity, Duration window) {
+        this(capacity, window, System::nanoTime);
+    }
+
+    ExpiringUuidSet(int capacity, Duration window, LongSupplier clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.generationNanos = Math.max(1, window.toNanos() / 2);
+        this.clock = clock;
+        this.current = new Generation(capacity);
+        this.previous = new Generation(capacity);
+        this.generationStart = clock.getAsLong();
+    }
+
+    /**
+     * Добавляет идентификатор, если его ещё нет в окне.
+     *
+     * @param id идентификатор сообщения
+     * @return {@code true}, если идентификатор встретился впервые
+     */
+    public synchronized boolean add(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            return true;
+        }
+        expire(clock.getAsLong());
+        if (current.contains(msb, lsb) || previous.contains(msb, lsb)) {
+            return false;
+        }
+        if (current.size >= capacity) {
+            rotate(clock.getAsLong());
+        }
+        current.insert(msb, lsb);
+        return true;
+    }
+
+    public synchronized int size() {
+        return current.size + previous.size;
+    }
+
+    private void expire(long now) {
+        long elapsed = now - generationStart;
+        if (elapsed >= 2 * generationNanos) {
+            previous.clear();
+            current.clear();
+            generationStart = now;
+        } else if (elapsed >= generationNanos) {
+            rotate(now);
+        }
+    }
+
+    private void rotate(long now) {
+        Generation recycled = previous;
+        recycled.clear();
+        previous = current;
+        current = recycled;
+        generationStart = now;
+    }
+
+    /**
+     * Таблица с линейным пробированием, заполненная не больше чем наполовину.
+     * Пустая ячейка — пара нулей.
+     */
+    private static final class Generation {
+
+        private final long[] keys;
+        private final int mask;
+        private int size;
+
+        Generation(int capacity) {
+            int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+            this.keys = new long[slots * 2];
+            this.mask = slots - 1;
+        }
+
+        boolean contains(long msb, long lsb) {
+            if (size == 0) {
+                return false;
+            }
+            for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+                long storedMsb = keys[slot * 2];
+                long storedLsb = keys[slot * 2 + 1];
+                if (storedMsb == 0 && storedLsb == 0) {
+                    return false;
+                }
+                if (storedMsb == msb && storedLsb == lsb) {
+                    return true;
+                }
+            }
+        }
+
+        void insert(long msb, long lsb) {
+            int slot = hash(msb, lsb) & mask;
+            while (keys[slot * 2] != 0 || keys[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot * 2] = msb;
+            keys[slot * 2 + 1] = lsb;
+            size++;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, 0L);
+                size = 0;
+            }
+        }
+
+        private static int hash(long msb, long lsb) {
+            long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            return (int) h;
+        }
+    }
+}
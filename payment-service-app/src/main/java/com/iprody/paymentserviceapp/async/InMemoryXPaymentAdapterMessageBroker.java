@@ -1,43 +1,70 @@
 package com.iprody.paymentserviceapp.async;
 
-import jakarta.annotation.PreDestroy;
+import com.iprody.paymentserviceapp.async.journal.MessageJournal;
+import com.iprody.paymentserviceapp.async.simulator.SimulatedEvent;
+import com.iprody.paymentserviceapp.async.simulator.XPaymentAdapterSimulator;
+import com.iprody.paymentserviceapp.persistence.model.TimeOrderedUuidGenerator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 public class InMemoryXPaymentAdapterMessageBroker implements AsyncSender<XPaymentAdapterRequestMessage> {
 
-    private final ScheduledExecutorService scheduler =
-            Executors.newScheduledThreadPool(2);
+    private final HashedTimingWheel scheduler;
     private final AsyncListener<XPaymentAdapterResponseMessage>
             resultListener;
+    private final MessageJournal journal;
+    private final XPaymentAdapterSimulator simulator;
 
     @Autowired
-    public InMemoryXPaymentAdapterMessageBroker(AsyncListener<XPaymentAdapterResponseMessage> resultListener) {
+    public InMemoryXPaymentAdapterMessageBroker(AsyncListener<XPaymentAdapterResponseMessage> resultListener,
+                                                MessageJournal journal,
+                                                HashedTimingWheel scheduler,
+                                                XPaymentAdapterSimulator simulator) {
         this.resultListener = resultListener;
+        this.scheduler = scheduler;
+        this.journal = journal;
+        this.simulator = simulator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayJournal() {
+        List<XPaymentAdapterRequestMessage> pending = journal.replayPending();
+        if (!pending.isEmpty()) {
+            log.info("Replaying {} unacknowledged payment request(s) from journal", pending.size());
+            pending.forEach(this::schedule);
+        }
     }
 
     @Override
     public void send(XPaymentAdapterRequestMessage request) {
-        UUID txId = UUID.randomUUID();
-        scheduler.schedule(() -> emit(request, txId,
-                                      XPaymentAdapterStatus.PROCESSING), 0, TimeUnit.SECONDS);
-        scheduler.schedule(() -> emit(request, txId,
-                                      XPaymentAdapterStatus.PROCESSING), 10, TimeUnit.SECONDS);
-        scheduler.schedule(() -> emit(request, txId,
-                                      XPaymentAdapterStatus.SUCCEEDED), 20, TimeUnit.SECONDS);
+        journal.appendRequest(request);
+        schedule(request);
+    }
+
+    private void schedule(XPaymentAdapterRequestMessage request) {
+        UUID txId = TimeOrderedUuidGenerator.next();
+        for (SimulatedEvent event : simulator.plan(ThreadLocalRandom.current())) {
+            scheduler.schedule(() -> emit(request, txId, event.messageGuid(),
+                                          event.status()), event.delayNanos(), TimeUnit.NANOSECONDS);
+        }
     }
 
-    private void emit(XPaymentAdapterRequestMessage request, UUID txId,
+    private void emit(XPaymentAdapterRequestMessage request, UUID txId, UUID messageGuid,
                       XPaymentAdapterStatus status) {
         XPaymentAdapterResponseMessage result = new
                 XPaymentAdapterResponseMessage();
+        result.setMessageGuid(messageGuid);
         result.setPaymentGuid(request.getPaymentGuid());
         result.setAmount(request.getAmount());
         result.setCurrency(request.getCurrency());
@@ -46,9 +73,4 @@ public class InMemoryXPaymentAdapterMessageBroker implements AsyncSender<XPaymen
         result.setOccurredAt(OffsetDateTime.now());
         resultListener.onMessage(result);
     }
-
-    @PreDestroy
-    public void shutdown() {
-        scheduler.shutdownNow();
-    }
 }
@@ -1,18 +1,27 @@
 package com.iprody.paymentserviceapp.async;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public class InMemoryXPaymentAdapterResultListenerAdapter implements AsyncListener<XPaymentAdapterResponseMessage> {
 
-    private final MessageHandler<XPaymentAdapterResponseMessage> handler;
+    private final MessageDeduplicator deduplicator;
+    private final MessageRetrier retrier;
 
-    public InMemoryXPaymentAdapterResultListenerAdapter(MessageHandler<XPaymentAdapterResponseMessage> handler) {
-        this.handler = handler;
+    public InMemoryXPaymentAdapterResultListenerAdapter(MessageDeduplicator deduplicator,
+                                                        MessageRetrier retrier) {
+        this.deduplicator = deduplicator;
+        this.retrier = retrier;
     }
 
     @Override
     public void onMessage(XPaymentAdapterResponseMessage msg) {
-        handler.handle(msg);
+        if (deduplicator.isDuplicate(msg)) {
+            log.debug("Duplicate message {} for payment {} dropped", msg.getMessageGuid(), msg.getPaymentGuid());
+            return;
+        }
+        retrier.submit(msg);
     }
-}
\ No newline at end of file
+}
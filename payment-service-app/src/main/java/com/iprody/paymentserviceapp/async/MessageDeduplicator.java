@@ -0,0 +1,48 @@
+package com.iprody.paymentserviceapp.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Определяет повторно доставленные сообщения по {@link Message#getMessageId()}.
+ *
+ * <p>
+ * Сообщения без идентификатора не проверяются и всегда считаются новыми.
+ */
+@Component
+public class MessageDeduplicator {
+
+    private final DeduplicationProperties properties;
+    private final ExpiringUuidSet seen;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MessageDeduplicator(DeduplicationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.seen = new ExpiringUuidSet(properties.capacity(), properties.window());
+        this.hits = meterRegistry.counter("payment.async.dedup", "result", "hit");
+        this.misses = meterRegistry.counter("payment.async.dedup", "result", "miss");
+        Gauge.builder("payment.async.dedup.size", seen, ExpiringUuidSet::size)
+             .register(meterRegistry);
+    }
+
+    /**
+     * Запоминает сообщение и сообщает, встречалось ли оно раньше.
+     *
+     * @param message входящее сообщение
+     * @return {@code true}, если сообщение с таким идентификатором уже было
+     */
+    public boolean isDuplicate(Message message) {
+        if (!properties.enabled() || message.getMessageId() == null) {
+            return false;
+        }
+        if (seen.add(message.getMessageId())) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+}
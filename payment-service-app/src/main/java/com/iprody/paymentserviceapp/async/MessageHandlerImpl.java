@@ -21,8 +21,15 @@ public class MessageHandlerImpl implements MessageHandler<XPaymentAdapterRespons
                    XPaymentAdapterStatus.CANCELED, PaymentStatus.DECLINED,
                    XPaymentAdapterStatus.SUCCEEDED, PaymentStatus.APPROVED);
 
+    private final StatusUpdateBatcher statusUpdateBatcher;
+    private final ResponseAcknowledger acknowledger;
     private PaymentService paymentService;
 
+    public MessageHandlerImpl(StatusUpdateBatcher statusUpdateBatcher, ResponseAcknowledger acknowledger) {
+        this.statusUpdateBatcher = statusUpdateBatcher;
+        this.acknowledger = acknowledger;
+    }
+
     @Autowired
     public void setPaymentService(@Lazy PaymentService paymentService) {
         this.paymentService = paymentService;
@@ -42,6 +49,11 @@ public class MessageHandlerImpl implements MessageHandler<XPaymentAdapterRespons
                  message.getPaymentGuid(),
                  message.getStatus(),
                  status);
-        paymentService.updateStatus(message.getPaymentGuid(), status);
+        if (statusUpdateBatcher.isEnabled()) {
+            statusUpdateBatcher.submit(message, status);
+        } else {
+            paymentService.updateStatus(message.getPaymentGuid(), status);
+            acknowledger.acknowledge(message);
+        }
     }
 }
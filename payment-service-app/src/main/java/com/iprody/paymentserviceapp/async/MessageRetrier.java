@@ -0,0 +1,208 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.PAYMENT_NOT_EXIST;
+
+/**
+ * Обработка ответов X Payment Adapter с повторными попытками.
+ *
+ * <p>
+ * Если обработчик бросил исключение или пакетное обновление не нашло
+ * платёж, сообщение планируется повторно на {@link HashedTimingWheel} с
+ * экспоненциальной паузой и случайным разбросом, не занимая поток партиции.
+ * Повторная попытка снова проходит через партицию платежа в
+ * {@link PartitionedDispatcher}, минуя проверку дубликатов. После
+ * {@code maxAttempts} попыток сообщение сохраняется в dead-letter таблицу и
+ * подтверждается.
+ *
+ * <p>
+ * Пока по платежу ждёт повторная попытка, его следующие сообщения
+ * откладываются и обрабатываются по порядку, когда попытка удалась или
+ * сообщение ушло в dead-letter таблицу: повторённый {@code PROCESSING} не
+ * может прийти после более позднего {@code SUCCEEDED}. Состояние платежа
+ * меняется только в потоке его партиции.
+ */
+@Slf4j
+@Component
+public class MessageRetrier {
+
+    private final MessageHandler<XPaymentAdapterResponseMessage> handler;
+    private final PartitionedDispatcher dispatcher;
+    private final HashedTimingWheel scheduler;
+    private final DeadLetterRepository deadLetterRepository;
+    private final ResponseAcknowledger acknowledger;
+    private final RetryProperties properties;
+    private final Map<UUID, Deque<XPaymentAdapterResponseMessage>> held = new ConcurrentHashMap<>();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private final Counter scheduled;
+    private final Counter recovered;
+    private final Counter exhausted;
+
+    public MessageRetrier(MessageHandler<XPaymentAdapterResponseMessage> handler,
+                          PartitionedDispatcher dispatcher,
+                          HashedTimingWheel scheduler,
+                          DeadLetterRepository deadLetterRepository,
+                          StatusUpdateBatcher statusUpdateBatcher,
+                          ResponseAcknowledger acknowledger,
+                          RetryProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.handler = handler;
+        this.dispatcher = dispatcher;
+        this.scheduler = scheduler;
+        this.deadLetterRepository = deadLetterRepository;
+        this.acknowledger = acknowledger;
+        this.properties = properties;
+        this.scheduled = retryCounter(meterRegistry, "scheduled");
+        this.recovered = retryCounter(meterRegistry, "recovered");
+        this.exhausted = retryCounter(meterRegistry, "exhausted");
+        Gauge.builder("payment.async.dlq.depth", deadLetters, AtomicLong::get)
+             .description("Adapter messages waiting in the dead-letter table")
+             .register(meterRegistry);
+        statusUpdateBatcher.setNotAppliedListener(message -> dispatcher.dispatch(
+                message.getPaymentGuid(),
+                () -> failed(message, new ServiceException(PAYMENT_NOT_EXIST, message.getPaymentGuid()))));
+    }
+
+    /**
+     * Ставит сообщение в очередь партиции его платежа.
+     *
+     * @param message ответ адаптера
+     */
+    public void submit(XPaymentAdapterResponseMessage message) {
+        dispatcher.dispatch(message.getPaymentGuid(), () -> receive(message));
+    }
+
+    /**
+     * Повторно ставит в обработку сообщения из dead-letter таблицы.
+     *
+     * @param messages сообщения закреплённых записей с {@code deadLetterId};
+     *                 запись удаляется, когда результат сохранён, или
+     *                 обновляется, если сообщение снова не обработано
+     */
+    public void replay(List<XPaymentAdapterResponseMessage> messages) {
+        deadLetters.addAndGet(-messages.size());
+        for (XPaymentAdapterResponseMessage message : messages) {
+            message.setDeliveryAttempt(1);
+            submit(message);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshDeadLetterCount() {
+        try {
+            deadLetters.set(deadLetterRepository.count());
+        } catch (DataAccessException e) {
+            log.warn("Unable to count dead letters: {}", e.getMessage());
+        }
+    }
+
+    void receive(XPaymentAdapterResponseMessage message) {
+        Deque<XPaymentAdapterResponseMessage> waiting = held.get(message.getPaymentGuid());
+        if (waiting != null) {
+            waiting.add(message);
+            return;
+        }
+        process(message);
+    }
+
+    void process(XPaymentAdapterResponseMessage message) {
+        try {
+            handler.handle(message);
+        } catch (RuntimeException e) {
+            failed(message, e);
+            return;
+        }
+        if (message.getDeliveryAttempt() > 1) {
+            recovered.increment();
+            release(message.getPaymentGuid());
+        }
+    }
+
+    void failed(XPaymentAdapterResponseMessage message, Exception cause) {
+        int attempt = message.getDeliveryAttempt();
+        if (attempt >= properties.maxAttempts()) {
+            String error = String.valueOf(cause.getMessage());
+            exhausted.increment();
+            log.error("Payment {} message {} failed after {} attempt(s), moving to dead letters",
+                      message.getPaymentGuid(), message.getMessageGuid(), attempt, cause);
+            if (message.getDeadLetterId() == null) {
+                deadLetterRepository.add(message, attempt, error);
+            } else {
+                deadLetterRepository.failedAgain(message.getDeadLetterId(), attempt, error);
+                message.setDeadLetterId(null);
+            }
+            deadLetters.incrementAndGet();
+            acknowledger.acknowledge(message);
+            release(message.getPaymentGuid());
+            return;
+        }
+        long backoff = backoffNanos(attempt);
+        log.warn("Payment {} message {} attempt {} failed: {}, retrying in {} ms",
+                 message.getPaymentGuid(), message.getMessageGuid(), attempt, cause.getMessage(),
+                 TimeUnit.NANOSECONDS.toMillis(backoff));
+        message.setDeliveryAttempt(attempt + 1);
+        held.computeIfAbsent(message.getPaymentGuid(), guid -> new ArrayDeque<>());
+        scheduled.increment();
+        scheduler.schedule(() -> dispatcher.dispatch(message.getPaymentGuid(), () -> process(message)),
+                           backoff, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Обрабатывает отложенные сообщения платежа по порядку. Если одно из них
+     * снова ждёт повторной попытки, остальные откладываются за ним.
+     */
+    private void release(UUID paymentGuid) {
+        Deque<XPaymentAdapterResponseMessage> waiting = held.remove(paymentGuid);
+        if (waiting == null) {
+            return;
+        }
+        XPaymentAdapterResponseMessage next;
+        while ((next = waiting.poll()) != null) {
+            process(next);
+            Deque<XPaymentAdapterResponseMessage> again = held.get(paymentGuid);
+            if (again != null) {
+                again.addAll(waiting);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Пауза перед следующей попыткой: {@code initial * multiplier^(attempt-1)},
+     * ограниченная {@code maxBackoff}, из которой случайно вычитается до
+     * {@code jitter} её доли.
+     */
+    long backoffNanos(int attempt) {
+        double base = properties.initialBackoff().toNanos() * Math.pow(properties.multiplier(), attempt - 1);
+        double capped = Math.min(base, properties.maxBackoff().toNanos());
+        double jitter = Math.clamp(properties.jitter(), 0, 1);
+        return (long) (capped * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static Counter retryCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payment.async.retry")
+                      .description("Adapter message retries by outcome")
+                      .tag("outcome", outcome)
+                      .register(meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки пересылки запросов из таблицы {@code payment_outbox}.
+ *
+ * @param enabled      включает пересылку
+ * @param batchSize    сколько записей выбирается за один раз
+ * @param pollInterval пауза между опросами, когда таблица опустела
+ * @param leaseTime    сколько отправленный запрос ждёт финального ответа, прежде
+ *                     чем будет отправлен снова; должно превышать обычное время
+ *                     обработки платежа адаптером
+ */
+@ConfigurationProperties(prefix = "payment.async.outbox")
+public record OutboxProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("100ms") Duration pollInterval,
+        @DefaultValue("2m") Duration leaseTime
+) {
+
+}
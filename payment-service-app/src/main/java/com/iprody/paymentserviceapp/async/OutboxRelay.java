@@ -0,0 +1,126 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository.OutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пересылает запросы из таблицы {@code payment_outbox} в X Payment Adapter.
+ *
+ * <p>
+ * Одним запросом закрепляет за собой пакет записей на
+ * {@link OutboxProperties#leaseTime()} и вне транзакции передаёт их
+ * {@link AsyncSender}, который может ждать места в очереди. Очередь
+ * отправителя хранится в памяти, поэтому отправленные записи не удаляются:
+ * их удаляет {@link ResponseAcknowledger}, когда сохранён финальный ответ по
+ * платежу. Запись без подтверждения — потерянную при падении вместе с
+ * очередью или оставшуюся без ответа — по истечении срока выберут и
+ * отправят снова. Пока пакеты приходят полными, следующий выбирается сразу,
+ * без паузы. Если отправитель отказал, неотправленные записи освобождаются
+ * до следующего опроса. Доставка — как минимум один раз.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final PaymentOutboxRepository outboxRepository;
+    private final AsyncSender<XPaymentAdapterRequestMessage> sender;
+    private final OutboxProperties properties;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("outbox-relay").daemon().factory());
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final Counter relayed;
+    private final Counter failed;
+
+    public OutboxRelay(PaymentOutboxRepository outboxRepository,
+                       AsyncSender<XPaymentAdapterRequestMessage> sender,
+                       OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.sender = sender;
+        this.properties = properties;
+        this.batchTimer = Timer.builder("payment.outbox.relay.batch")
+                               .description("Time spent relaying one outbox batch")
+                               .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("payment.outbox.relay.size")
+                                            .description("Number of outbox records relayed per batch")
+                                            .register(meterRegistry);
+        this.relayed = meterRegistry.counter("payment.outbox.relayed");
+        this.failed = meterRegistry.counter("payment.outbox.failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.enabled()) {
+            long interval = properties.pollInterval().toMillis();
+            poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Пересылает пакеты, пока таблица не опустеет или отправитель не откажет.
+     */
+    void poll() {
+        try {
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == properties.batchSize());
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    /**
+     * Пересылает один пакет.
+     *
+     * @return число отправленных записей; меньше размера пакета, если записи
+     *         закончились или отправитель отказал
+     */
+    int relayBatch() {
+        int count = batchTimer.record(() -> {
+            List<OutboxEntry> batch = outboxRepository.claimBatch(properties.batchSize(), properties.leaseTime());
+            int sent = 0;
+            for (; sent < batch.size(); sent++) {
+                OutboxEntry entry = batch.get(sent);
+                try {
+                    sender.send(entry.message());
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    log.warn("Outbox relay paused, payment {} was not sent: {}",
+                             entry.message().getPaymentGuid(), e.getMessage());
+                    break;
+                }
+            }
+            List<Long> unsent = batch.subList(sent, batch.size())
+                                     .stream()
+                                     .map(OutboxEntry::id)
+                                     .toList();
+            outboxRepository.release(unsent);
+            return sent;
+        });
+        if (count > 0) {
+            batchSize.record(count);
+            relayed.increment(count);
+        }
+        return count;
+    }
+}
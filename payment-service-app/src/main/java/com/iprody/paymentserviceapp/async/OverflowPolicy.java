@@ -0,0 +1,22 @@
+package com.iprody.paymentserviceapp.async;
+
+/**
+ * Поведение {@link BoundedXPaymentAdapterSender} при заполненной очереди.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Ждать освобождения места не дольше {@code offer-timeout}, затем отказать.
+     */
+    BLOCK,
+
+    /**
+     * Сразу отказать, вызывающий получает 503.
+     */
+    FAIL,
+
+    /**
+     * Записать сообщение в файл на диске и отправить, когда очередь освободится.
+     */
+    SPILL
+}
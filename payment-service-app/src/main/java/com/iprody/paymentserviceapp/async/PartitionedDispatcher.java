@@ -0,0 +1,130 @@
+package com.iprody.paymentserviceapp.async;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Распределяет задачи по партициям по ключу платежа.
+ *
+ * <p>
+ * У каждой партиции своя очередь и свой поток, поэтому задачи одного
+ * платежа выполняются строго в порядке поступления, а задачи разных
+ * платежей — параллельно в разных партициях.
+ *
+ * <p>
+ * При {@code spring.threads.virtual.enabled} потоки партиций виртуальные:
+ * обработчик, ожидающий соединение с БД, не занимает поток платформы.
+ */
+@Slf4j
+@Component
+public class PartitionedDispatcher {
+
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5_000;
+
+    private final Partition[] partitions;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public PartitionedDispatcher(DispatchProperties properties, MeterRegistry meterRegistry, Environment environment) {
+        this(properties, meterRegistry, Threading.VIRTUAL.isActive(environment));
+    }
+
+    PartitionedDispatcher(DispatchProperties properties, MeterRegistry meterRegistry, boolean virtualThreads) {
+        Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        this.partitions = new Partition[properties.effectivePartitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, meterRegistry, threads);
+        }
+        log.info("Adapter message dispatcher started with {} partition(s) on {} threads", partitions.length,
+                 virtualThreads ? "virtual" : "platform");
+    }
+
+    /**
+     * Ставит задачу в очередь партиции, соответствующей ключу.
+     *
+     * @param key  ключ упорядочивания, обычно идентификатор платежа
+     * @param task задача
+     */
+    public void dispatch(UUID key, Runnable task) {
+        partitionOf(key).queue.add(new Task(task, System.nanoTime()));
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Partition partition : partitions) {
+            partition.worker.join(SHUTDOWN_TIMEOUT_MS);
+        }
+    }
+
+    private Partition partitionOf(UUID key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return partitions[Math.floorMod(hash ^ (hash >>> 16), partitions.length)];
+    }
+
+    private record Task(Runnable runnable, long enqueuedAt) {
+
+    }
+
+    private final class Partition {
+
+        private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        private final Timer lag;
+        private final Thread worker;
+
+        Partition(int index, MeterRegistry meterRegistry, Thread.Builder threads) {
+            String tag = Integer.toString(index);
+            this.lag = Timer.builder("payment.async.dispatch.lag")
+                            .description("Time an adapter message waits in its partition queue")
+                            .tag("partition", tag)
+                            .register(meterRegistry);
+            Gauge.builder("payment.async.dispatch.queue.depth", queue, BlockingQueue::size)
+                 .description("Adapter messages waiting in the partition queue")
+                 .tag("partition", tag)
+                 .register(meterRegistry);
+            this.worker = threads.name("adapter-dispatch-" + index)
+                                 .start(this::run);
+        }
+
+        private void run() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Task task = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (task != null) {
+                        lag.record(System.nanoTime() - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+                        execute(task);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void execute(Task task) {
+            try {
+                task.runnable().run();
+            } catch (RuntimeException e) {
+                log.error("Adapter message processing failed", e);
+            }
+        }
+    }
+}
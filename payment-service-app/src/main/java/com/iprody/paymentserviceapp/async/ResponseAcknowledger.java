@@ -0,0 +1,57 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.async.journal.MessageJournal;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Подтверждает ответы X Payment Adapter, результат которых надёжно сохранён:
+ * статус записан в БД или сообщение попало в dead-letter таблицу.
+ *
+ * <p>
+ * Финальный ответ подтверждает запрос в {@link MessageJournal} и удаляет
+ * его из {@code payment_outbox}, после чего запрос больше не отправляется ни
+ * после перезапуска, ни по истечении срока закрепления. Ответ, повторно
+ * поставленный в обработку из dead-letter таблицы, удаляет оттуда свою
+ * запись. Ответы, отброшенные как дубликаты, не подтверждаются: это сделает
+ * исходное сообщение. Если подтверждение не удалось, запрос будет отправлен
+ * повторно — доставка как минимум один раз.
+ */
+@Slf4j
+@Component
+public class ResponseAcknowledger {
+
+    private final MessageJournal journal;
+    private final PaymentOutboxRepository outboxRepository;
+    private final DeadLetterRepository deadLetterRepository;
+
+    public ResponseAcknowledger(MessageJournal journal,
+                                PaymentOutboxRepository outboxRepository,
+                                DeadLetterRepository deadLetterRepository) {
+        this.journal = journal;
+        this.outboxRepository = outboxRepository;
+        this.deadLetterRepository = deadLetterRepository;
+    }
+
+    /**
+     * Подтверждает обработанный ответ.
+     *
+     * @param message ответ, результат которого сохранён
+     */
+    public void acknowledge(XPaymentAdapterResponseMessage message) {
+        try {
+            journal.appendResponse(message);
+            if (message.getStatus() != null && message.getStatus().isTerminal()) {
+                outboxRepository.delete(message.getPaymentGuid());
+            }
+            if (message.getDeadLetterId() != null) {
+                deadLetterRepository.delete(message.getDeadLetterId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Unable to acknowledge payment {} message {}",
+                      message.getPaymentGuid(), message.getMessageGuid(), e);
+        }
+    }
+}
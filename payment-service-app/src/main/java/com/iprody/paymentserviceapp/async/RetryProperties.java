@@ -0,0 +1,29 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки повторной обработки ответов X Payment Adapter.
+ *
+ * @param maxAttempts    число попыток, после которого сообщение уходит в dead-letter
+ * @param initialBackoff пауза перед второй попыткой
+ * @param maxBackoff     предел паузы между попытками
+ * @param multiplier     множитель паузы для каждой следующей попытки
+ * @param jitter         доля паузы, выбираемая случайно, от 0 до 1
+ * @param replayLease    срок, на который запись dead-letter таблицы закрепляется
+ *                       при повторной обработке, после него её можно повторить снова
+ */
+@ConfigurationProperties(prefix = "payment.async.retry")
+public record RetryProperties(
+        @DefaultValue("5") int maxAttempts,
+        @DefaultValue("200ms") Duration initialBackoff,
+        @DefaultValue("30s") Duration maxBackoff,
+        @DefaultValue("2.0") double multiplier,
+        @DefaultValue("0.5") double jitter,
+        @DefaultValue("5m") Duration replayLease
+) {
+
+}
@@ -0,0 +1,25 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки очереди отправки запросов в X Payment Adapter.
+ *
+ * @param capacity       ёмкость очереди, степень двойки
+ * @param overflowPolicy поведение при заполненной очереди
+ * @param offerTimeout   максимальное ожидание места в режиме {@link OverflowPolicy#BLOCK}
+ * @param spillFile      файл для сообщений в режиме {@link OverflowPolicy#SPILL}
+ */
+@ConfigurationProperties(prefix = "payment.async.sender")
+public record SenderProperties(
+        @DefaultValue("1024") int capacity,
+        @DefaultValue("BLOCK") OverflowPolicy overflowPolicy,
+        @DefaultValue("5s") Duration offerTimeout,
+        @DefaultValue("data/spill/adapter-requests.spill") Path spillFile
+) {
+
+}
@@ -0,0 +1,121 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.async.journal.XPaymentAdapterMessageCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.iprody.paymentserviceapp.async.journal.XPaymentAdapterMessageCodec.MAX_MESSAGE_SIZE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Файловая FIFO-очередь запросов, вытесненных из переполненной очереди
+ * отправки. Записи имеют вид {@code [int length][payload]}; когда все записи
+ * прочитаны, файл обрезается. Сообщения, оставшиеся после остановки,
+ * читаются при следующем запуске.
+ */
+class SpillFile implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + MAX_MESSAGE_SIZE);
+
+    private long readPosition;
+    private long writePosition;
+    private int size;
+
+    SpillFile(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open spill file " + file, e);
+        }
+    }
+
+    synchronized void append(XPaymentAdapterRequestMessage message) {
+        buffer.clear();
+        buffer.position(Integer.BYTES);
+        XPaymentAdapterMessageCodec.writeRequest(buffer, message);
+        buffer.putInt(0, buffer.position() - Integer.BYTES);
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                writePosition += channel.write(buffer, writePosition);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to spill adapter request", e);
+        }
+        size++;
+    }
+
+    synchronized XPaymentAdapterRequestMessage poll() {
+        if (size == 0) {
+            return null;
+        }
+        try {
+            int length = readLength(readPosition);
+            buffer.clear().limit(length);
+            read(readPosition + Integer.BYTES);
+            buffer.flip();
+            XPaymentAdapterRequestMessage message = XPaymentAdapterMessageCodec.readRequest(buffer);
+            readPosition += Integer.BYTES + length;
+            if (--size == 0) {
+                channel.truncate(0);
+                readPosition = 0;
+                writePosition = 0;
+            }
+            return message;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read spilled adapter request", e);
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void recover() throws IOException {
+        long fileSize = channel.size();
+        while (writePosition + Integer.BYTES <= fileSize) {
+            int length = readLength(writePosition);
+            if (length <= 0 || length > MAX_MESSAGE_SIZE || writePosition + Integer.BYTES + length > fileSize) {
+                break;
+            }
+            writePosition += Integer.BYTES + length;
+            size++;
+        }
+        channel.truncate(writePosition);
+    }
+
+    private int readLength(long position) throws IOException {
+        buffer.clear().limit(Integer.BYTES);
+        read(position);
+        return buffer.getInt(0);
+    }
+
+    private void read(long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of spill file at " + offset);
+            }
+            offset += read;
+        }
+    }
+}
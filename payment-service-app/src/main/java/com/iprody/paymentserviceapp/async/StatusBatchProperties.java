@@ -0,0 +1,22 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки пакетной записи статусов платежей.
+ *
+ * @param enabled      включает пакетную запись; иначе каждый статус пишется сразу
+ * @param window       интервал, за который накапливаются обновления
+ * @param maxBatchSize размер пакета, при достижении которого запись начинается досрочно
+ */
+@ConfigurationProperties(prefix = "payment.async.status-batch")
+public record StatusBatchProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("50ms") Duration window,
+        @DefaultValue("500") int maxBatchSize
+) {
+
+}
@@ -0,0 +1,228 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.repository.StatusUpdateResult;
+import com.iprody.paymentserviceapp.service.PaymentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Накопитель обновлений статусов платежей.
+ *
+ * <p>
+ * Собирает статусы за короткое окно, оставляя по каждому платежу только
+ * самый поздний, и записывает их одним JDBC-пакетом через
+ * {@link PaymentService#updateStatuses(Map)}. Запись выполняется в отдельном
+ * потоке по таймеру или досрочно, когда накоплен полный пакет.
+ *
+ * <p>
+ * Обновления, не применённые из-за отсутствия платежа, передаются
+ * слушателю, если он задан и обновление пришло из сообщения адаптера.
+ * Остальные сообщения адаптера подтверждаются через
+ * {@link ResponseAcknowledger} только после записи пакета.
+ * Пакет, запись которого завершилась ошибкой, возвращается в очередь и
+ * повторяется со следующим окном; более поздние обновления тех же
+ * платежей, пришедшие за это время, имеют приоритет.
+ */
+@Slf4j
+@Component
+public class StatusUpdateBatcher {
+
+    private final StatusBatchProperties properties;
+    private final PaymentService paymentService;
+    private final ResponseAcknowledger acknowledger;
+    private final Map<UUID, StatusUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("status-batch-flusher").daemon().factory());
+    private final Timer flushTimer;
+    private final DistributionSummary batchSize;
+    private final Counter coalesced;
+    private final Counter notApplied;
+    private final Counter rejected;
+    private final Counter failed;
+
+    private volatile Consumer<XPaymentAdapterResponseMessage> notAppliedListener = message -> { };
+
+    public StatusUpdateBatcher(StatusBatchProperties properties,
+                               @Lazy PaymentService paymentService,
+                               ResponseAcknowledger acknowledger,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.paymentService = paymentService;
+        this.acknowledger = acknowledger;
+        this.flushTimer = Timer.builder("payment.status.batch.flush")
+                               .description("Time spent writing one batch of status updates")
+                               .publishPercentileHistogram()
+                               .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("payment.status.batch.size")
+                                            .description("Number of status updates written per batch")
+                                            .register(meterRegistry);
+        this.coalesced = meterRegistry.counter("payment.status.batch.coalesced");
+        this.notApplied = meterRegistry.counter("payment.status.batch.not.applied");
+        this.rejected = meterRegistry.counter("payment.status.batch.rejected");
+        this.failed = meterRegistry.counter("payment.status.batch.failures");
+        Gauge.builder("payment.status.batch.pending", pending, Map::size)
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.enabled()) {
+            long window = properties.window().toMillis();
+            flusher.scheduleWithFixedDelay(this::flush, window, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    public void setNotAppliedListener(Consumer<XPaymentAdapterResponseMessage> listener) {
+        this.notAppliedListener = listener;
+    }
+
+    /**
+     * Ставит в очередь обновление статуса из сообщения адаптера.
+     *
+     * @param message сообщение адаптера
+     * @param status  новый статус
+     */
+    public void submit(XPaymentAdapterResponseMessage message, PaymentStatus status) {
+        submit(message.getPaymentGuid(), new StatusUpdate(status, message.getOccurredAt(), message));
+    }
+
+    /**
+     * Ставит обновление статуса в очередь. Если по платежу уже есть
+     * незаписанное обновление, остаётся более позднее по времени события.
+     *
+     * @param paymentGuid идентификатор платежа
+     * @param status      новый статус
+     * @param occurredAt  время события, по которому выбирается последнее обновление
+     */
+    public void submit(UUID paymentGuid, PaymentStatus status, OffsetDateTime occurredAt) {
+        submit(paymentGuid, new StatusUpdate(status, occurredAt, null));
+    }
+
+    private void submit(UUID paymentGuid, StatusUpdate update) {
+        pending.compute(paymentGuid, (guid, previous) -> {
+            if (previous == null) {
+                return update;
+            }
+            coalesced.increment();
+            return previous.latest(update);
+        });
+        if (pending.size() >= properties.maxBatchSize() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Записывает все накопленные обновления пакетами не больше
+     * {@code maxBatchSize}. Вызывается только из потока записи.
+     */
+    void flush() {
+        flushRequested.set(false);
+        while (!pending.isEmpty()) {
+            Map<UUID, StatusUpdate> batch = drain();
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Status batch of {} update(s) failed, retrying with the next window", batch.size(), e);
+                batch.forEach((guid, update) -> pending.merge(guid, update,
+                                                              (current, failure) -> failure.latest(current)));
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.execute(this::flush);
+        flusher.shutdown();
+        if (!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("{} status update(s) were not written before shutdown", pending.size());
+        }
+    }
+
+    private Map<UUID, StatusUpdate> drain() {
+        Map<UUID, StatusUpdate> batch = new HashMap<>();
+        Iterator<UUID> guids = pending.keySet().iterator();
+        while (guids.hasNext() && batch.size() < properties.maxBatchSize()) {
+            UUID guid = guids.next();
+            StatusUpdate update = pending.remove(guid);
+            if (update != null) {
+                batch.put(guid, update);
+            }
+        }
+        return batch;
+    }
+
+    private void write(Map<UUID, StatusUpdate> batch) {
+        Map<UUID, PaymentStatus> statuses = new HashMap<>(batch.size() * 2);
+        batch.forEach((guid, update) -> statuses.put(guid, update.status()));
+        StatusUpdateResult result = flushTimer.record(() -> paymentService.updateStatuses(statuses));
+        batchSize.record(batch.size());
+        log.debug("Status batch of {} update(s) written", batch.size());
+        if (result == null) {
+            acknowledge(batch, Set.of());
+            return;
+        }
+        acknowledge(batch, result.missing());
+        if (!result.rejected().isEmpty()) {
+            rejected.increment(result.rejected().size());
+            log.debug("Status transition not allowed for payment(s) {}", result.rejected());
+        }
+        if (!result.missing().isEmpty()) {
+            notApplied.increment(result.missing().size());
+            log.warn("Status update not applied to missing payment(s) {}", result.missing());
+            for (UUID guid : result.missing()) {
+                XPaymentAdapterResponseMessage source = batch.get(guid).source();
+                if (source != null) {
+                    notAppliedListener.accept(source);
+                }
+            }
+        }
+    }
+
+    private void acknowledge(Map<UUID, StatusUpdate> batch, Set<UUID> missing) {
+        batch.forEach((guid, update) -> {
+            if (update.source() != null && !missing.contains(guid)) {
+                acknowledger.acknowledge(update.source());
+            }
+        });
+    }
+
+    private record StatusUpdate(PaymentStatus status, OffsetDateTime occurredAt,
+                                XPaymentAdapterResponseMessage source) {
+
+        StatusUpdate latest(StatusUpdate other) {
+            if (occurredAt != null && other.occurredAt() != null && other.occurredAt().isBefore(occurredAt)) {
+                return this;
+            }
+            return other;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки колеса таймеров для отложенных асинхронных задач.
+ *
+ * @param tick      длительность одного тика, определяет точность срабатывания
+ * @param wheelSize количество корзин колеса, степень двойки
+ */
+@ConfigurationProperties(prefix = "payment.async.timer")
+public record TimerProperties(
+        @DefaultValue("10ms") Duration tick,
+        @DefaultValue("512") int wheelSize
+) {
+
+}
@@ -56,6 +56,17 @@ public class XPaymentAdapterResponseMessage implements Message {
      */
     private OffsetDateTime occurredAt;
 
+    /**
+     * Номер попытки обработки сообщения, начиная с единицы.
+     */
+    private int deliveryAttempt = 1;
+
+    /**
+     * Идентификатор записи dead-letter таблицы, если сообщение из неё
+     * повторно поставлено в обработку.
+     */
+    private Long deadLetterId;
+
     @Override
     public UUID getMessageId() {
         return messageGuid;
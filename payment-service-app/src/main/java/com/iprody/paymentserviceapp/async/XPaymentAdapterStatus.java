@@ -7,5 +7,15 @@ package com.iprody.paymentserviceapp.async;
 public enum XPaymentAdapterStatus {
     PROCESSING,
     CANCELED,
-    SUCCEEDED
+    SUCCEEDED;
+
+    /**
+     * Признак финального статуса, после которого событий по платежу
+     * больше не будет.
+     *
+     * @return {@code true} для {@link #CANCELED} и {@link #SUCCEEDED}
+     */
+    public boolean isTerminal() {
+        return this != PROCESSING;
+    }
 }
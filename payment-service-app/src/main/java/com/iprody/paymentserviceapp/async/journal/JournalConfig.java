@@ -0,0 +1,26 @@
+package com.iprody.paymentserviceapp.async.journal;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class JournalConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.async.journal", name = "enabled", havingValue = "true")
+    public MessageJournal mappedMessageJournal(JournalProperties properties) {
+        return new MappedMessageJournal(properties.directory(),
+                                        Math.toIntExact(properties.segmentSize().toBytes()),
+                                        properties.forceOnWrite());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.async.journal", name = "enabled", havingValue = "false",
+                           matchIfMissing = true)
+    public MessageJournal noopMessageJournal() {
+        return new NoopMessageJournal();
+    }
+}
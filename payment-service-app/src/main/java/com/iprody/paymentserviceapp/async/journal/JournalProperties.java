@@ -0,0 +1,25 @@
+package com.iprody.paymentserviceapp.async.journal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки персистентного режима брокера X Payment Adapter.
+ *
+ * @param enabled      включает запись сообщений в журнал
+ * @param directory    каталог с сегментами журнала
+ * @param segmentSize  размер одного сегмента
+ * @param forceOnWrite синхронизировать ли сегмент с диском после каждой записи
+ */
+@ConfigurationProperties(prefix = "payment.async.journal")
+public record JournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/journal") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("false") boolean forceOnWrite
+) {
+
+}
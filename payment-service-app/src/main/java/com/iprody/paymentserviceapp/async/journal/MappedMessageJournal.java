@@ -0,0 +1,227 @@
+package com.iprody.paymentserviceapp.async.journal;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.iprody.paymentserviceapp.async.journal.XPaymentAdapterMessageCodec.MAX_MESSAGE_SIZE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only журнал на файлах, отображённых в память.
+ *
+ * <p>
+ * Журнал состоит из сегментов фиксированного размера. Каждая запись имеет
+ * вид {@code [int length][byte type][payload]}; длина записывается последней,
+ * поэтому недописанная при падении запись читается как конец сегмента.
+ * Когда сегмент заполняется, открывается следующий, а сегменты, все запросы
+ * которых подтверждены, удаляются.
+ *
+ * <p>
+ * Запись не синхронизируется с диском на каждое сообщение: данные в
+ * отображённой памяти переживают падение процесса, а {@code force} вызывается
+ * при смене сегмента, закрытии и, если включено, после каждой записи.
+ */
+@Slf4j
+public class MappedMessageJournal implements MessageJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte REQUEST = 1;
+    private static final byte RESPONSE = 2;
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnWrite;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_MESSAGE_SIZE);
+    private final Map<UUID, Long> pendingSegments = new HashMap<>();
+    private final Map<UUID, XPaymentAdapterRequestMessage> recovered = new LinkedHashMap<>();
+
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+
+    public MappedMessageJournal(Path directory, int segmentSize, boolean forceOnWrite) {
+        if (segmentSize < HEADER_SIZE + MAX_MESSAGE_SIZE) {
+            throw new IllegalArgumentException("Journal segment size is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceOnWrite = forceOnWrite;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open message journal in " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void appendRequest(XPaymentAdapterRequestMessage message) {
+        scratch.clear();
+        XPaymentAdapterMessageCodec.writeRequest(scratch, message);
+        append(REQUEST);
+        pendingSegments.put(message.getPaymentGuid(), segmentIndex);
+    }
+
+    @Override
+    public synchronized void appendResponse(XPaymentAdapterResponseMessage message) {
+        scratch.clear();
+        XPaymentAdapterMessageCodec.writeResponse(scratch, message);
+        append(RESPONSE);
+        if (message.getStatus() != null && message.getStatus().isTerminal()) {
+            pendingSegments.remove(message.getPaymentGuid());
+        }
+    }
+
+    /**
+     * Возвращает запросы, оставшиеся неподтверждёнными на момент открытия
+     * журнала. Повторный вызов возвращает пустой список.
+     */
+    @Override
+    public synchronized List<XPaymentAdapterRequestMessage> replayPending() {
+        List<XPaymentAdapterRequestMessage> pending = new ArrayList<>(recovered.values());
+        recovered.clear();
+        return pending;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            segment.force();
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Unable to close journal segment {}", segmentIndex, e);
+        }
+    }
+
+    private void append(byte type) {
+        scratch.flip();
+        int length = scratch.remaining();
+        if (segment.remaining() < HEADER_SIZE + length) {
+            roll();
+        }
+        int position = segment.position();
+        segment.put(position + Integer.BYTES, type);
+        segment.put(position + HEADER_SIZE, scratch, 0, length);
+        segment.putInt(position, length);
+        segment.position(position + HEADER_SIZE + length);
+        if (forceOnWrite) {
+            segment.force(position, HEADER_SIZE + length);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> segments = listSegments();
+        for (long index : segments) {
+            try (FileChannel readChannel = FileChannel.open(segmentPath(index), READ)) {
+                ByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                int end = replaySegment(buffer, index);
+                segmentIndex = index;
+                if (index == segments.getLast()) {
+                    openSegment(end);
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+        }
+        log.info("Message journal opened in {}: {} segment(s), {} pending request(s)",
+                 directory, segments.size(), recovered.size());
+    }
+
+    private int replaySegment(ByteBuffer buffer, long index) {
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - Byte.BYTES) {
+                return start;
+            }
+            byte type = buffer.get();
+            ByteBuffer record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            if (type == REQUEST) {
+                XPaymentAdapterRequestMessage request = XPaymentAdapterMessageCodec.readRequest(record);
+                recovered.remove(request.getPaymentGuid());
+                recovered.put(request.getPaymentGuid(), request);
+                pendingSegments.put(request.getPaymentGuid(), index);
+            } else if (type == RESPONSE) {
+                XPaymentAdapterResponseMessage response = XPaymentAdapterMessageCodec.readResponse(record);
+                if (response.getStatus() != null && response.getStatus().isTerminal()) {
+                    recovered.remove(response.getPaymentGuid());
+                    pendingSegments.remove(response.getPaymentGuid());
+                }
+            }
+        }
+        return buffer.position();
+    }
+
+    private void roll() {
+        try {
+            segment.force();
+            channel.close();
+            segmentIndex++;
+            openSegment(0);
+            deleteAcknowledgedSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to roll journal segment " + segmentIndex, e);
+        }
+    }
+
+    private void openSegment(int position) throws IOException {
+        channel = FileChannel.open(segmentPath(segmentIndex), CREATE, READ, WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.position(position);
+    }
+
+    /**
+     * Удаляет сегменты, предшествующие самому раннему сегменту с
+     * неподтверждённым запросом. Подтверждения в более поздних сегментах
+     * ссылаются только на удалённые запросы, поэтому повторное чтение
+     * журнала остаётся корректным.
+     */
+    private void deleteAcknowledgedSegments() throws IOException {
+        long oldestPending = pendingSegments.isEmpty()
+                             ? segmentIndex
+                             : Collections.min(pendingSegments.values());
+        for (long index : listSegments()) {
+            if (index < oldestPending) {
+                Files.deleteIfExists(segmentPath(index));
+            }
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                        .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                                                   name.length() - SEGMENT_SUFFIX.length())))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+}
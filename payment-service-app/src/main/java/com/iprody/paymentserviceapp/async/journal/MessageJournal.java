@@ -0,0 +1,43 @@
+package com.iprody.paymentserviceapp.async.journal;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Журнал сообщений X Payment Adapter.
+ *
+ * <p>
+ * Фиксирует отправленные запросы и полученные ответы, чтобы после
+ * перезапуска сервиса можно было повторно отправить запросы, для
+ * которых ещё не был получен финальный статус.
+ */
+public interface MessageJournal extends Closeable {
+
+    /**
+     * Записывает в журнал отправленный запрос.
+     *
+     * @param message запрос к платёжной системе
+     */
+    void appendRequest(XPaymentAdapterRequestMessage message);
+
+    /**
+     * Записывает в журнал обработанный ответ. Ответ с финальным
+     * статусом подтверждает соответствующий запрос.
+     *
+     * @param message ответ платёжной системы
+     */
+    void appendResponse(XPaymentAdapterResponseMessage message);
+
+    /**
+     * Возвращает неподтверждённые запросы в порядке их записи.
+     *
+     * @return запросы, для которых не записан финальный ответ
+     */
+    List<XPaymentAdapterRequestMessage> replayPending();
+
+    @Override
+    void close();
+}
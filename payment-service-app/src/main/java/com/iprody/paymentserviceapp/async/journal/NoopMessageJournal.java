@@ -0,0 +1,33 @@
+package com.iprody.paymentserviceapp.async.journal;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+
+import java.util.List;
+
+/**
+ * Журнал, который ничего не сохраняет. Используется, когда
+ * персистентный режим брокера выключен.
+ */
+public class NoopMessageJournal implements MessageJournal {
+
+    @Override
+    public void appendRequest(XPaymentAdapterRequestMessage message) {
+        // nothing to persist
+    }
+
+    @Override
+    public void appendResponse(XPaymentAdapterResponseMessage message) {
+        // nothing to persist
+    }
+
+    @Override
+    public List<XPaymentAdapterRequestMessage> replayPending() {
+        return List.of();
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
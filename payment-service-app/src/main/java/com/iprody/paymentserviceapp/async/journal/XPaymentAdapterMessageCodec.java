@@ -0,0 +1,159 @@
+package com.iprody.paymentserviceapp.async.journal;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Компактная бинарная сериализация сообщений X Payment Adapter.
+ *
+ * <p>
+ * Формат фиксирован и не зависит от Jackson, чтобы запись в журнал
+ * не создавала промежуточных строк и не требовала рефлексии.
+ */
+public final class XPaymentAdapterMessageCodec {
+
+    /**
+     * Верхняя граница размера одного закодированного сообщения.
+     */
+    public static final int MAX_MESSAGE_SIZE = 1024;
+
+    private static final int MAX_STRING_LENGTH = 255;
+    private static final byte ABSENT = 0;
+    private static final byte PRESENT = 1;
+
+    private XPaymentAdapterMessageCodec() {
+    }
+
+    public static void writeRequest(ByteBuffer buffer, XPaymentAdapterRequestMessage message) {
+        writeUuid(buffer, message.getPaymentGuid());
+        writeDecimal(buffer, message.getAmount());
+        writeString(buffer, message.getCurrency());
+        writeDateTime(buffer, message.getOccurredAt());
+    }
+
+    public static XPaymentAdapterRequestMessage readRequest(ByteBuffer buffer) {
+        XPaymentAdapterRequestMessage message = new XPaymentAdapterRequestMessage();
+        message.setPaymentGuid(readUuid(buffer));
+        message.setAmount(readDecimal(buffer));
+        message.setCurrency(readString(buffer));
+        message.setOccurredAt(readDateTime(buffer));
+        return message;
+    }
+
+    public static void writeResponse(ByteBuffer buffer, XPaymentAdapterResponseMessage message) {
+        writeUuid(buffer, message.getMessageGuid());
+        writeUuid(buffer, message.getPaymentGuid());
+        writeDecimal(buffer, message.getAmount());
+        writeString(buffer, message.getCurrency());
+        writeUuid(buffer, message.getTransactionRefId());
+        buffer.put(message.getStatus() == null ? -1 : (byte) message.getStatus().ordinal());
+        writeDateTime(buffer, message.getOccurredAt());
+    }
+
+    public static XPaymentAdapterResponseMessage readResponse(ByteBuffer buffer) {
+        XPaymentAdapterResponseMessage message = new XPaymentAdapterResponseMessage();
+        message.setMessageGuid(readUuid(buffer));
+        message.setPaymentGuid(readUuid(buffer));
+        message.setAmount(readDecimal(buffer));
+        message.setCurrency(readString(buffer));
+        message.setTransactionRefId(readUuid(buffer));
+        byte status = buffer.get();
+        message.setStatus(status < 0 ? null : XPaymentAdapterStatus.values()[status]);
+        message.setOccurredAt(readDateTime(buffer));
+        return message;
+    }
+
+    private static void writeUuid(ByteBuffer buffer, UUID value) {
+        if (value == null) {
+            buffer.put(ABSENT);
+            return;
+        }
+        buffer.put(PRESENT);
+        buffer.putLong(value.getMostSignificantBits());
+        buffer.putLong(value.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer buffer) {
+        if (buffer.get() == ABSENT) {
+            return null;
+        }
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void writeDecimal(ByteBuffer buffer, BigDecimal value) {
+        if (value == null) {
+            buffer.put(ABSENT);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("Decimal value is too long: " + value);
+        }
+        buffer.put(PRESENT);
+        buffer.putInt(value.scale());
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer buffer) {
+        if (buffer.get() == ABSENT) {
+            return null;
+        }
+        int scale = buffer.getInt();
+        byte[] unscaled = new byte[buffer.get() & 0xFF];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.put(ABSENT);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("String value is too long: " + bytes.length + " bytes");
+        }
+        buffer.put(PRESENT);
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        if (buffer.get() == ABSENT) {
+            return null;
+        }
+        byte[] bytes = new byte[buffer.get() & 0xFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDateTime(ByteBuffer buffer, OffsetDateTime value) {
+        if (value == null) {
+            buffer.put(ABSENT);
+            return;
+        }
+        buffer.put(PRESENT);
+        buffer.putLong(value.toEpochSecond());
+        buffer.putInt(value.getNano());
+        buffer.putInt(value.getOffset().getTotalSeconds());
+    }
+
+    private static OffsetDateTime readDateTime(ByteBuffer buffer) {
+        if (buffer.get() == ABSENT) {
+            return null;
+        }
+        Instant instant = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(buffer.getInt()));
+    }
+}
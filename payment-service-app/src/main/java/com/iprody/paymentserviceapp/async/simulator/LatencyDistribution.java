@@ -0,0 +1,101 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Распределение задержки перехода между статусами.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Выбирает задержку.
+     *
+     * @param random источник случайных чисел
+     * @return задержка в наносекундах, не меньше нуля
+     */
+    long sampleNanos(RandomGenerator random);
+
+    static LatencyDistribution of(LatencyProperties properties) {
+        return switch (properties.type()) {
+            case FIXED -> fixed(properties.delay().toNanos());
+            case UNIFORM -> uniform(properties.min().toNanos(), properties.max().toNanos());
+            case LOG_NORMAL -> logNormal(properties.delay().toNanos(), properties.sigma(), properties.max().toNanos());
+            case HISTOGRAM -> histogram(properties.histogram());
+        };
+    }
+
+    static LatencyDistribution fixed(long nanos) {
+        long delay = Math.max(0, nanos);
+        return random -> delay;
+    }
+
+    static LatencyDistribution uniform(long minNanos, long maxNanos) {
+        if (maxNanos < minNanos) {
+            throw new IllegalArgumentException("Uniform latency max must not be less than min");
+        }
+        long min = Math.max(0, minNanos);
+        long max = Math.max(min, maxNanos);
+        return random -> min == max ? min : random.nextLong(min, max + 1);
+    }
+
+    /**
+     * Логнормальное распределение с заданной медианой. Длинный хвост
+     * ограничен {@code capNanos}.
+     */
+    static LatencyDistribution logNormal(long medianNanos, double sigma, long capNanos) {
+        if (medianNanos <= 0 || sigma < 0) {
+            throw new IllegalArgumentException("Log-normal latency needs a positive median and non-negative sigma");
+        }
+        double mu = Math.log(medianNanos);
+        return random -> Math.min(capNanos, (long) Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Распределение по гистограмме. Каждая непустая строка файла, кроме
+     * комментариев с {@code #}, — задержка в миллисекундах и число
+     * наблюдений, разделённые пробелом или запятой.
+     */
+    static LatencyDistribution histogram(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Histogram latency needs a histogram file");
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read latency histogram " + file, e);
+        }
+        List<long[]> buckets = new ArrayList<>();
+        long total = 0;
+        for (String line : lines) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split("[\\s,]+");
+            long count = Long.parseLong(parts[1]);
+            if (count > 0) {
+                total += count;
+                buckets.add(new long[] {Long.parseLong(parts[0]) * 1_000_000L, total});
+            }
+        }
+        if (buckets.isEmpty()) {
+            throw new IllegalArgumentException("Latency histogram " + file + " is empty");
+        }
+        long[] latencies = buckets.stream().mapToLong(bucket -> bucket[0]).toArray();
+        long[] cumulative = buckets.stream().mapToLong(bucket -> bucket[1]).toArray();
+        long observations = total;
+        return random -> {
+            int index = Arrays.binarySearch(cumulative, random.nextLong(observations) + 1);
+            return latencies[index >= 0 ? index : -index - 1];
+        };
+    }
+}
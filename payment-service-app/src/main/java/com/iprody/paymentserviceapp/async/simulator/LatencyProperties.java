@@ -0,0 +1,30 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Задержка одного перехода между статусами.
+ *
+ * @param type      вид распределения
+ * @param delay     задержка для {@link LatencyType#FIXED}, медиана для {@link LatencyType#LOG_NORMAL}
+ * @param min       нижняя граница для {@link LatencyType#UNIFORM}
+ * @param max       верхняя граница для {@link LatencyType#UNIFORM} и предел для {@link LatencyType#LOG_NORMAL}
+ * @param sigma     параметр формы для {@link LatencyType#LOG_NORMAL}
+ * @param histogram файл для {@link LatencyType#HISTOGRAM}: строки {@code <задержка в мс> <количество>}
+ */
+public record LatencyProperties(
+        @DefaultValue("FIXED") LatencyType type,
+        @DefaultValue("0s") Duration delay,
+        @DefaultValue("0s") Duration min,
+        @DefaultValue("1m") Duration max,
+        @DefaultValue("0.5") double sigma,
+        Path histogram
+) {
+
+    public static LatencyProperties fixed(Duration delay) {
+        return new LatencyProperties(LatencyType.FIXED, delay, Duration.ZERO, Duration.ofMinutes(1), 0.5, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+/**
+ * Вид распределения задержки перехода между статусами.
+ */
+public enum LatencyType {
+
+    /**
+     * Всегда {@code delay}.
+     */
+    FIXED,
+
+    /**
+     * Равномерно от {@code min} до {@code max}.
+     */
+    UNIFORM,
+
+    /**
+     * Логнормально с медианой {@code delay} и параметром формы {@code sigma}.
+     */
+    LOG_NORMAL,
+
+    /**
+     * По гистограмме из файла {@code histogram}.
+     */
+    HISTOGRAM
+}
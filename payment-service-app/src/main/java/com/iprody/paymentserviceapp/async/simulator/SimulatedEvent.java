@@ -0,0 +1,13 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+
+import java.util.UUID;
+
+/**
+ * Событие, которое симулятор доставит через {@code delayNanos} после запроса.
+ * Дубликаты имеют тот же {@code messageGuid}, что и исходное событие.
+ */
+public record SimulatedEvent(UUID messageGuid, XPaymentAdapterStatus status, long delayNanos) {
+
+}
@@ -0,0 +1,15 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SimulatorProperties.class)
+public class SimulatorConfig {
+
+    @Bean
+    public XPaymentAdapterSimulator adapterSimulator(SimulatorProperties properties) {
+        return new XPaymentAdapterSimulator(properties);
+    }
+}
@@ -0,0 +1,40 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки симулятора X Payment Adapter.
+ *
+ * <p>
+ * По умолчанию симулятор воспроизводит прежнее поведение брокера:
+ * {@code PROCESSING} сразу, повторный {@code PROCESSING} через 10 секунд и
+ * {@code SUCCEEDED} ещё через 10 секунд.
+ *
+ * @param accepted      задержка от запроса до первого {@code PROCESSING}
+ * @param processing    задержка от первого до второго {@code PROCESSING}
+ * @param completion    задержка от второго {@code PROCESSING} до финального статуса
+ * @param canceledRate  доля платежей, завершающихся {@code CANCELED}
+ * @param duplicateRate доля событий, доставляемых дважды с одним идентификатором
+ * @param reorderRate   доля платежей, у которых финальный статус приходит раньше {@code PROCESSING}
+ * @param dropRate      доля событий, которые не доставляются
+ */
+@ConfigurationProperties(prefix = "payment.async.simulator")
+public record SimulatorProperties(
+        LatencyProperties accepted,
+        LatencyProperties processing,
+        LatencyProperties completion,
+        @DefaultValue("0") double canceledRate,
+        @DefaultValue("0") double duplicateRate,
+        @DefaultValue("0") double reorderRate,
+        @DefaultValue("0") double dropRate
+) {
+
+    public SimulatorProperties {
+        accepted = accepted != null ? accepted : LatencyProperties.fixed(Duration.ZERO);
+        processing = processing != null ? processing : LatencyProperties.fixed(Duration.ofSeconds(10));
+        completion = completion != null ? completion : LatencyProperties.fixed(Duration.ofSeconds(10));
+    }
+}
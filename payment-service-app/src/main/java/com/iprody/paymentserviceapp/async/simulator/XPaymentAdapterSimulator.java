@@ -0,0 +1,77 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.random.RandomGenerator;
+
+/**
+ * Составляет расписание ответов X Payment Adapter на один запрос.
+ *
+ * <p>
+ * Платёж проходит цепочку {@code PROCESSING → PROCESSING → SUCCEEDED}
+ * или {@code CANCELED}; задержка каждого перехода выбирается из своего
+ * распределения. Поверх цепочки накладываются сбои доставки: пропуск
+ * события, повторная доставка и доставка финального статуса раньше
+ * последнего {@code PROCESSING}.
+ */
+public class XPaymentAdapterSimulator {
+
+    private final LatencyDistribution accepted;
+    private final LatencyDistribution processing;
+    private final LatencyDistribution completion;
+    private final SimulatorProperties properties;
+
+    public XPaymentAdapterSimulator(SimulatorProperties properties) {
+        this.accepted = LatencyDistribution.of(properties.accepted());
+        this.processing = LatencyDistribution.of(properties.processing());
+        this.completion = LatencyDistribution.of(properties.completion());
+        this.properties = properties;
+    }
+
+    /**
+     * Составляет расписание событий по одному запросу.
+     *
+     * @param random источник случайных чисел
+     * @return события в порядке доставки
+     */
+    public List<SimulatedEvent> plan(RandomGenerator random) {
+        long first = accepted.sampleNanos(random);
+        long second = first + processing.sampleNanos(random);
+        long terminal = second + completion.sampleNanos(random);
+        final XPaymentAdapterStatus outcome = chance(random, properties.canceledRate())
+                ? XPaymentAdapterStatus.CANCELED
+                : XPaymentAdapterStatus.SUCCEEDED;
+        if (chance(random, properties.reorderRate())) {
+            long swapped = second;
+            second = terminal;
+            terminal = swapped;
+        }
+
+        List<SimulatedEvent> events = new ArrayList<>(6);
+        add(events, random, XPaymentAdapterStatus.PROCESSING, first);
+        add(events, random, XPaymentAdapterStatus.PROCESSING, second);
+        add(events, random, outcome, terminal);
+        events.sort(Comparator.comparingLong(SimulatedEvent::delayNanos));
+        return events;
+    }
+
+    private void add(List<SimulatedEvent> events, RandomGenerator random,
+                     XPaymentAdapterStatus status, long delayNanos) {
+        if (chance(random, properties.dropRate())) {
+            return;
+        }
+        SimulatedEvent event = new SimulatedEvent(UUID.randomUUID(), status, delayNanos);
+        events.add(event);
+        if (chance(random, properties.duplicateRate())) {
+            events.add(event);
+        }
+    }
+
+    private static boolean chance(RandomGenerator random, double rate) {
+        return rate > 0 && random.nextDouble() < rate;
+    }
+}
@@ -0,0 +1,80 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Wraps the application data source, the auto-configured pool or the
+ * replica routing proxy, in a {@link GatedDataSource}. With replicas enabled
+ * the limit covers read-only transactions too, because the gate is passed
+ * before the connection is routed.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ConnectionGateProperties.class)
+@ConditionalOnBooleanProperty(name = "payment.datasource.gate.enabled", matchIfMissing = true)
+public class ConnectionGateConfig {
+
+    static final int ORDER = Ordered.LOWEST_PRECEDENCE;
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static GatePostProcessor connectionGatePostProcessor(
+            ObjectProvider<ConnectionGateProperties> properties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new GatePostProcessor(properties, meterRegistry);
+    }
+
+    /**
+     * Resolves its dependencies only when the data source is created, so
+     * registering it early does not initialize the meter registry. The
+     * {@code @Bean} method returns this type rather than
+     * {@link BeanPostProcessor}, otherwise Spring cannot see that it is
+     * {@link Ordered} before creating it and ignores the order.
+     */
+    record GatePostProcessor(ObjectProvider<ConnectionGateProperties> properties,
+                                     ObjectProvider<MeterRegistry> meterRegistry)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            ConnectionGateProperties gate = properties.getObject();
+            int permits = gate.permits() > 0 ? gate.permits() : poolSize(dataSource);
+            if (permits <= 0) {
+                log.warn("Connection gate disabled: set payment.datasource.gate.permits for a non-Hikari pool");
+                return bean;
+            }
+            log.info("Connection gate allows {} connection(s) at once", permits);
+            return new GatedDataSource(dataSource, permits, gate.acquireTimeout(), meterRegistry.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+
+        private static int poolSize(DataSource dataSource) {
+            try {
+                return dataSource.isWrapperFor(HikariDataSource.class)
+                        ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                        : 0;
+            } catch (SQLException e) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limit on the connections handed out by the application data source.
+ *
+ * @param enabled        puts {@link GatedDataSource} in front of the {@code dataSource} bean
+ * @param permits        connections in use at once; {@code 0} takes the Hikari maximum pool size
+ * @param acquireTimeout how long a caller waits for a permit before the request fails
+ */
+@ConfigurationProperties(prefix = "payment.datasource.gate")
+public record ConnectionGateProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0") int permits,
+        @DefaultValue("30s") Duration acquireTimeout
+) {
+
+}
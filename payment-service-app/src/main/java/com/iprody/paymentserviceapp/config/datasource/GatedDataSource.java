@@ -0,0 +1,140 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands out at most {@code permits} connections at once, usually as many as
+ * the pool holds.
+ *
+ * <p>
+ * Callers beyond the limit wait on a fair {@link Semaphore} rather than
+ * inside the pool. A virtual thread parked there releases its carrier, so
+ * thousands of concurrent requests cost little more than their stacks, and
+ * the pool itself never has a queue of waiters. A caller that gets no
+ * permit within {@code acquireTimeout} fails with
+ * {@link SQLTransientConnectionException}, as it would on a pool timeout.
+ *
+ * <p>
+ * The permit is returned when the connection is closed; a connection that
+ * is never closed keeps its permit just as it keeps its pool slot.
+ */
+public class GatedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final Timer acquireTimer;
+    private final Counter timeouts;
+
+    public GatedDataSource(DataSource target, int permits, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeout = acquireTimeout;
+        this.acquireTimer = Timer.builder("payment.datasource.gate.acquire")
+                                 .description("Time spent waiting for a connection permit")
+                                 .register(meterRegistry);
+        this.timeouts = meterRegistry.counter("payment.datasource.gate.timeouts");
+        Gauge.builder("payment.datasource.gate.waiting", this.permits, Semaphore::getQueueLength)
+             .description("Callers waiting for a connection permit")
+             .register(meterRegistry);
+        Gauge.builder("payment.datasource.gate.active", this.permits, gate -> permits - gate.availablePermits())
+             .description("Connections handed out and not yet closed")
+             .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return gated(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return gated(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException(
+                        "No connection available within " + acquireTimeout.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        } finally {
+            acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Connection gated(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                                                   new Class<?>[]{ConnectionProxy.class},
+                                                   new PermitHandler(connection));
+    }
+
+    /**
+     * Delegates to the pooled connection and returns the permit on the first
+     * {@code close()}.
+     */
+    private final class PermitHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("getTargetConnection".equals(name)) {
+                return target;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                if ("close".equals(name) && released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
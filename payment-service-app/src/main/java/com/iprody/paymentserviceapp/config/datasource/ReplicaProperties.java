@@ -0,0 +1,36 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas that serve read-only transactions.
+ *
+ * @param enabled           enables routing; without it every query goes to {@code spring.datasource}
+ * @param instances         replicas, tried in turn
+ * @param maxLag            replication lag above which a replica is skipped
+ * @param checkInterval     pause between lag checks
+ * @param connectionTimeout how long a replica connection is awaited, keeps a dead replica from stalling checks
+ * @param poolSize          connection pool size of each replica
+ */
+@ConfigurationProperties(prefix = "payment.datasource.replica")
+public record ReplicaProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<Instance> instances,
+        @DefaultValue("5s") Duration maxLag,
+        @DefaultValue("1s") Duration checkInterval,
+        @DefaultValue("1s") Duration connectionTimeout,
+        @DefaultValue("10") int poolSize
+) {
+
+    /**
+     * Connection settings of one replica. Missing credentials are taken from
+     * {@code spring.datasource}.
+     */
+    public record Instance(String url, String username, String password) {
+
+    }
+}
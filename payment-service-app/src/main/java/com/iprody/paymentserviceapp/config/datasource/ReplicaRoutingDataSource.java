@@ -0,0 +1,152 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Data source for read-only connections. Picks the replicas round-robin,
+ * skipping those whose last measured replication lag exceeds
+ * {@code maxLag} or that could not be reached; when none is left the
+ * connection comes from the primary.
+ *
+ * <p>
+ * Lag is measured in a background thread every {@code checkInterval}. A
+ * streaming replica that has replayed everything it received reports zero
+ * lag even when the primary has been idle. A replica whose WAL receiver is
+ * not streaming counts as unavailable, since what it replayed may be
+ * arbitrarily old; so does a replica before its first check.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+    private static final String LAG_SQL = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0
+                        WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL
+                        WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END::bigint
+            """;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final Duration checkInterval;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryReads;
+    private final ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-lag-monitor").daemon().factory());
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    ReplicaProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.maxLagMillis = properties.maxLag().toMillis();
+        this.checkInterval = properties.checkInterval();
+        this.primaryReads = meterRegistry.counter("payment.datasource.reads", "target", PRIMARY);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        int queryTimeout = (int) Math.max(1, checkInterval.toSeconds());
+        replicas.forEach((name, dataSource) -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.setQueryTimeout(queryTimeout);
+            Replica replica = new Replica(name, dataSource, jdbcTemplate, new AtomicLong(UNKNOWN_LAG),
+                                          meterRegistry.counter("payment.datasource.reads", "target", name));
+            Gauge.builder("payment.datasource.replica.lag", replica, Replica::lagSeconds)
+                 .description("Replication lag of a read replica, NaN while it is unreachable")
+                 .tag("replica", name)
+                 .baseUnit("seconds")
+                 .register(meterRegistry);
+            this.replicas.add(replica);
+            targets.put(name, dataSource);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @PostConstruct
+    public void start() {
+        monitor.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        monitor.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int size = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((first + i) % size);
+            if (replica.lagMillis().get() <= maxLagMillis) {
+                replica.reads().increment();
+                return replica.name();
+            }
+        }
+        primaryReads.increment();
+        return PRIMARY;
+    }
+
+    void checkLag() {
+        for (Replica replica : replicas) {
+            long previous = replica.lagMillis().get();
+            long lag;
+            try {
+                Long measured = replica.jdbcTemplate().queryForObject(LAG_SQL, Long.class);
+                lag = measured == null ? UNKNOWN_LAG : measured;
+                if (measured == null && previous != UNKNOWN_LAG) {
+                    log.warn("Replica {} is not streaming from the primary, reading from the primary",
+                             replica.name());
+                }
+            } catch (DataAccessException e) {
+                lag = UNKNOWN_LAG;
+                if (previous != UNKNOWN_LAG) {
+                    log.warn("Replica {} is unreachable, reading from the primary: {}",
+                             replica.name(), e.getMostSpecificCause().getMessage());
+                }
+            }
+            replica.lagMillis().set(lag);
+            if (previous <= maxLagMillis && lag > maxLagMillis && lag != UNKNOWN_LAG) {
+                log.warn("Replica {} lags {} ms behind the primary, skipping it", replica.name(), lag);
+            } else if (previous > maxLagMillis && lag <= maxLagMillis) {
+                log.info("Replica {} is in rotation, lag {} ms", replica.name(), lag);
+            }
+        }
+    }
+
+    private record Replica(String name, DataSource dataSource, JdbcTemplate jdbcTemplate, AtomicLong lagMillis,
+                           Counter reads) {
+
+        double lagSeconds() {
+            long lag = lagMillis.get();
+            return lag == UNKNOWN_LAG ? Double.NaN : lag / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Groups SQL statements by shape: the text with literals replaced by
+ * {@code ?}, lists of placeholders collapsed and whitespace squeezed, so
+ * it carries no values and the same query with other values or another
+ * number of IN elements has one shape.
+ *
+ * <p>
+ * Each shape gets a {@code payment.datasource.statement} timer tagged with
+ * the operation and a short id; the id and the shape are logged once when
+ * the shape is first seen. Past {@code maxShapes} statements are recorded
+ * under the shape {@code other}. The timers publish a single histogram
+ * bucket at the slow threshold rather than a percentile histogram, which
+ * would add dozens of series per shape.
+ */
+@Slf4j
+class StatementShapes {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int STATEMENTS_PER_SHAPE = 4;
+
+    private final Map<String, Shape> byStatement = new ConcurrentHashMap<>();
+    private final Map<String, Shape> byShape = new ConcurrentHashMap<>();
+    private final int maxShapes;
+    private final Duration slowThreshold;
+    private final MeterRegistry meterRegistry;
+    private final Shape other;
+
+    StatementShapes(int maxShapes, Duration slowThreshold, MeterRegistry meterRegistry) {
+        this.maxShapes = maxShapes;
+        this.slowThreshold = slowThreshold;
+        this.meterRegistry = meterRegistry;
+        this.other = new Shape("other", null, timer("other", "other"));
+    }
+
+    /**
+     * Finds the shape of a statement, normalizing its text only the first
+     * time the exact text is seen.
+     */
+    Shape of(String sql) {
+        Shape shape = byStatement.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        String normalized = normalize(sql);
+        shape = byShape.get(normalized);
+        if (shape == null) {
+            shape = byShape.size() < maxShapes
+                    ? byShape.computeIfAbsent(normalized, this::register)
+                    : new Shape(other.id(), normalized, other.timer());
+        }
+        if (byStatement.size() < maxShapes * STATEMENTS_PER_SHAPE) {
+            byStatement.putIfAbsent(sql, shape);
+        }
+        return shape;
+    }
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return PLACEHOLDER_LIST.matcher(normalized).replaceAll("(?)");
+    }
+
+    private Shape register(String normalized) {
+        String id = String.format("%08x", normalized.hashCode());
+        int end = normalized.indexOf(' ');
+        String operation = (end < 0 ? normalized : normalized.substring(0, end)).toLowerCase(Locale.ROOT);
+        log.info("Statement shape {}: {}", id, normalized);
+        return new Shape(id, normalized, timer(id, operation));
+    }
+
+    private Timer timer(String id, String operation) {
+        return Timer.builder("payment.datasource.statement")
+                    .description("Execution time of SQL statements of one shape")
+                    .tag("shape", id)
+                    .tag("operation", operation)
+                    .serviceLevelObjectives(slowThreshold)
+                    .register(meterRegistry);
+    }
+
+    /**
+     * Statement shape with the timer its executions are recorded in.
+     *
+     * @param id  short stable identifier used as the timer tag
+     * @param sql normalized statement text, safe to log
+     */
+    record Shape(String id, String sql, Timer timer) {
+
+    }
+}
@@ -0,0 +1,57 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application data source in a {@link StatementTimingDataSource}.
+ * Runs before the connection gate, which stays the outermost wrapper.
+ */
+@Configuration
+@EnableConfigurationProperties(StatementTimingProperties.class)
+@ConditionalOnBooleanProperty(name = "payment.datasource.statements.enabled", matchIfMissing = true)
+public class StatementTimingConfig {
+
+    static final int ORDER = ConnectionGateConfig.ORDER - 1;
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static TimingPostProcessor statementTimingPostProcessor(
+            ObjectProvider<StatementTimingProperties> properties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new TimingPostProcessor(properties, meterRegistry);
+    }
+
+    /**
+     * Resolves its dependencies only when the data source is created, so
+     * registering it early does not initialize the meter registry. The
+     * {@code @Bean} method returns this type rather than
+     * {@link BeanPostProcessor}, otherwise Spring cannot see that it is
+     * {@link Ordered} before creating it and ignores the order.
+     */
+    record TimingPostProcessor(ObjectProvider<StatementTimingProperties> properties,
+                                       ObjectProvider<MeterRegistry> meterRegistry)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new StatementTimingDataSource(dataSource, properties.getObject(), meterRegistry.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every statement executed on its connections and records it in the
+ * timer of the statement's shape, see {@link StatementShapes}.
+ *
+ * <p>
+ * A statement running longer than {@code slowThreshold} is logged at WARN,
+ * a {@code sampleRate} share of the others at INFO. Only the shape is
+ * logged: bind parameters are never read and inline literals are replaced,
+ * so no payment data ends up in the log. The time of a query covers its
+ * execution up to the first rows, not reading the rest of the result set.
+ */
+@Slf4j
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    private final StatementShapes shapes;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+
+    public StatementTimingDataSource(DataSource target,
+                                     StatementTimingProperties properties,
+                                     MeterRegistry meterRegistry) {
+        super(target);
+        this.shapes = new StatementShapes(properties.maxShapes(), properties.slowThreshold(), meterRegistry);
+        this.slowThresholdNanos = properties.slowThreshold().toNanos();
+        this.sampleRate = properties.sampleRate();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                                                   new Class<?>[]{ConnectionProxy.class},
+                                                   new ConnectionHandler(connection));
+    }
+
+    private void record(String sql, long nanos) {
+        StatementShapes.Shape shape = shapes.of(sql);
+        shape.timer().record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > slowThresholdNanos) {
+            log.warn("Slow statement {} took {} ms: {}", shape.id(), millis(nanos), shape.sql());
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Statement {} took {} ms: {}", shape.id(), millis(nanos), shape.sql());
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Wraps the statements created by the connection.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("getTargetConnection".equals(name)) {
+                return target;
+            }
+            Object result = delegate(target, method, args);
+            if ("createStatement".equals(name)) {
+                return statement(Statement.class, (Statement) result, null);
+            } else if ("prepareStatement".equals(name)) {
+                return statement(PreparedStatement.class, (Statement) result, (String) args[0]);
+            } else if ("prepareCall".equals(name)) {
+                return statement(CallableStatement.class, (Statement) result, (String) args[0]);
+            }
+            return result;
+        }
+
+        private Object statement(Class<? extends Statement> type, Statement statement, String sql) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                                          new StatementHandler(statement, sql));
+        }
+    }
+
+    /**
+     * Times the {@code execute*} methods of a statement. A prepared statement
+     * is recorded under its prepared text; a plain one under the text passed
+     * to {@code execute*}, or the first text added to its batch.
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private String sql;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("addBatch".equals(name) && sql == null && args != null) {
+                sql = (String) args[0];
+            } else if (name.startsWith("execute")) {
+                String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+                long start = System.nanoTime();
+                try {
+                    return delegate(target, method, args);
+                } finally {
+                    if (executed != null) {
+                        record(executed, System.nanoTime() - start);
+                    }
+                }
+            }
+            return delegate(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Timing and logging of the SQL statements run by the application.
+ *
+ * @param enabled       puts {@link StatementTimingDataSource} in front of the {@code dataSource} bean
+ * @param slowThreshold statements running longer are logged at WARN
+ * @param sampleRate    share of the remaining statements logged at INFO, from {@code 0} to {@code 1}
+ * @param maxShapes     distinct statement shapes with their own timer; the rest share one
+ */
+@ConfigurationProperties(prefix = "payment.datasource.statements")
+public record StatementTimingProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("200ms") Duration slowThreshold,
+        @DefaultValue("0") double sampleRate,
+        @DefaultValue("200") int maxShapes
+) {
+
+}
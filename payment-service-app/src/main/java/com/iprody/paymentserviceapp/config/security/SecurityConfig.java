@@ -35,6 +35,7 @@ public class SecurityConfig {
 
             .authorizeHttpRequests(auth -> auth
                     .requestMatchers("/payments/**").authenticated()
+                    .requestMatchers("/admin/**").authenticated()
                     .requestMatchers("/actuator/**").permitAll())
             .exceptionHandling(exceptionHandling ->
                                        exceptionHandling.authenticationEntryPoint(paymentAuthenticationEntryPoint))
@@ -0,0 +1,42 @@
+package com.iprody.paymentserviceapp.controller;
+
+import com.iprody.paymentserviceapp.controller.model.DeadLetterDto;
+import com.iprody.paymentserviceapp.service.DeadLetterService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.ResponseEntity.ok;
+
+@RestController
+@RequestMapping(path = "/admin/dead-letters",
+                produces = APPLICATION_JSON_VALUE)
+@AllArgsConstructor
+public class DeadLetterController {
+
+    private final DeadLetterService service;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DeadLetterDto>> findAll(@RequestParam(defaultValue = "100") int limit) {
+        return ok(service.findAll(limit));
+    }
+
+    @PostMapping("/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> replay(@RequestBody(required = false) List<Long> ids,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        return ok(ids == null || ids.isEmpty()
+                  ? service.replayOldest(limit)
+                  : service.replay(ids));
+    }
+}
@@ -0,0 +1,41 @@
+package com.iprody.paymentserviceapp.controller;
+
+import com.iprody.paymentserviceapp.controller.model.BatchCreateResult;
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.service.PaymentBatchService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.ResponseEntity.ok;
+
+@RestController
+@RequestMapping(path = "/payments/batch",
+                produces = APPLICATION_JSON_VALUE)
+@AllArgsConstructor
+public class PaymentBatchController {
+
+    private final PaymentBatchService service;
+
+    @PostMapping(consumes = APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'READER')")
+    public ResponseEntity<BatchCreateResult> create(@RequestBody List<PaymentDto> payments) {
+        return ok(service.createAll(payments));
+    }
+
+    @PostMapping(consumes = APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'READER')")
+    public ResponseEntity<BatchCreateResult> create(HttpServletRequest request) throws IOException {
+        return ok(service.createAll(request.getInputStream()));
+    }
+}
@@ -1,6 +1,9 @@
 package com.iprody.paymentserviceapp.controller;
 
+import com.iprody.paymentserviceapp.controller.model.CursorPage;
 import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.controller.model.SlicePage;
+import com.iprody.paymentserviceapp.exception.ServiceException;
 import com.iprody.paymentserviceapp.persistence.PaymentFilter;
 import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
 import com.iprody.paymentserviceapp.service.PaymentService;
@@ -10,6 +13,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ETag;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,6 +26,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,7 +34,9 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.List;
 import java.util.UUID;
 
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.VERSION_NOT_MATCH;
 import static org.springframework.data.domain.Sort.unsorted;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.ResponseEntity.ok;
 
@@ -54,14 +61,19 @@ public class PaymentController {
         log.info("GET payment by id: {}", id);
         PaymentDto dto = service.getById(id);
         log.debug("Sending response PaymentDto: {}", dto);
-        return ok(dto);
+        // answered with 304 and no body when If-None-Match already holds this ETag
+        return ResponseEntity.ok()
+                             .eTag(entityTag(dto))
+                             .body(dto);
     }
 
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'READER')")
     public ResponseEntity<PaymentDto> create(@RequestBody PaymentDto dto) {
+        PaymentDto created = service.create(dto);
         return ResponseEntity.status(HttpStatus.CREATED)
-                             .body(service.create(dto));
+                             .eTag(entityTag(created))
+                             .body(created);
     }
 
     @DeleteMapping("/{id}")
@@ -73,14 +85,19 @@ public class PaymentController {
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<PaymentDto> update(@RequestBody PaymentDto dto) {
-        return ResponseEntity.ok().body(service.update(dto));
+    public ResponseEntity<PaymentDto> update(@RequestBody PaymentDto dto,
+                                             @RequestHeader(name = IF_MATCH, required = false) String ifMatch) {
+        PaymentDto updated = service.update(dto, expectedVersion(dto.guid(), ifMatch));
+        return ResponseEntity.ok()
+                             .eTag(entityTag(updated))
+                             .body(updated);
     }
 
     @PatchMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Boolean> update(@PathVariable UUID id, @RequestParam String note) {
-        return ResponseEntity.ok().body(service.updateNote(id, note));
+    public ResponseEntity<Boolean> update(@PathVariable UUID id, @RequestParam String note,
+                                          @RequestHeader(name = IF_MATCH, required = false) String ifMatch) {
+        return ResponseEntity.ok().body(service.updateNote(id, note, expectedVersion(id, ifMatch)));
     }
 
     @GetMapping("/search")
@@ -89,20 +106,71 @@ public class PaymentController {
                                                            @RequestParam(defaultValue = "20") int size,
                                                            @RequestParam(defaultValue = "createdAt") String sortBy,
                                                            @RequestParam(defaultValue = "desc") String direction) {
+        return ok(service.searchPaged(filter, pageable(page, size, sortBy, direction)));
+    }
 
+    @GetMapping("/search-q")
+    public ResponseEntity<Page<PaymentDto>> searchPayments(@ModelAttribute QPaymentFilter filter) {
+        return ok(service.searchQPaged(filter));
+    }
+
+    @GetMapping("/search/slice")
+    public ResponseEntity<SlicePage<PaymentDto>> searchPaymentsSlice(@ModelAttribute PaymentFilter filter,
+                                                                     @RequestParam(defaultValue = "0") int page,
+                                                                     @RequestParam(defaultValue = "20") int size,
+                                                                     @RequestParam(defaultValue = "createdAt")
+                                                                     String sortBy,
+                                                                     @RequestParam(defaultValue = "desc")
+                                                                     String direction) {
+        return ok(service.searchSliced(filter, pageable(page, size, sortBy, direction)));
+    }
+
+    @GetMapping("/search-q/slice")
+    public ResponseEntity<SlicePage<PaymentDto>> searchPaymentsSlice(@ModelAttribute QPaymentFilter filter,
+                                                                     @RequestParam(defaultValue = "false")
+                                                                     boolean withTotal) {
+        return ok(service.searchQSliced(filter, withTotal));
+    }
+
+    @GetMapping("/search-q/keyset")
+    public ResponseEntity<CursorPage<PaymentDto>> searchPaymentsKeyset(@ModelAttribute QPaymentFilter filter) {
+        return ok(service.searchQKeyset(filter));
+    }
+
+    /**
+     * Strong ETag of a payment: its version, which changes with every update.
+     */
+    private static String entityTag(PaymentDto dto) {
+        return ETag.quoteETagIfNecessary(String.valueOf(dto.version()));
+    }
+
+    /**
+     * Version an If-Match header requires, {@code null} without a header or
+     * for {@code *}. If-Match uses the strong comparison, so a weak tag, a
+     * tag that is not a version or a list of tags fails the precondition.
+     */
+    private static Long expectedVersion(UUID id, String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> tags = ETag.parse(ifMatch);
+        if (tags.isEmpty() || tags.getFirst().isWildcard()) {
+            return null;
+        }
+        ETag tag = tags.getFirst();
+        if (tags.size() == 1 && !tag.weak() && tag.tag().matches("\\d{1,18}")) {
+            return Long.valueOf(tag.tag());
+        }
+        throw new ServiceException(VERSION_NOT_MATCH, id);
+    }
+
+    private Pageable pageable(int page, int size, String sortBy, String direction) {
         Sort sort = unsorted();
         if (StringUtils.hasText(sortBy)) {
             sort = direction.equalsIgnoreCase("desc")
                    ? Sort.by(sortBy).descending()
                    : Sort.by(sortBy).ascending();
         }
-
-        Pageable pageable = PageRequest.of(page, size, sort);
-        return ok(service.searchPaged(filter, pageable));
-    }
-
-    @GetMapping("/search-q")
-    public ResponseEntity<Page<PaymentDto>> searchPayments(@ModelAttribute QPaymentFilter filter) {
-        return ok(service.searchQPaged(filter));
+        return PageRequest.of(page, size, sort);
     }
 }
@@ -0,0 +1,48 @@
+package com.iprody.paymentserviceapp.controller;
+
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.service.PaymentExportService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+@RestController
+@RequestMapping(path = "/payments/export",
+                produces = APPLICATION_NDJSON_VALUE)
+@AllArgsConstructor
+public class PaymentExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final PaymentExportService service;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER', 'READER')")
+    public ResponseEntity<StreamingResponseBody> export(@ModelAttribute QPaymentFilter filter,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                                                            .contentType(MediaType.APPLICATION_NDJSON);
+        if (!gzip) {
+            return response.body(out -> service.exportNdjson(filter, out));
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                       .body(out -> {
+                           // close() also releases the native deflater when the export fails
+                           try (GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE)) {
+                               service.exportNdjson(filter, compressed);
+                           }
+                       });
+    }
+}
@@ -0,0 +1,32 @@
+package com.iprody.paymentserviceapp.controller;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentStatsDto;
+import com.iprody.paymentserviceapp.persistence.PaymentStatsFilter;
+import com.iprody.paymentserviceapp.service.PaymentStatsService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.ResponseEntity.ok;
+
+@RestController
+@RequestMapping(path = "/payments/stats",
+                produces = APPLICATION_JSON_VALUE)
+@AllArgsConstructor
+public class PaymentStatsController {
+
+    private final PaymentStatsService service;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER', 'READER')")
+    public ResponseEntity<List<PaymentStatsDto>> find(@ModelAttribute PaymentStatsFilter filter) {
+        return ok(service.find(filter));
+    }
+}
@@ -0,0 +1,11 @@
+package com.iprody.paymentserviceapp.controller.model;
+
+import java.util.List;
+
+public record BatchCreateResult(
+        int created,
+        int failed,
+        List<BatchItemResult> items
+) {
+
+}
@@ -0,0 +1,15 @@
+package com.iprody.paymentserviceapp.controller.model;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one payment of a batch: the generated {@code guid} or the
+ * {@code error} that kept it from being created.
+ */
+public record BatchItemResult(
+        int index,
+        UUID guid,
+        String error
+) {
+
+}
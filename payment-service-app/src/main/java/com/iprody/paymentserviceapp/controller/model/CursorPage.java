@@ -0,0 +1,13 @@
+package com.iprody.paymentserviceapp.controller.model;
+
+import java.util.List;
+
+/**
+ * Page of keyset pagination. {@code nextCursor} is {@code null} on the last page.
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+
+}
@@ -0,0 +1,23 @@
+package com.iprody.paymentserviceapp.controller.model;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record DeadLetterDto(
+        long id,
+        UUID messageGuid,
+        UUID paymentGuid,
+        BigDecimal amount,
+        String currency,
+        UUID transactionRefId,
+        XPaymentAdapterStatus status,
+        OffsetDateTime occurredAt,
+        int attempts,
+        String error,
+        OffsetDateTime createdAt
+) {
+
+}
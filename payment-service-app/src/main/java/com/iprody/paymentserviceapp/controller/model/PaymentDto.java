@@ -15,7 +15,8 @@ public record PaymentDto(
         PaymentStatus status,
         String note,
         OffsetDateTime createdAt,
-        OffsetDateTime updatedAt
+        OffsetDateTime updatedAt,
+        Long version
 ) {
 
 }
@@ -0,0 +1,23 @@
+package com.iprody.paymentserviceapp.controller.model;
+
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Payments of one currency and status in one time bucket. {@code minAmount}
+ * and {@code maxAmount} bound the amounts of every payment that has been in
+ * the bucket; they are not narrowed when a payment leaves it.
+ */
+public record PaymentStatsDto(
+        OffsetDateTime bucket,
+        String currency,
+        PaymentStatus status,
+        long count,
+        BigDecimal amount,
+        BigDecimal minAmount,
+        BigDecimal maxAmount
+) {
+
+}
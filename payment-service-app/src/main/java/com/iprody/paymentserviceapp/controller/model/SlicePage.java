@@ -0,0 +1,23 @@
+package com.iprody.paymentserviceapp.controller.model;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Page without an exact total. {@code approximateTotal} is {@code null}
+ * unless it was requested.
+ */
+public record SlicePage<T>(
+        List<T> items,
+        int pageNumber,
+        int pageSize,
+        boolean hasNext,
+        Long approximateTotal
+) {
+
+    public static <T> SlicePage<T> of(Slice<T> slice, Long approximateTotal) {
+        return new SlicePage<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(),
+                               approximateTotal);
+    }
+}
@@ -0,0 +1,23 @@
+package com.iprody.paymentserviceapp.converter;
+
+import com.iprody.paymentserviceapp.controller.model.DeadLetterDto;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository.DeadLetter;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface DeadLetterMapper {
+
+    @Mapping(source = "message.messageGuid", target = "messageGuid")
+    @Mapping(source = "message.paymentGuid", target = "paymentGuid")
+    @Mapping(source = "message.amount", target = "amount")
+    @Mapping(source = "message.currency", target = "currency")
+    @Mapping(source = "message.transactionRefId", target = "transactionRefId")
+    @Mapping(source = "message.status", target = "status")
+    @Mapping(source = "message.occurredAt", target = "occurredAt")
+    DeadLetterDto convert(DeadLetter deadLetter);
+
+    List<DeadLetterDto> convert(List<DeadLetter> deadLetters);
+}
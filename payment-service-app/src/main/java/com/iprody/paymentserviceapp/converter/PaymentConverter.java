@@ -2,7 +2,9 @@ package com.iprody.paymentserviceapp.converter;
 
 import com.iprody.paymentserviceapp.controller.model.PaymentDto;
 import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRow;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
@@ -11,7 +13,12 @@ public interface PaymentConverter {
 
     PaymentDto convert(Payment payment);
 
+    @Mapping(target = "version", ignore = true)
     Payment convert(PaymentDto payment);
 
     List<PaymentDto> convert(List<Payment> payments);
+
+    PaymentDto convert(PaymentRow row);
+
+    List<PaymentDto> convertRows(List<PaymentRow> rows);
 }
@@ -15,7 +15,22 @@ public enum ErrorMessage {
     // Payments
     PAYMENT_NOT_EXIST(HttpStatus.NOT_FOUND, "Payment id=%s does not exist", 103),
 
-    STATUS_NOT_MATCH(HttpStatus.BAD_REQUEST, "Payment with id=%s has incorrect status", 104);
+    STATUS_NOT_MATCH(HttpStatus.BAD_REQUEST, "Payment with id=%s has incorrect status", 104),
+
+    INVALID_CURSOR(HttpStatus.BAD_REQUEST, "Invalid cursor %s", 106),
+
+    BATCH_TOO_LARGE(HttpStatus.CONTENT_TOO_LARGE, "Batch is larger than %s payments", 107),
+
+    VERSION_NOT_MATCH(HttpStatus.PRECONDITION_FAILED, "Payment with id=%s has been modified", 108),
+
+    NOTE_QUERY_TOO_SHORT(HttpStatus.BAD_REQUEST, "Note search needs at least %s characters", 109),
+
+    INVALID_PAGE_SIZE(HttpStatus.BAD_REQUEST, "Page size must be between 1 and %s", 111),
+
+    INVALID_LIMIT(HttpStatus.BAD_REQUEST, "Limit must be between 1 and %s", 112),
+
+    // Adapter
+    ADAPTER_QUEUE_FULL(HttpStatus.SERVICE_UNAVAILABLE, "Payment adapter queue is full, try again later", 105);
 
     private final HttpStatus status;
     private final String message;
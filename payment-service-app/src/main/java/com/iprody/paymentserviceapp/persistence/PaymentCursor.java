@@ -0,0 +1,49 @@
+package com.iprody.paymentserviceapp.persistence;
+
+import com.iprody.paymentserviceapp.exception.ServiceException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.INVALID_CURSOR;
+
+/**
+ * Position of the last row returned by keyset pagination: the values of the
+ * sort keys and the guid used as a tie-breaker.
+ *
+ * <p>
+ * The token is URL-safe Base64 of newline-separated fields, prefixed with
+ * the sort signature, so a cursor cannot be reused with a different sort.
+ */
+public record PaymentCursor(List<String> values, UUID guid) {
+
+    private static final String SEPARATOR = "\n";
+
+    public String encode(String sortSignature) {
+        List<String> fields = new ArrayList<>(values.size() + 2);
+        fields.add(sortSignature);
+        fields.addAll(values);
+        fields.add(guid.toString());
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(String.join(SEPARATOR, fields).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PaymentCursor decode(String token, String sortSignature, int keyCount) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] fields = decoded.split(SEPARATOR, -1);
+            if (fields.length != keyCount + 2 || !fields[0].equals(sortSignature)) {
+                throw new ServiceException(INVALID_CURSOR, token);
+            }
+            return new PaymentCursor(Arrays.asList(fields).subList(1, keyCount + 1),
+                                     UUID.fromString(fields[keyCount + 1]));
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException(INVALID_CURSOR, token);
+        }
+    }
+}
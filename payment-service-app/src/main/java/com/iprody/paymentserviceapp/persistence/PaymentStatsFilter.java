@@ -0,0 +1,45 @@
+package com.iprody.paymentserviceapp.persistence;
+
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.model.StatsGranularity;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+
+/**
+ * Selection of payment statistics. Statistics are kept per hour of
+ * {@code created_at}, so {@code from} and {@code to} are effectively rounded
+ * down to the hour; {@code to} is exclusive.
+ */
+@Getter
+@Setter
+public class PaymentStatsFilter {
+
+    private Instant from;
+    private Instant to;
+    private Set<String> currencies;
+    private Set<PaymentStatus> statuses;
+    private StatsGranularity granularity = StatsGranularity.TOTAL;
+
+    public Instant fromHour() {
+        return from == null ? null : from.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    public Instant toHour() {
+        return to == null ? null : to.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    /**
+     * Whether the statistics of an hourly bucket, currency and status are selected.
+     */
+    public boolean includes(Instant bucket, String currency, PaymentStatus status) {
+        return (from == null || !bucket.isBefore(fromHour()))
+               && (to == null || bucket.isBefore(toHour()))
+               && (CollectionUtils.isEmpty(currencies) || currencies.contains(currency))
+               && (CollectionUtils.isEmpty(statuses) || statuses.contains(status));
+    }
+}
@@ -1,32 +1,62 @@
 package com.iprody.paymentserviceapp.persistence;
 
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.model.Payment;
 import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.querydsl.QSort;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.INVALID_PAGE_SIZE;
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.NOTE_QUERY_TOO_SHORT;
 import static com.iprody.paymentserviceapp.persistence.model.QPayment.payment;
 import static com.querydsl.core.types.ExpressionUtils.and;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.springframework.data.domain.Sort.unsorted;
 
 @Getter
+@Setter
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class QPaymentFilter {
 
+    /**
+     * Shortest note fragment the trigram index can serve, shorter ones would
+     * scan every row.
+     */
+    public static final int NOTE_MIN_LENGTH = 3;
+
+    /**
+     * Largest page a search returns.
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
     private Set<UUID> inquiryRefIds;
     private Set<UUID> transactionRefIds;
     private Set<String> currencies;
@@ -37,6 +67,11 @@ public class QPaymentFilter {
     private OffsetDateTime createdTo;
     private OffsetDateTime updatedFrom;
     private OffsetDateTime updatedTo;
+    /**
+     * Case-insensitive fragment of the note. Without an explicit direction
+     * matches are ordered by relevance, see {@link #createSort()}.
+     */
+    private String note;
     private Direction directionAmount;
     private Direction directionStatus;
     private Direction directionCreatedAt;
@@ -48,6 +83,8 @@ public class QPaymentFilter {
     @Builder.Default
     private int pageSize = 25;
 
+    private String cursor;
+
     public Predicate createPredicate() {
         Predicate predicate = payment.isNotNull();
 
@@ -81,12 +118,29 @@ public class QPaymentFilter {
         if (updatedTo != null) {
             predicate = and(predicate, payment.updatedAt.loe(updatedTo));
         }
+        String noteQuery = noteQuery();
+        if (noteQuery != null) {
+            // lower(note) LIKE '%...%' is served by idx_payment_note_trgm
+            predicate = and(predicate, payment.note.containsIgnoreCase(noteQuery));
+        }
 
         return predicate;
     }
 
+    /**
+     * Filter criteria without paging, sorting and cursor, normalized so that
+     * equivalent filters are equal: set order is ignored, amounts are compared
+     * by value and timestamps by instant.
+     */
+    public CountKey countKey() {
+        return new CountKey(copy(inquiryRefIds), copy(transactionRefIds), copy(currencies), status,
+                            normalize(minAmount), normalize(maxAmount),
+                            instant(createdFrom), instant(createdTo), instant(updatedFrom), instant(updatedTo),
+                            noteQuery() == null ? null : noteQuery().toLowerCase(Locale.ROOT));
+    }
+
     public Pageable createPageable() {
-        return PageRequest.of(pageNumber, pageSize, createSort());
+        return PageRequest.of(pageNumber, checkedPageSize(), createSort());
     }
 
     public Sort createSort() {
@@ -112,7 +166,176 @@ public class QPaymentFilter {
                     Sort.by(directionUpdatedAt, payment.updatedAt.getMetadata().getName())
             );
         }
+        if (sortOrder.isUnsorted() && noteQuery() != null) {
+            return new QSort(noteRank().desc(), payment.createdAt.desc(), payment.guid.asc());
+        }
 
         return sortOrder;
     }
+
+    /**
+     * Sort keys for keyset pagination: the requested directions in the same
+     * order as {@link #createSort()}, {@code createdAt DESC} if none.
+     * The guid is always appended as an ascending tie-breaker.
+     */
+    public List<SortKey> createSortKeys() {
+        List<SortKey> keys = new ArrayList<>();
+        if (directionAmount != null) {
+            keys.add(new SortKey(payment.amount, directionAmount, Payment::getAmount, BigDecimal::new));
+        }
+        if (directionStatus != null) {
+            keys.add(new SortKey(payment.status, directionStatus, Payment::getStatus, PaymentStatus::valueOf));
+        }
+        if (directionCreatedAt != null) {
+            keys.add(new SortKey(payment.createdAt, directionCreatedAt, Payment::getCreatedAt, OffsetDateTime::parse));
+        }
+        if (directionUpdatedAt != null) {
+            keys.add(new SortKey(payment.updatedAt, directionUpdatedAt, Payment::getUpdatedAt, OffsetDateTime::parse));
+        }
+        if (keys.isEmpty()) {
+            keys.add(new SortKey(payment.createdAt, Direction.DESC, Payment::getCreatedAt, OffsetDateTime::parse));
+        }
+        return keys;
+    }
+
+    public Sort createKeysetSort(List<SortKey> keys) {
+        Sort sort = unsorted();
+        for (SortKey key : keys) {
+            sort = sort.and(Sort.by(key.direction(), key.name()));
+        }
+        return sort.and(Sort.by(Direction.ASC, payment.guid.getMetadata().getName()));
+    }
+
+    /**
+     * Filter predicate plus, when a cursor is set, the seek condition
+     * {@code (k1, ..., kn, guid) > (v1, ..., vn, g)} expanded into OR-ed
+     * prefixes, each key compared according to its direction. The redundant
+     * bound on the first key lets the database start an index range scan at
+     * the cursor instead of filtering every row before it.
+     */
+    public Predicate createKeysetPredicate(List<SortKey> keys) {
+        Predicate predicate = createPredicate();
+        if (cursor == null || cursor.isBlank()) {
+            return predicate;
+        }
+        PaymentCursor position = PaymentCursor.decode(cursor, signature(keys), keys.size());
+
+        Predicate seek = null;
+        Predicate equalPrefix = null;
+        for (int i = 0; i <= keys.size(); i++) {
+            Path<?> path = i < keys.size() ? keys.get(i).path() : payment.guid;
+            Object value = i < keys.size() ? keys.get(i).parse(position.values().get(i)) : position.guid();
+            Ops op = i < keys.size() && keys.get(i).direction().isDescending() ? Ops.LT : Ops.GT;
+
+            Predicate step = and(equalPrefix, ExpressionUtils.predicate(op, path, ConstantImpl.create(value)));
+            seek = seek == null ? step : ExpressionUtils.or(seek, step);
+            equalPrefix = and(equalPrefix, ExpressionUtils.predicate(Ops.EQ, path, ConstantImpl.create(value)));
+        }
+        SortKey first = keys.getFirst();
+        Ops boundOp = first.direction().isDescending() ? Ops.LOE : Ops.GOE;
+        Predicate bound = ExpressionUtils.predicate(boundOp, first.path(),
+                                                    ConstantImpl.create(first.parse(position.values().getFirst())));
+        return and(predicate, and(bound, seek));
+    }
+
+    public String nextCursor(List<SortKey> keys, Payment last) {
+        List<String> values = keys.stream()
+                                  .map(key -> key.format(last))
+                                  .toList();
+        return new PaymentCursor(values, last.getGuid()).encode(signature(keys));
+    }
+
+    /**
+     * Requested page size.
+     *
+     * @throws ServiceException if it is not between 1 and {@link #MAX_PAGE_SIZE}
+     */
+    public int checkedPageSize() {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ServiceException(INVALID_PAGE_SIZE, MAX_PAGE_SIZE);
+        }
+        return pageSize;
+    }
+
+    /**
+     * Trimmed note fragment, {@code null} if none is set.
+     *
+     * @throws ServiceException if the fragment is shorter than {@link #NOTE_MIN_LENGTH}
+     */
+    private String noteQuery() {
+        if (note == null || note.isBlank()) {
+            return null;
+        }
+        String query = note.strip();
+        if (query.length() < NOTE_MIN_LENGTH) {
+            throw new ServiceException(NOTE_QUERY_TOO_SHORT, NOTE_MIN_LENGTH);
+        }
+        return query;
+    }
+
+    /**
+     * pg_trgm similarity of the fragment to the closest part of the note,
+     * computed for matching rows only.
+     */
+    private NumberExpression<Float> noteRank() {
+        return Expressions.numberTemplate(Float.class, "function('word_similarity', {0}, {1})",
+                                          ConstantImpl.create(noteQuery()), payment.note);
+    }
+
+    private static <T> Set<T> copy(Set<T> values) {
+        return values == null ? Set.of() : Set.copyOf(values);
+    }
+
+    private static BigDecimal normalize(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros();
+    }
+
+    private static Instant instant(OffsetDateTime value) {
+        return value == null ? null : value.toInstant();
+    }
+
+    private static String signature(List<SortKey> keys) {
+        return keys.stream()
+                   .map(key -> key.name() + ":" + key.direction())
+                   .collect(Collectors.joining(","));
+    }
+
+    public record SortKey(Path<?> path,
+                          Direction direction,
+                          Function<Payment, Object> extractor,
+                          Function<String, Object> parser) {
+
+        String name() {
+            return path.getMetadata().getName();
+        }
+
+        Object parse(String value) {
+            return parser.apply(value);
+        }
+
+        String format(Payment entity) {
+            Object value = extractor.apply(entity);
+            return value instanceof BigDecimal decimal ? decimal.toPlainString() : String.valueOf(value);
+        }
+    }
+
+    public record CountKey(Set<UUID> inquiryRefIds,
+                           Set<UUID> transactionRefIds,
+                           Set<String> currencies,
+                           PaymentStatus status,
+                           BigDecimal minAmount,
+                           BigDecimal maxAmount,
+                           Instant createdFrom,
+                           Instant createdTo,
+                           Instant updatedFrom,
+                           Instant updatedTo,
+                           String note) {
+
+        private static final CountKey UNFILTERED = new CountKey(Set.of(), Set.of(), Set.of(), null, null, null,
+                                                                null, null, null, null, null);
+
+        public boolean isUnfiltered() {
+            return equals(UNFILTERED);
+        }
+    }
 }
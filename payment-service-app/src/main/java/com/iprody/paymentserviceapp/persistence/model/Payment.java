@@ -4,12 +4,13 @@ import com.querydsl.core.annotations.QueryEntity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.PartitionKey;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
@@ -26,7 +27,7 @@ import static jakarta.persistence.EnumType.STRING;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     private UUID guid;
 
     @Column(nullable = false, name = "inquiry_ref_id")
@@ -48,12 +49,25 @@ public class Payment {
     @Column(columnDefinition = "text")
     private String note;
 
+    /**
+     * Partition key: added to the WHERE clause of the updates and deletes
+     * Hibernate issues, so they go to the payment's partition only.
+     */
+    @PartitionKey
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
     @Column(name = "updated_at", nullable = false)
     private OffsetDateTime updatedAt;
 
+    /**
+     * Incremented by every update, including the bulk ones in
+     * {@code PaymentRepository}; exposed as the ETag of the payment.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -80,6 +94,7 @@ public class Payment {
                ", note='" + note + '\'' +
                ", createdAt=" + createdAt +
                ", updatedAt=" + updatedAt +
+               ", version=" + version +
                '}';
     }
 }
@@ -0,0 +1,29 @@
+package com.iprody.paymentserviceapp.persistence.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Guid of a stored payment and the {@code created_at} that locates its
+ * partition. Rows are written by triggers on the payment table only; lookups
+ * by guid read {@code created_at} from here so they touch one partition.
+ */
+@Getter
+@Entity
+@Immutable
+@Table(name = "payment_guid")
+public class PaymentGuid {
+
+    @Id
+    private UUID guid;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
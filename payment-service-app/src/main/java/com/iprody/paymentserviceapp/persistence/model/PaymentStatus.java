@@ -1,9 +1,40 @@
 package com.iprody.paymentserviceapp.persistence.model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum PaymentStatus {
     RECEIVED,
     PENDING,
     DECLINED,
     APPROVED,
-    NOT_SENT
+    NOT_SENT;
+
+    /**
+     * Allowed transitions: each status to the statuses it can be reached from.
+     * {@link #RECEIVED} is initial only, {@link #APPROVED} and
+     * {@link #DECLINED} are final.
+     */
+    private static final Map<PaymentStatus, Set<PaymentStatus>> PREDECESSORS = new EnumMap<>(PaymentStatus.class);
+
+    static {
+        PREDECESSORS.put(RECEIVED, EnumSet.noneOf(PaymentStatus.class));
+        PREDECESSORS.put(PENDING, EnumSet.of(RECEIVED, PENDING, NOT_SENT));
+        PREDECESSORS.put(DECLINED, EnumSet.of(RECEIVED, PENDING));
+        PREDECESSORS.put(APPROVED, EnumSet.of(RECEIVED, PENDING));
+        PREDECESSORS.put(NOT_SENT, EnumSet.of(RECEIVED));
+    }
+
+    /**
+     * Statuses a payment can move to this one from.
+     */
+    public Set<PaymentStatus> predecessors() {
+        return PREDECESSORS.get(this);
+    }
+
+    public boolean canTransitionFrom(PaymentStatus current) {
+        return predecessors().contains(current);
+    }
 }
@@ -0,0 +1,48 @@
+package com.iprody.paymentserviceapp.persistence.model;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Width of the time buckets payment statistics are rolled up to. Buckets
+ * start at UTC boundaries; {@link #TOTAL} folds the whole range into one.
+ */
+public enum StatsGranularity {
+    HOUR("hour"),
+    DAY("day"),
+    MONTH("month"),
+    TOTAL(null);
+
+    private final String unit;
+
+    StatsGranularity(String unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * SQL expression of the bucket a {@code timestamptz} column is rolled up to.
+     */
+    public String bucketSql(String column) {
+        if (unit == null) {
+            return "NULL::timestamptz";
+        }
+        return "date_trunc('" + unit + "', " + column + " AT TIME ZONE 'UTC') AT TIME ZONE 'UTC'";
+    }
+
+    /**
+     * Start of the bucket the instant belongs to, {@code null} for {@link #TOTAL}.
+     */
+    public Instant truncate(Instant instant) {
+        return switch (this) {
+            case HOUR -> instant.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> instant.truncatedTo(ChronoUnit.DAYS);
+            case MONTH -> instant.atOffset(ZoneOffset.UTC)
+                                 .with(TemporalAdjusters.firstDayOfMonth())
+                                 .truncatedTo(ChronoUnit.DAYS)
+                                 .toInstant();
+            case TOTAL -> null;
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Table {@code payment_dead_letter}: X Payment Adapter responses that failed
+ * every processing attempt.
+ */
+@Repository
+public class DeadLetterRepository {
+
+    private static final String COLUMNS = "id, message_guid, payment_guid, amount, currency, transaction_ref_id, "
+            + "status, occurred_at, attempts, error, created_at";
+    private static final String INSERT_SQL = "INSERT INTO payment_dead_letter (message_guid, payment_guid, amount, "
+            + "currency, transaction_ref_id, status, occurred_at, attempts, error) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String FIND_SQL = "SELECT " + COLUMNS + " FROM payment_dead_letter ORDER BY id LIMIT ?";
+    private static final String UNLOCKED = "(locked_until IS NULL OR locked_until < now())";
+    private static final String CLAIM_SQL = "UPDATE payment_dead_letter "
+            + "SET locked_until = now() + ? * interval '1 millisecond' WHERE id IN "
+            + "(SELECT id FROM payment_dead_letter WHERE " + UNLOCKED + " ORDER BY id LIMIT ? "
+            + "FOR UPDATE SKIP LOCKED) RETURNING " + COLUMNS;
+    private static final String CLAIM_BY_IDS_SQL = "UPDATE payment_dead_letter "
+            + "SET locked_until = now() + ? * interval '1 millisecond' WHERE id IN "
+            + "(SELECT id FROM payment_dead_letter WHERE id = ANY (?) AND " + UNLOCKED + " "
+            + "FOR UPDATE SKIP LOCKED) RETURNING " + COLUMNS;
+    private static final String FAILED_AGAIN_SQL =
+            "UPDATE payment_dead_letter SET attempts = ?, error = ?, locked_until = NULL WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM payment_dead_letter WHERE id = ?";
+    private static final String COUNT_SQL = "SELECT count(*) FROM payment_dead_letter";
+
+    private static final RowMapper<DeadLetter> ROW_MAPPER = (rs, rowNum) -> {
+        XPaymentAdapterResponseMessage message = new XPaymentAdapterResponseMessage();
+        message.setMessageGuid(rs.getObject("message_guid", UUID.class));
+        message.setPaymentGuid(rs.getObject("payment_guid", UUID.class));
+        message.setAmount(rs.getBigDecimal("amount"));
+        message.setCurrency(rs.getString("currency"));
+        message.setTransactionRefId(rs.getObject("transaction_ref_id", UUID.class));
+        message.setStatus(XPaymentAdapterStatus.valueOf(rs.getString("status")));
+        message.setOccurredAt(toOffsetDateTime(rs.getTimestamp("occurred_at")));
+        return new DeadLetter(rs.getLong("id"),
+                              message,
+                              rs.getInt("attempts"),
+                              rs.getString("error"),
+                              toOffsetDateTime(rs.getTimestamp("created_at")));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DeadLetterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(XPaymentAdapterResponseMessage message, int attempts, String error) {
+        jdbcTemplate.update(INSERT_SQL,
+                            message.getMessageGuid(),
+                            message.getPaymentGuid(),
+                            message.getAmount(),
+                            message.getCurrency(),
+                            message.getTransactionRefId(),
+                            message.getStatus().name(),
+                            message.getOccurredAt() == null
+                                    ? null
+                                    : Timestamp.from(message.getOccurredAt().toInstant()),
+                            attempts,
+                            error);
+    }
+
+    public List<DeadLetter> findAll(int limit) {
+        return jdbcTemplate.query(FIND_SQL, ROW_MAPPER, limit);
+    }
+
+    /**
+     * Locks up to {@code limit} of the oldest records that are not being
+     * replayed for {@code lease}. Records stay in the table until their replay
+     * is stored, see {@link #delete(long)}; a record whose lease expires can
+     * be claimed again.
+     *
+     * @return claimed records in id order
+     */
+    public List<DeadLetter> claim(int limit, Duration lease) {
+        return sorted(jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, lease.toMillis(), limit));
+    }
+
+    /**
+     * Locks the records with the given ids that are not being replayed for
+     * {@code lease}, as {@link #claim(int, Duration)} does.
+     *
+     * @return claimed records in id order
+     */
+    public List<DeadLetter> claim(List<Long> ids, Duration lease) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return sorted(jdbcTemplate.query(CLAIM_BY_IDS_SQL, ROW_MAPPER, lease.toMillis(),
+                                         ids.toArray(Long[]::new)));
+    }
+
+    /**
+     * Keeps a replayed record that failed every attempt again, with the new
+     * attempt count and error, and makes it available for replay.
+     */
+    public void failedAgain(long id, int attempts, String error) {
+        jdbcTemplate.update(FAILED_AGAIN_SQL, attempts, error, id);
+    }
+
+    /**
+     * Deletes a record whose replay has been stored.
+     */
+    public int delete(long id) {
+        return jdbcTemplate.update(DELETE_SQL, id);
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    // RETURNING does not keep the order of the subquery
+    private static List<DeadLetter> sorted(List<DeadLetter> deadLetters) {
+        return deadLetters.stream()
+                          .sorted(Comparator.comparingLong(DeadLetter::id))
+                          .toList();
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant().atOffset(ZoneOffset.UTC);
+    }
+
+    public record DeadLetter(long id,
+                             XPaymentAdapterResponseMessage message,
+                             int attempts,
+                             String error,
+                             OffsetDateTime createdAt) {
+
+    }
+}
@@ -0,0 +1,129 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk inserts into the payment table, bypassing the persistence context.
+ * Guids must be assigned by the caller. Both methods join the current
+ * transaction.
+ */
+@Repository
+public class PaymentBatchRepository {
+
+    private static final String COLUMNS =
+            "guid, inquiry_ref_id, amount, currency, transaction_ref_id, status, note, created_at, updated_at";
+    private static final String INSERT_SQL =
+            "INSERT INTO payment (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COPY_SQL = "COPY payment (" + COLUMNS + ") FROM STDIN (FORMAT csv)";
+    private static final String EXISTING_SQL = "SELECT guid FROM payment_guid WHERE guid = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaymentBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Guids among {@code guids} that a stored payment already has, looked up
+     * with one query.
+     */
+    public Set<UUID> findExisting(List<UUID> guids) {
+        if (guids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(EXISTING_SQL, UUID.class, (Object) guids.toArray(UUID[]::new)));
+    }
+
+    /**
+     * Inserts payments with JDBC batches of {@code batchSize} statements.
+     */
+    public void insertAll(List<Payment> payments, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, payments, batchSize, (ps, payment) -> {
+            ps.setObject(1, payment.getGuid());
+            ps.setObject(2, payment.getInquiryRefId());
+            ps.setBigDecimal(3, payment.getAmount());
+            ps.setString(4, payment.getCurrency());
+            ps.setObject(5, payment.getTransactionRefId());
+            ps.setString(6, payment.getStatus().name());
+            ps.setString(7, payment.getNote());
+            ps.setTimestamp(8, Timestamp.from(payment.getCreatedAt().toInstant()));
+            ps.setTimestamp(9, Timestamp.from(payment.getUpdatedAt().toInstant()));
+        });
+    }
+
+    /**
+     * Streams payments to the server with {@code COPY ... FROM STDIN}, one
+     * CSV line per payment.
+     *
+     * @return number of rows copied
+     */
+    public long copyAll(List<Payment> payments) {
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copy = connection.unwrap(PGConnection.class)
+                                    .getCopyAPI()
+                                    .copyIn(COPY_SQL);
+            try {
+                StringBuilder line = new StringBuilder(256);
+                for (Payment payment : payments) {
+                    line.setLength(0);
+                    appendCsv(line, payment);
+                    byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                    copy.writeToCopy(bytes, 0, bytes.length);
+                }
+                return copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        });
+        return copied == null ? 0 : copied;
+    }
+
+    private static void appendCsv(StringBuilder line, Payment payment) {
+        line.append(payment.getGuid()).append(',')
+            .append(payment.getInquiryRefId()).append(',')
+            .append(payment.getAmount().toPlainString()).append(',');
+        appendQuoted(line, payment.getCurrency());
+        line.append(',');
+        if (payment.getTransactionRefId() != null) {
+            line.append(payment.getTransactionRefId());
+        }
+        line.append(',')
+            .append(payment.getStatus().name()).append(',');
+        appendQuoted(line, payment.getNote());
+        line.append(',')
+            .append(payment.getCreatedAt()).append(',')
+            .append(payment.getUpdatedAt()).append('\n');
+    }
+
+    /**
+     * Quotes a text value; an unquoted empty field is read by COPY as NULL.
+     */
+    private static void appendQuoted(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
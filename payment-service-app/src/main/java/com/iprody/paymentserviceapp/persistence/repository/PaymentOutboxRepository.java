@@ -0,0 +1,109 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Table {@code payment_outbox}: requests to X Payment Adapter, written in the
+ * transaction that stores their payment and waiting to be sent.
+ */
+@Repository
+public class PaymentOutboxRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO payment_outbox (payment_guid, amount, currency, occurred_at) VALUES (?, ?, ?, ?)";
+    private static final String CLAIM_BATCH_SQL =
+            "UPDATE payment_outbox SET locked_until = now() + ? * interval '1 millisecond' WHERE id IN "
+                    + "(SELECT id FROM payment_outbox WHERE locked_until IS NULL OR locked_until < now() "
+                    + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                    + "RETURNING id, payment_guid, amount, currency, occurred_at";
+    private static final String RELEASE_SQL = "UPDATE payment_outbox SET locked_until = NULL WHERE id = ANY (?)";
+    private static final String DELETE_SQL = "DELETE FROM payment_outbox WHERE payment_guid = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaymentOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(XPaymentAdapterRequestMessage message) {
+        jdbcTemplate.update(INSERT_SQL,
+                            message.getPaymentGuid(),
+                            message.getAmount(),
+                            message.getCurrency(),
+                            message.getOccurredAt() == null
+                                    ? null
+                                    : Timestamp.from(message.getOccurredAt().toInstant()));
+    }
+
+    /**
+     * Inserts the requests with JDBC batches of {@code batchSize} statements.
+     */
+    public void addAll(List<XPaymentAdapterRequestMessage> messages, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, batchSize, (ps, message) -> {
+            ps.setObject(1, message.getPaymentGuid());
+            ps.setBigDecimal(2, message.getAmount());
+            ps.setString(3, message.getCurrency());
+            ps.setTimestamp(4, message.getOccurredAt() == null
+                               ? null
+                               : Timestamp.from(message.getOccurredAt().toInstant()));
+        });
+    }
+
+    /**
+     * Leases up to {@code limit} of the oldest free records to the caller for
+     * {@code lease} with one statement. Records leased by another instance
+     * are skipped, so several instances of the service can drain the table
+     * in parallel. Called outside a transaction: the statement commits at
+     * once and holds no locks while the records are sent.
+     *
+     * @return leased records in id order
+     */
+    public List<OutboxEntry> claimBatch(int limit, Duration lease) {
+        List<OutboxEntry> entries = jdbcTemplate.query(CLAIM_BATCH_SQL, (rs, rowNum) -> {
+            XPaymentAdapterRequestMessage message = new XPaymentAdapterRequestMessage();
+            message.setPaymentGuid(rs.getObject("payment_guid", UUID.class));
+            message.setAmount(rs.getBigDecimal("amount"));
+            message.setCurrency(rs.getString("currency"));
+            Timestamp occurredAt = rs.getTimestamp("occurred_at");
+            if (occurredAt != null) {
+                message.setOccurredAt(occurredAt.toInstant().atOffset(ZoneOffset.UTC));
+            }
+            return new OutboxEntry(rs.getLong("id"), message);
+        }, lease.toMillis(), limit);
+        // RETURNING does not keep the order of the subquery
+        return entries.stream()
+                      .sorted(Comparator.comparingLong(OutboxEntry::id))
+                      .toList();
+    }
+
+    /**
+     * Ends the lease so that the records can be claimed again before it
+     * expires.
+     */
+    public int release(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(RELEASE_SQL, (Object) ids.toArray(Long[]::new));
+    }
+
+    /**
+     * Deletes the requests of a payment that got its final response.
+     */
+    public int delete(UUID paymentGuid) {
+        return jdbcTemplate.update(DELETE_SQL, paymentGuid);
+    }
+
+    public record OutboxEntry(long id, XPaymentAdapterRequestMessage message) {
+
+    }
+}
@@ -0,0 +1,140 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly range partitions of the payment table. A partition named
+ * {@code payment_pYYYYMM} holds payments created in that UTC month; rows
+ * outside every monthly partition go to {@code payment_default}. The oldest
+ * partition is the table that existed before partitioning and also holds
+ * every payment created before its month.
+ *
+ * <p>
+ * All methods must run inside a transaction.
+ */
+@Repository
+public class PaymentPartitionRepository {
+
+    private static final String PREFIX = "payment_p";
+    private static final Pattern NAME = Pattern.compile(PREFIX + "(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String FIND_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'payment'::regclass";
+    private static final String LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('payment_partition'))";
+    private static final String LOCK_DEFAULT_SQL = "LOCK TABLE payment_default IN EXCLUSIVE MODE";
+    private static final String CREATE_SQL =
+            "CREATE TABLE %s (LIKE payment INCLUDING DEFAULTS INCLUDING CONSTRAINTS)";
+    private static final String MOVE_SQL = "WITH moved AS (DELETE FROM payment_default "
+            + "WHERE created_at >= '%2$s' AND created_at < '%3$s' RETURNING *) INSERT INTO %1$s SELECT * FROM moved";
+    private static final String ATTACH_SQL =
+            "ALTER TABLE payment ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')";
+    private static final String FORGET_GUIDS_SQL =
+            "DELETE FROM payment_guid g USING %s p WHERE g.guid = p.guid";
+    private static final String FORGET_STATS_SQL = "DELETE FROM payment_stats WHERE bucket < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaymentPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String name(YearMonth month) {
+        return PREFIX + SUFFIX.format(month);
+    }
+
+    /**
+     * Months of the partitions currently attached to the payment table,
+     * oldest first.
+     */
+    public List<YearMonth> findMonths() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(FIND_SQL, String.class)) {
+            Matcher matcher = NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.parse(matcher.group(1), SUFFIX));
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    /**
+     * Takes the transaction-scoped lock that serializes partition changes
+     * between application instances, and limits how long DDL waits for
+     * locks held by running queries.
+     *
+     * @return {@code false} if another instance holds the lock
+     */
+    public boolean lock(Duration lockTimeout) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeout.toMillis());
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK_SQL, Boolean.class));
+    }
+
+    /**
+     * Creates the partition for the month. Rows of that month that already
+     * landed in {@code payment_default} are moved into the new table before
+     * it is attached, since Postgres refuses to attach a range the default
+     * partition still holds rows for. The default partition is locked
+     * against writes meanwhile, so no row slips in between the move and the
+     * attach.
+     *
+     * @return number of rows moved from the default partition
+     */
+    public int create(YearMonth month) {
+        if (findMonths().contains(month)) {
+            return 0;
+        }
+        String name = name(month);
+        Instant from = start(month);
+        Instant to = start(month.plusMonths(1));
+        jdbcTemplate.execute(LOCK_DEFAULT_SQL);
+        jdbcTemplate.execute(CREATE_SQL.formatted(name));
+        int moved = jdbcTemplate.update(MOVE_SQL.formatted(name, from, to));
+        jdbcTemplate.execute(ATTACH_SQL.formatted(name, from, to));
+        return moved;
+    }
+
+    /**
+     * Removes the payments of the month from the tables maintained alongside
+     * the payment table: their guids from {@code payment_guid} and their
+     * hourly buckets from {@code payment_stats}. Must be called in the
+     * transaction that detaches or drops the oldest partition, before doing
+     * so. Every payment created before the end of the month is in that
+     * partition, so those buckets hold nothing else.
+     *
+     * @return number of guids removed
+     */
+    public int forget(YearMonth month) {
+        int guids = jdbcTemplate.update(FORGET_GUIDS_SQL.formatted(name(month)));
+        jdbcTemplate.update(FORGET_STATS_SQL, Timestamp.from(start(month.plusMonths(1))));
+        return guids;
+    }
+
+    /**
+     * Detaches the partition; it stays in the database as a standalone table.
+     */
+    public void detach(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE payment DETACH PARTITION " + name(month));
+    }
+
+    public void drop(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE " + name(month));
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+}
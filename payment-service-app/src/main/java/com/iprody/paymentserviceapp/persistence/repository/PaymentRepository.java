@@ -1,23 +1,51 @@
 package com.iprody.paymentserviceapp.persistence.repository;
 
 import com.iprody.paymentserviceapp.persistence.model.Payment;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Payments. Lookups by guid read the payment's {@code created_at} from
+ * {@code payment_guid}, so they touch its partition only; use them instead
+ * of {@link #findById} and {@link #existsById}, which probe every partition.
+ */
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, UUID>,
                                            JpaSpecificationExecutor<Payment>,
-                                           QuerydslPredicateExecutor<Payment> {
+                                           QuerydslPredicateExecutor<Payment>,
+                                           PaymentRepositoryCustom {
 
+    @Query("SELECT e FROM Payment e WHERE e.guid = :id "
+           + "AND e.createdAt = (SELECT g.createdAt FROM PaymentGuid g WHERE g.guid = :id)")
+    Optional<Payment> findByGuid(@Param("id") UUID id);
+
+    @Query("SELECT count(g) > 0 FROM PaymentGuid g WHERE g.guid = :id")
+    boolean existsByGuid(@Param("id") UUID id);
+
+    /**
+     * Sets the note of a payment and increments its version.
+     *
+     * @param version expected current version, {@code null} to update any version
+     * @return number of updated rows, {@code 0} if the payment does not exist or has another version
+     */
     @Modifying(clearAutomatically = true)
-    @Query("UPDATE Payment e SET e.note = :note WHERE e.guid = :id")
-    int updateNote(@Param("id") UUID id, @Param("note") String note);
+    @Query("UPDATE Payment e SET e.note = :note, e.version = e.version + 1 WHERE e.guid = :id "
+           + "AND e.createdAt = (SELECT g.createdAt FROM PaymentGuid g WHERE g.guid = :id) "
+           + "AND (:version IS NULL OR e.version = :version)")
+    int updateNote(@Param("id") UUID id, @Param("note") String note, @Param("version") Long version);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Payment e WHERE e.guid = :id "
+           + "AND e.createdAt = (SELECT g.createdAt FROM PaymentGuid g WHERE g.guid = :id)")
+    Optional<Payment> findForUpdate(@Param("id") UUID id);
 }
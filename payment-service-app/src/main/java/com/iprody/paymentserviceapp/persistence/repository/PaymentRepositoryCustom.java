@@ -0,0 +1,86 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Sort;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface PaymentRepositoryCustom {
+
+    /**
+     * Sets the status of one payment in one statement if its current status
+     * is a legal predecessor of the new one. The row is locked first, so the
+     * returned status is the one the transition was made from.
+     *
+     * @param id        payment guid
+     * @param status    new status
+     * @param updatedAt value written to updated_at
+     * @return the payment as it was before the update, empty if it was not updated
+     */
+    Optional<PaymentSnapshot> transitionStatus(UUID id, PaymentStatus status, OffsetDateTime updatedAt);
+
+    /**
+     * Updates status and updated_at of several payments in one JDBC batch.
+     * A row is updated only when its current status is a legal predecessor
+     * of the new one, see {@link PaymentStatus#predecessors()}.
+     *
+     * @param statuses  new status per payment guid
+     * @param updatedAt value written to updated_at of every row
+     * @return updated payments and guids of payments that were not updated, split by reason
+     */
+    StatusUpdateResult updateStatuses(Map<UUID, PaymentStatus> statuses, OffsetDateTime updatedAt);
+
+    /**
+     * Deletes a payment in one statement.
+     *
+     * @param id payment guid
+     * @return the deleted payment, empty if it did not exist
+     */
+    Optional<PaymentSnapshot> deleteReturning(UUID id);
+
+    /**
+     * Streams matching payments through a forward-only cursor instead of
+     * loading the whole result. Must be consumed and closed inside a
+     * transaction; entities are loaded read-only and stay managed until the
+     * caller clears the persistence context.
+     *
+     * @param predicate filter applied to the query
+     * @param fetchSize rows fetched from the database per round trip
+     * @return stream of payments that must be closed by the caller
+     */
+    Stream<Payment> stream(Predicate predicate, int fetchSize);
+
+    /**
+     * Row count estimated by the planner statistics of the payment table or
+     * of its partitions, without scanning it.
+     *
+     * @return estimated number of rows, or {@code -1} if no partition has been analyzed yet
+     */
+    long estimateCount();
+
+    /**
+     * Selects matching payments straight into {@link PaymentRow} with a
+     * constructor expression. No entities are loaded, so nothing is added to
+     * the persistence context or snapshotted for dirty checking.
+     *
+     * @param predicate filter, may be {@code null}
+     * @param sort      order of the result
+     * @return all matching payments
+     */
+    List<PaymentRow> findRows(Predicate predicate, Sort sort);
+
+    /**
+     * Same as {@link #findRows(Predicate, Sort)}, limited to a window of rows.
+     *
+     * @param offset number of rows to skip
+     * @param limit  maximum number of rows to return
+     */
+    List<PaymentRow> findRows(Predicate predicate, Sort sort, long offset, int limit);
+}
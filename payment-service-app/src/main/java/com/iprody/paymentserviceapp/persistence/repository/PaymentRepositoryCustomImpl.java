@@ -0,0 +1,173 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.querydsl.core.types.ConstructorExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.iprody.paymentserviceapp.persistence.model.QPayment.payment;
+
+public class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+
+    // every statement by guid takes created_at from payment_guid, so it is pruned to the payment's partition
+    private static final String CREATED_AT = "(SELECT created_at FROM payment_guid WHERE guid = ?)";
+    private static final String UPDATE_STATUS_SQL = "UPDATE payment SET status = ?, updated_at = ?, "
+            + "version = version + 1 WHERE guid = ? AND created_at = " + CREATED_AT + " AND status = ANY (?)";
+    private static final String LOCK_SQL = "SELECT p.guid, p.currency, p.amount, p.status, p.created_at "
+            + "FROM payment_guid g JOIN payment p ON p.guid = g.guid AND p.created_at = g.created_at "
+            + "WHERE g.guid = ANY (?) ORDER BY p.guid FOR UPDATE OF p";
+    private static final String TRANSITION_STATUS_SQL = "WITH locked AS ("
+            + "SELECT guid, currency, amount, status, created_at FROM payment "
+            + "WHERE guid = ? AND created_at = " + CREATED_AT + " FOR UPDATE) "
+            + "UPDATE payment p SET status = ?, updated_at = ?, version = p.version + 1 FROM locked l "
+            + "WHERE p.guid = l.guid AND p.created_at = l.created_at AND p.created_at = " + CREATED_AT + " "
+            + "AND l.status = ANY (?) "
+            + "RETURNING l.guid, l.currency, l.amount, l.status, l.created_at";
+    private static final String DELETE_SQL = "DELETE FROM payment WHERE guid = ? AND created_at = " + CREATED_AT
+            + " RETURNING guid, currency, amount, status, created_at";
+    // a partitioned parent has no statistics of its own, its partitions are summed up
+    private static final String ESTIMATE_COUNT_SQL = "SELECT CASE WHEN max(reltuples) < 0 THEN -1 "
+            + "ELSE sum(greatest(reltuples, 0)) END::bigint FROM pg_class WHERE relkind = 'r' "
+            + "AND (oid = 'payment'::regclass "
+            + "OR oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = 'payment'::regclass))";
+
+    private static final ConstructorExpression<PaymentRow> ROW = Projections.constructor(
+            PaymentRow.class,
+            payment.guid, payment.inquiryRefId, payment.amount, payment.currency, payment.transactionRefId,
+            payment.status, payment.note, payment.createdAt, payment.updatedAt, payment.version);
+
+    private static final RowMapper<PaymentSnapshot> SNAPSHOT = (rs, rowNum) -> new PaymentSnapshot(
+            rs.getObject("guid", UUID.class),
+            rs.getString("currency"),
+            rs.getBigDecimal("amount"),
+            PaymentStatus.valueOf(rs.getString("status")),
+            rs.getObject("created_at", OffsetDateTime.class));
+
+    private static final Map<PaymentStatus, String[]> PREDECESSOR_NAMES = new EnumMap<>(PaymentStatus.class);
+
+    static {
+        for (PaymentStatus status : PaymentStatus.values()) {
+            PREDECESSOR_NAMES.put(status, status.predecessors().stream()
+                                                .map(PaymentStatus::name)
+                                                .toArray(String[]::new));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final Querydsl querydsl;
+
+    public PaymentRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.querydsl = new Querydsl(entityManager, new PathBuilder<>(Payment.class, payment.getMetadata()));
+    }
+
+    @Override
+    @Transactional
+    public Optional<PaymentSnapshot> transitionStatus(UUID id, PaymentStatus status, OffsetDateTime updatedAt) {
+        List<PaymentSnapshot> previous = jdbcTemplate.query(TRANSITION_STATUS_SQL, SNAPSHOT, id, id, status.name(),
+                                                            updatedAt, id, PREDECESSOR_NAMES.get(status));
+        return previous.stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public StatusUpdateResult updateStatuses(Map<UUID, PaymentStatus> statuses, OffsetDateTime updatedAt) {
+        if (statuses.isEmpty()) {
+            return StatusUpdateResult.EMPTY;
+        }
+        List<Map.Entry<UUID, PaymentStatus>> entries = List.copyOf(statuses.entrySet());
+        Map<UUID, PaymentSnapshot> locked = new HashMap<>();
+        jdbcTemplate.query(LOCK_SQL, SNAPSHOT, (Object) statuses.keySet().toArray(UUID[]::new))
+                    .forEach(row -> locked.put(row.guid(), row));
+        Timestamp timestamp = Timestamp.from(updatedAt.toInstant());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.getValue().name());
+            ps.setTimestamp(2, timestamp);
+            ps.setObject(3, entry.getKey());
+            ps.setObject(4, entry.getKey());
+            ps.setArray(5, ps.getConnection().createArrayOf("varchar", PREDECESSOR_NAMES.get(entry.getValue())));
+        });
+
+        List<PaymentSnapshot> updated = new ArrayList<>(entries.size());
+        Set<UUID> missing = new HashSet<>();
+        Set<UUID> rejected = new HashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            UUID guid = entries.get(i).getKey();
+            PaymentSnapshot previous = locked.get(guid);
+            if (previous == null) {
+                missing.add(guid);
+            } else if (counts[0][i] == 0) {
+                rejected.add(guid);
+            } else {
+                updated.add(previous);
+            }
+        }
+        return new StatusUpdateResult(missing, rejected, updated);
+    }
+
+    @Override
+    public Optional<PaymentSnapshot> deleteReturning(UUID id) {
+        return jdbcTemplate.query(DELETE_SQL, SNAPSHOT, id, id).stream().findFirst();
+    }
+
+    @Override
+    public Stream<Payment> stream(Predicate predicate, int fetchSize) {
+        return new JPAQuery<Payment>(entityManager).select(payment)
+                                                   .from(payment)
+                                                   .where(predicate)
+                                                   .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                                                   .setHint(HibernateHints.HINT_READ_ONLY, true)
+                                                   .stream();
+    }
+
+    @Override
+    public long estimateCount() {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_COUNT_SQL, Long.class);
+        return estimate == null ? -1 : estimate;
+    }
+
+    @Override
+    public List<PaymentRow> findRows(Predicate predicate, Sort sort) {
+        return rowQuery(predicate, sort).fetch();
+    }
+
+    @Override
+    public List<PaymentRow> findRows(Predicate predicate, Sort sort, long offset, int limit) {
+        return rowQuery(predicate, sort).offset(offset)
+                                        .limit(limit)
+                                        .fetch();
+    }
+
+    private JPQLQuery<PaymentRow> rowQuery(Predicate predicate, Sort sort) {
+        JPQLQuery<PaymentRow> query = new JPAQuery<PaymentRow>(entityManager).select(ROW)
+                                                                             .from(payment)
+                                                                             .where(predicate);
+        return querydsl.applySorting(sort, query);
+    }
+}
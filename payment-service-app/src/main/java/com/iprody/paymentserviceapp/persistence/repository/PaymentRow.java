@@ -0,0 +1,34 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Columns of a payment selected by a projection, without loading the entity.
+ *
+ * @param guid             payment id
+ * @param inquiryRefId     inquiry the payment belongs to
+ * @param amount           payment amount
+ * @param currency         currency code
+ * @param transactionRefId transaction reference, {@code null} until the payment is processed
+ * @param status           payment status
+ * @param note             free text note, may be {@code null}
+ * @param createdAt        creation time
+ * @param updatedAt        time of the last change
+ * @param version          optimistic lock version
+ */
+public record PaymentRow(UUID guid,
+                         UUID inquiryRefId,
+                         BigDecimal amount,
+                         String currency,
+                         UUID transactionRefId,
+                         PaymentStatus status,
+                         String note,
+                         OffsetDateTime createdAt,
+                         OffsetDateTime updatedAt,
+                         Long version) {
+
+}
@@ -0,0 +1,33 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Columns of a payment that payment statistics are kept by.
+ *
+ * @param guid      payment id
+ * @param currency  currency code
+ * @param amount    payment amount
+ * @param status    payment status
+ * @param createdAt creation time that places the payment in a statistics bucket
+ */
+public record PaymentSnapshot(UUID guid,
+                              String currency,
+                              BigDecimal amount,
+                              PaymentStatus status,
+                              OffsetDateTime createdAt) {
+
+    public static PaymentSnapshot of(Payment payment) {
+        return new PaymentSnapshot(payment.getGuid(), payment.getCurrency(), payment.getAmount(), payment.getStatus(),
+                                   payment.getCreatedAt());
+    }
+
+    public PaymentSnapshot withStatus(PaymentStatus newStatus) {
+        return new PaymentSnapshot(guid, currency, amount, newStatus, createdAt);
+    }
+}
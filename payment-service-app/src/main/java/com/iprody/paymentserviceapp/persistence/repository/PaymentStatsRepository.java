@@ -0,0 +1,95 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.persistence.PaymentStatsFilter;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.CollectionUtils;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkpointed payment statistics, one row per hour of {@code created_at},
+ * currency and status. Rows are only ever added to, so several instances can
+ * checkpoint their changes concurrently.
+ */
+@Repository
+public class PaymentStatsRepository {
+
+    private static final String ADD_SQL = "INSERT INTO payment_stats AS s "
+            + "(bucket, currency, status, count, amount_minor, min_amount_minor, max_amount_minor) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (bucket, currency, status) DO UPDATE SET "
+            + "count = s.count + EXCLUDED.count, amount_minor = s.amount_minor + EXCLUDED.amount_minor, "
+            + "min_amount_minor = LEAST(s.min_amount_minor, EXCLUDED.min_amount_minor), "
+            + "max_amount_minor = GREATEST(s.max_amount_minor, EXCLUDED.max_amount_minor)";
+    private static final String FIND_SQL = "SELECT %s AS bucket, currency, status, sum(count) AS count, "
+            + "sum(amount_minor) AS amount_minor, min(min_amount_minor) AS min_amount_minor, "
+            + "max(max_amount_minor) AS max_amount_minor FROM payment_stats WHERE true%s "
+            + "GROUP BY 1, 2, 3 ORDER BY 1, 2, 3";
+
+    private static final RowMapper<PaymentStatsRow> ROW = (rs, rowNum) -> {
+        OffsetDateTime bucket = rs.getObject("bucket", OffsetDateTime.class);
+        return new PaymentStatsRow(bucket == null ? null : bucket.toInstant(),
+                                   rs.getString("currency"),
+                                   PaymentStatus.valueOf(rs.getString("status")),
+                                   rs.getLong("count"),
+                                   rs.getLong("amount_minor"),
+                                   rs.getObject("min_amount_minor", Long.class),
+                                   rs.getObject("max_amount_minor", Long.class));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaymentStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds changes to the stored statistics: counts and sums are added,
+     * minimum and maximum are widened.
+     *
+     * @param changes changes of hourly buckets
+     */
+    public void add(List<PaymentStatsRow> changes) {
+        jdbcTemplate.batchUpdate(ADD_SQL, changes, changes.size(), (ps, row) -> {
+            ps.setTimestamp(1, Timestamp.from(row.bucket()));
+            ps.setString(2, row.currency());
+            ps.setString(3, row.status().name());
+            ps.setLong(4, row.count());
+            ps.setLong(5, row.amountMinor());
+            ps.setObject(6, row.minAmountMinor(), Types.BIGINT);
+            ps.setObject(7, row.maxAmountMinor(), Types.BIGINT);
+        });
+    }
+
+    /**
+     * Stored statistics rolled up to the granularity of the filter.
+     */
+    public List<PaymentStatsRow> find(PaymentStatsFilter filter) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        if (filter.getFrom() != null) {
+            where.append(" AND bucket >= ?");
+            args.add(Timestamp.from(filter.fromHour()));
+        }
+        if (filter.getTo() != null) {
+            where.append(" AND bucket < ?");
+            args.add(Timestamp.from(filter.toHour()));
+        }
+        if (!CollectionUtils.isEmpty(filter.getCurrencies())) {
+            where.append(" AND currency = ANY (?)");
+            args.add(filter.getCurrencies().toArray(String[]::new));
+        }
+        if (!CollectionUtils.isEmpty(filter.getStatuses())) {
+            where.append(" AND status = ANY (?)");
+            args.add(filter.getStatuses().stream().map(PaymentStatus::name).toArray(String[]::new));
+        }
+        String sql = FIND_SQL.formatted(filter.getGranularity().bucketSql("bucket"), where);
+        return jdbcTemplate.query(sql, ROW, args.toArray());
+    }
+}
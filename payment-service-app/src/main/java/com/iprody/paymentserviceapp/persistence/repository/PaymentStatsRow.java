@@ -0,0 +1,28 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+
+import java.time.Instant;
+
+/**
+ * Payment statistics of one currency and status in one time bucket, or a
+ * change to be added to them. Amounts are in minor units, hundredths of the
+ * payment amount.
+ *
+ * @param bucket         start of the bucket, {@code null} when rolled up over the whole range
+ * @param currency       currency code
+ * @param status         payment status
+ * @param count          number of payments
+ * @param amountMinor    sum of amounts
+ * @param minAmountMinor smallest amount seen in the bucket, {@code null} if none
+ * @param maxAmountMinor largest amount seen in the bucket, {@code null} if none
+ */
+public record PaymentStatsRow(Instant bucket,
+                              String currency,
+                              PaymentStatus status,
+                              long count,
+                              long amountMinor,
+                              Long minAmountMinor,
+                              Long maxAmountMinor) {
+
+}
@@ -0,0 +1,21 @@
+package com.iprody.paymentserviceapp.persistence.repository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Result of a batch status update.
+ *
+ * @param missing  guids of payments that do not exist
+ * @param rejected guids of payments whose current status does not allow the transition
+ * @param updated  updated payments as they were before the update
+ */
+public record StatusUpdateResult(Set<UUID> missing, Set<UUID> rejected, List<PaymentSnapshot> updated) {
+
+    public static final StatusUpdateResult EMPTY = new StatusUpdateResult(Set.of(), Set.of());
+
+    public StatusUpdateResult(Set<UUID> missing, Set<UUID> rejected) {
+        this(missing, rejected, List.of());
+    }
+}
@@ -0,0 +1,20 @@
+package com.iprody.paymentserviceapp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of bulk payment creation.
+ *
+ * @param maxSize       maximum number of payments in one request
+ * @param jdbcBatchSize statements sent per JDBC batch
+ * @param copyThreshold number of valid payments from which COPY is used instead of batched INSERTs
+ */
+@ConfigurationProperties(prefix = "payment.batch")
+public record BatchProperties(
+        @DefaultValue("10000") int maxSize,
+        @DefaultValue("500") int jdbcBatchSize,
+        @DefaultValue("2000") int copyThreshold
+) {
+
+}
@@ -0,0 +1,29 @@
+package com.iprody.paymentserviceapp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-process cache of payments looked up by id.
+ *
+ * @param enabled          enables the cache, lookups go straight to the database otherwise
+ * @param maximumSize      estimated heap taken by cached payments
+ * @param expireAfterWrite how long a payment is served from the cache at most
+ * @param reconnectDelay   pause before the change listener reconnects to the database
+ * @param primaryReads     how long after a change a missing payment is loaded from the primary instead of a
+ *                         replica; keep it above {@code payment.datasource.replica.max-lag} plus
+ *                         {@code check-interval}
+ */
+@ConfigurationProperties(prefix = "payment.cache")
+public record CacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("32MB") DataSize maximumSize,
+        @DefaultValue("10m") Duration expireAfterWrite,
+        @DefaultValue("5s") Duration reconnectDelay,
+        @DefaultValue("10s") Duration primaryReads
+) {
+
+}
@@ -0,0 +1,22 @@
+package com.iprody.paymentserviceapp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the approximate total returned with search slices.
+ *
+ * @param ttl         how long an exact count of one filter is reused
+ * @param maxEntries  maximum number of cached filters
+ * @param useEstimate answer unfiltered searches from planner statistics instead of counting
+ */
+@ConfigurationProperties(prefix = "payment.search.count")
+public record CountProperties(
+        @DefaultValue("30s") Duration ttl,
+        @DefaultValue("1000") int maxEntries,
+        @DefaultValue("true") boolean useEstimate
+) {
+
+}
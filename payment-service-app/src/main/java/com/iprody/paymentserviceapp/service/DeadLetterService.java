@@ -0,0 +1,14 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.DeadLetterDto;
+
+import java.util.List;
+
+public interface DeadLetterService {
+
+    List<DeadLetterDto> findAll(int limit);
+
+    int replay(List<Long> ids);
+
+    int replayOldest(int limit);
+}
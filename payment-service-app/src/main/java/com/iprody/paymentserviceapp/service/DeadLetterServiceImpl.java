@@ -0,0 +1,80 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.async.MessageRetrier;
+import com.iprody.paymentserviceapp.async.RetryProperties;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+import com.iprody.paymentserviceapp.controller.model.DeadLetterDto;
+import com.iprody.paymentserviceapp.converter.DeadLetterMapper;
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository.DeadLetter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.INVALID_LIMIT;
+import static com.iprody.paymentserviceapp.persistence.QPaymentFilter.MAX_PAGE_SIZE;
+
+/**
+ * Lists and replays the dead-letter table. Replayed records are only leased:
+ * each one is deleted once its replay is stored and stays in the table if
+ * the replay is lost, see {@link DeadLetterRepository#claim(int, java.time.Duration)}.
+ */
+
+@Slf4j
+@Service
+public class DeadLetterServiceImpl implements DeadLetterService {
+
+    private final DeadLetterRepository repository;
+    private final DeadLetterMapper mapper;
+    private final MessageRetrier retrier;
+    private final RetryProperties properties;
+
+    public DeadLetterServiceImpl(DeadLetterRepository repository,
+                                 DeadLetterMapper mapper,
+                                 MessageRetrier retrier,
+                                 RetryProperties properties) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.retrier = retrier;
+        this.properties = properties;
+    }
+
+    @Override
+    public List<DeadLetterDto> findAll(int limit) {
+        return mapper.convert(repository.findAll(checked(limit)));
+    }
+
+    @Override
+    public int replay(List<Long> ids) {
+        checked(ids.size());
+        return replayAll(repository.claim(ids, properties.replayLease()));
+    }
+
+    @Override
+    public int replayOldest(int limit) {
+        return replayAll(repository.claim(checked(limit), properties.replayLease()));
+    }
+
+    private int replayAll(List<DeadLetter> deadLetters) {
+        log.info("Replaying {} dead letter(s)", deadLetters.size());
+        retrier.replay(deadLetters.stream()
+                                  .map(DeadLetterServiceImpl::replayed)
+                                  .toList());
+        return deadLetters.size();
+    }
+
+    private static XPaymentAdapterResponseMessage replayed(DeadLetter deadLetter) {
+        XPaymentAdapterResponseMessage message = deadLetter.message();
+        message.setDeadLetterId(deadLetter.id());
+        return message;
+    }
+
+    private static int checked(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ServiceException(INVALID_LIMIT, MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,27 @@
+package com.iprody.paymentserviceapp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the streaming payment export.
+ *
+ * @param fetchSize     rows fetched from the database per round trip, positive
+ * @param clearInterval rows written between persistence context clears, positive
+ */
+@ConfigurationProperties(prefix = "payment.export")
+public record ExportProperties(
+        @DefaultValue("500") int fetchSize,
+        @DefaultValue("500") int clearInterval
+) {
+
+    public ExportProperties {
+        // a zero fetch size makes the driver read the whole result at once
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Export fetch size must be positive: " + fetchSize);
+        }
+        if (clearInterval <= 0) {
+            throw new IllegalArgumentException("Export clear interval must be positive: " + clearInterval);
+        }
+    }
+}
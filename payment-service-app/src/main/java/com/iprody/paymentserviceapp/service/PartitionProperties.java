@@ -0,0 +1,28 @@
+package com.iprody.paymentserviceapp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of monthly payment partition maintenance.
+ *
+ * @param enabled         enables the maintenance job
+ * @param checkInterval   pause between runs
+ * @param premakeMonths   number of months after the current one that must already have a partition
+ * @param retentionMonths number of full months kept before the current one, {@code 0} keeps every partition
+ * @param expiredAction   what to do with a partition older than the retention period
+ * @param lockTimeout     how long DDL waits for locks held by running queries
+ */
+@ConfigurationProperties(prefix = "payment.partition")
+public record PartitionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1h") Duration checkInterval,
+        @DefaultValue("3") int premakeMonths,
+        @DefaultValue("36") int retentionMonths,
+        @DefaultValue("DETACH") PartitionRetentionAction expiredAction,
+        @DefaultValue("5s") Duration lockTimeout
+) {
+
+}
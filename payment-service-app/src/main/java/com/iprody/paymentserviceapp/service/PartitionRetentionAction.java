@@ -0,0 +1,17 @@
+package com.iprody.paymentserviceapp.service;
+
+/**
+ * What {@link PaymentPartitionMaintainer} does with a partition older than the retention period.
+ */
+public enum PartitionRetentionAction {
+
+    /**
+     * Detach the partition and keep it as a standalone table for archiving.
+     */
+    DETACH,
+
+    /**
+     * Drop the partition with its rows.
+     */
+    DROP
+}
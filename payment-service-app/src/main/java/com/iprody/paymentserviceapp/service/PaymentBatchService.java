@@ -0,0 +1,26 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.BatchCreateResult;
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface PaymentBatchService {
+
+    /**
+     * Creates valid payments in one transaction and reports every invalid
+     * one by its index instead of failing the whole batch. Guids are always
+     * generated, a missing status defaults to {@code RECEIVED} and missing
+     * timestamps to the current time.
+     */
+    BatchCreateResult createAll(List<PaymentDto> payments);
+
+    /**
+     * Same as {@link #createAll(List)} for newline-delimited JSON. A line that
+     * cannot be parsed is reported as an error of its item; blank lines are
+     * skipped.
+     */
+    BatchCreateResult createAll(InputStream ndjson) throws IOException;
+}
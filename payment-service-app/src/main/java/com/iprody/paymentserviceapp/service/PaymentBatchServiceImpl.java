@@ -0,0 +1,265 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import com.iprody.paymentserviceapp.controller.model.BatchCreateResult;
+import com.iprody.paymentserviceapp.controller.model.BatchItemResult;
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.converter.PaymentConverter;
+import com.iprody.paymentserviceapp.converter.XPaymentAdapterMapper;
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.model.TimeOrderedUuidGenerator;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentBatchRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.BATCH_TOO_LARGE;
+
+@Slf4j
+@Service
+public class PaymentBatchServiceImpl implements PaymentBatchService {
+
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("1000");
+    private static final int AMOUNT_SCALE = 2;
+    private static final int CURRENCY_LENGTH = 3;
+    private static final String GUID_TAKEN = "guid already exists";
+    private static final String NOT_STORED = "payment could not be stored";
+
+    private final PaymentBatchRepository batchRepository;
+    private final PaymentOutboxRepository outboxRepository;
+    private final PaymentConverter converter;
+    private final XPaymentAdapterMapper xPaymentAdapterMapper;
+    private final PaymentStatsService statsService;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchProperties properties;
+    private final ObjectReader reader;
+    private final Counter created;
+    private final Counter rejected;
+    private final Timer jdbcInsert;
+    private final Timer copyInsert;
+
+    public PaymentBatchServiceImpl(PaymentBatchRepository batchRepository,
+                                   PaymentOutboxRepository outboxRepository,
+                                   PaymentConverter converter,
+                                   XPaymentAdapterMapper xPaymentAdapterMapper,
+                                   PaymentStatsService statsService,
+                                   PlatformTransactionManager transactionManager,
+                                   BatchProperties properties,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
+        this.batchRepository = batchRepository;
+        this.outboxRepository = outboxRepository;
+        this.converter = converter;
+        this.xPaymentAdapterMapper = xPaymentAdapterMapper;
+        this.statsService = statsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.reader = objectMapper.readerFor(PaymentDto.class);
+        this.created = meterRegistry.counter("payment.batch.items", "result", "created");
+        this.rejected = meterRegistry.counter("payment.batch.items", "result", "rejected");
+        this.jdbcInsert = Timer.builder("payment.batch.insert")
+                               .description("Time spent inserting one payment batch")
+                               .tag("method", "jdbc")
+                               .register(meterRegistry);
+        this.copyInsert = Timer.builder("payment.batch.insert")
+                               .description("Time spent inserting one payment batch")
+                               .tag("method", "copy")
+                               .register(meterRegistry);
+    }
+
+    @Override
+    public BatchCreateResult createAll(List<PaymentDto> payments) {
+        checkSize(payments.size());
+        List<Candidate> candidates = new ArrayList<>(payments.size());
+        for (PaymentDto dto : payments) {
+            candidates.add(new Candidate(dto, null));
+        }
+        return create(candidates);
+    }
+
+    @Override
+    public BatchCreateResult createAll(InputStream ndjson) throws IOException {
+        List<Candidate> candidates = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            checkSize(candidates.size() + 1);
+            try {
+                candidates.add(new Candidate(reader.readValue(line), null));
+            } catch (JacksonException e) {
+                candidates.add(new Candidate(null, "Malformed JSON: " + e.getOriginalMessage()));
+            }
+        }
+        return create(candidates);
+    }
+
+    private BatchCreateResult create(List<Candidate> candidates) {
+        OffsetDateTime now = OffsetDateTime.now();
+        BatchItemResult[] items = new BatchItemResult[candidates.size()];
+        List<Item> valid = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            String error = candidate.error() != null ? candidate.error() : validate(candidate.dto());
+            if (error != null) {
+                items[i] = new BatchItemResult(i, null, error);
+                continue;
+            }
+            valid.add(new Item(i, toPayment(candidate.dto(), now)));
+        }
+
+        List<Item> stored = store(withoutTakenGuids(valid, items), items);
+        for (Item item : stored) {
+            items[item.index()] = new BatchItemResult(item.index(), item.payment().getGuid(), null);
+        }
+        int failed = candidates.size() - stored.size();
+        created.increment(stored.size());
+        rejected.increment(failed);
+        log.debug("Payment batch: {} created, {} rejected", stored.size(), failed);
+        return new BatchCreateResult(stored.size(), failed, Arrays.asList(items));
+    }
+
+    /**
+     * Reports the items whose guid is already stored or repeated in the
+     * batch, so that a duplicate does not roll back the whole batch.
+     */
+    private List<Item> withoutTakenGuids(List<Item> valid, BatchItemResult[] items) {
+        Set<UUID> taken = batchRepository.findExisting(valid.stream()
+                                                            .map(item -> item.payment().getGuid())
+                                                            .toList());
+        Set<UUID> seen = new HashSet<>(valid.size() * 2);
+        List<Item> unique = new ArrayList<>(valid.size());
+        for (Item item : valid) {
+            UUID guid = item.payment().getGuid();
+            if (taken.contains(guid) || !seen.add(guid)) {
+                items[item.index()] = new BatchItemResult(item.index(), null, GUID_TAKEN);
+            } else {
+                unique.add(item);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Inserts the items in one transaction. If the database rejects the
+     * batch, inserts them one by one to report the failing items by index.
+     *
+     * @return the stored items
+     */
+    private List<Item> store(List<Item> valid, BatchItemResult[] items) {
+        if (valid.isEmpty()) {
+            return valid;
+        }
+        try {
+            insert(valid.stream().map(Item::payment).toList());
+            return valid;
+        } catch (DataAccessException e) {
+            log.warn("Payment batch of {} failed, inserting one by one: {}", valid.size(), e.getMessage());
+        }
+        List<Item> stored = new ArrayList<>(valid.size());
+        for (Item item : valid) {
+            try {
+                insert(List.of(item.payment()));
+                stored.add(item);
+            } catch (DataAccessException e) {
+                log.warn("Payment batch item {} could not be stored: {}", item.index(), e.getMessage());
+                items[item.index()] = new BatchItemResult(item.index(), null, NOT_STORED);
+            }
+        }
+        return stored;
+    }
+
+    private void insert(List<Payment> payments) {
+        List<XPaymentAdapterRequestMessage> messages = new ArrayList<>(payments.size());
+        for (Payment payment : payments) {
+            messages.add(xPaymentAdapterMapper.toXPaymentAdapterRequestMessage(payment));
+        }
+        boolean copy = payments.size() >= properties.copyThreshold();
+        Timer timer = copy ? copyInsert : jdbcInsert;
+        timer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            if (copy) {
+                batchRepository.copyAll(payments);
+            } else {
+                batchRepository.insertAll(payments, properties.jdbcBatchSize());
+            }
+            outboxRepository.addAll(messages, properties.jdbcBatchSize());
+            payments.forEach(payment -> statsService.added(PaymentSnapshot.of(payment)));
+        }));
+    }
+
+    private Payment toPayment(PaymentDto dto, OffsetDateTime now) {
+        Payment payment = converter.convert(dto);
+        payment.setGuid(TimeOrderedUuidGenerator.next());
+        if (payment.getStatus() == null) {
+            payment.setStatus(PaymentStatus.RECEIVED);
+        }
+        if (payment.getCreatedAt() == null) {
+            payment.setCreatedAt(now);
+        }
+        if (payment.getUpdatedAt() == null) {
+            payment.setUpdatedAt(payment.getCreatedAt());
+        }
+        return payment;
+    }
+
+    private void checkSize(int size) {
+        if (size > properties.maxSize()) {
+            throw new ServiceException(BATCH_TOO_LARGE, properties.maxSize());
+        }
+    }
+
+    private static String validate(PaymentDto dto) {
+        if (dto == null) {
+            return "Payment is null";
+        }
+        if (dto.inquiryRefId() == null) {
+            return "inquiryRefId is required";
+        }
+        if (dto.amount() == null) {
+            return "amount is required";
+        }
+        if (dto.amount().scale() > AMOUNT_SCALE || dto.amount().abs().compareTo(MAX_AMOUNT) >= 0) {
+            return "amount must have at most 3 integer and 2 fraction digits";
+        }
+        if (dto.currency() == null || dto.currency().length() != CURRENCY_LENGTH) {
+            return "currency must be a 3-letter code";
+        }
+        return null;
+    }
+
+    private record Candidate(PaymentDto dto, String error) {
+
+    }
+
+    private record Item(int index, Payment payment) {
+
+    }
+}
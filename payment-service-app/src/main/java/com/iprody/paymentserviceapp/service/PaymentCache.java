@@ -0,0 +1,456 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of payments looked up by id.
+ *
+ * <p>
+ * Eviction follows W-TinyLFU. New payments land in a small LRU window;
+ * payments leaving it move to the probation part of a segmented LRU and are
+ * promoted to its protected part when read again. When the cache is over
+ * {@code maximumSize}, the newest probation entry competes with the oldest
+ * one and the entry looked up less often according to a count-min sketch of
+ * recent lookups is evicted, so a scan over many payments cannot push out the
+ * ones merchants keep polling. Entries are weighed by their estimated heap
+ * size and are served for at most {@code expireAfterWrite}.
+ *
+ * <p>
+ * A miss loads the payment outside the lock. Invalidating a payment while it
+ * is being loaded discards the loaded value, so a row read before a write is
+ * never cached after that write has been invalidated. Invalidated ids are
+ * remembered for {@code primaryReads}, see {@link #changedRecently}.
+ */
+@Component
+public class PaymentCache {
+
+    private static final int ENTRY_WEIGHT = 512;
+    private static final double WINDOW_SHARE = 0.01;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final boolean enabled;
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final long expireNanos;
+    private final long primaryReadsNanos;
+    private final LongSupplier clock;
+    private final Map<UUID, Node> data = new HashMap<>();
+    private final Map<UUID, Object> loading = new HashMap<>();
+    private final Map<UUID, Long> changedAt = new LinkedHashMap<>();
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedSegment = new AccessOrder();
+    private final FrequencySketch sketch;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+    private final Timer loadTimer;
+
+    private volatile boolean suspended;
+    private long weight;
+    private long windowWeight;
+    private long protectedWeight;
+
+    @Autowired
+    public PaymentCache(CacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    PaymentCache(CacheProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = properties.enabled();
+        this.maximumWeight = properties.maximumSize().toBytes();
+        this.windowMaximum = (long) (maximumWeight * WINDOW_SHARE);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_SHARE);
+        this.expireNanos = properties.expireAfterWrite().toNanos();
+        this.primaryReadsNanos = properties.primaryReads().toNanos();
+        this.clock = clock;
+        this.sketch = new FrequencySketch(maximumWeight / ENTRY_WEIGHT);
+        this.hits = meterRegistry.counter("payment.cache.gets", "result", "hit");
+        this.misses = meterRegistry.counter("payment.cache.gets", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("payment.cache.evictions", "cause", "size");
+        this.expirations = meterRegistry.counter("payment.cache.evictions", "cause", "expired");
+        this.invalidations = meterRegistry.counter("payment.cache.invalidations");
+        this.loadTimer = Timer.builder("payment.cache.load")
+                              .description("Time spent loading a payment missing from the cache")
+                              .publishPercentileHistogram()
+                              .register(meterRegistry);
+        Gauge.builder("payment.cache.size", this, PaymentCache::size)
+             .register(meterRegistry);
+        Gauge.builder("payment.cache.weight", this, PaymentCache::weight)
+             .baseUnit("bytes")
+             .register(meterRegistry);
+        Gauge.builder("payment.cache.hit.ratio", this, PaymentCache::hitRatio)
+             .description("Share of lookups answered from the cache since startup")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached payment or loads it. Missing payments are not cached.
+     *
+     * @param id     payment id
+     * @param loader reads the payment from the database
+     * @return the payment, empty if it does not exist
+     */
+    public Optional<PaymentDto> get(UUID id, Function<UUID, Optional<PaymentDto>> loader) {
+        if (!enabled || suspended) {
+            return loader.apply(id);
+        }
+        Object token = new Object();
+        synchronized (this) {
+            PaymentDto cached = getIfPresent(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            loading.put(id, token);
+        }
+        misses.increment();
+        long started = clock.getAsLong();
+        Optional<PaymentDto> loaded = Optional.empty();
+        try {
+            loaded = loader.apply(id);
+        } finally {
+            loadTimer.record(clock.getAsLong() - started, TimeUnit.NANOSECONDS);
+            complete(id, token, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the cached payment and discards any load of it in progress.
+     *
+     * @param id payment id
+     */
+    public synchronized void invalidate(UUID id) {
+        loading.remove(id);
+        changedAt.remove(id);
+        changedAt.put(id, clock.getAsLong());
+        Node node = data.get(id);
+        if (node != null) {
+            remove(node);
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Tells whether the payment was invalidated within {@code primaryReads}.
+     * A replica may not have replayed such a change yet, so the payment has
+     * to be loaded from the primary.
+     *
+     * @param id payment id
+     */
+    public synchronized boolean changedRecently(UUID id) {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<UUID, Long>> oldest = changedAt.entrySet().iterator();
+        while (oldest.hasNext() && now - oldest.next().getValue() >= primaryReadsNanos) {
+            oldest.remove();
+        }
+        return changedAt.containsKey(id);
+    }
+
+    public synchronized void invalidateAll() {
+        loading.clear();
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        weight = 0;
+        windowWeight = 0;
+        protectedWeight = 0;
+    }
+
+    /**
+     * Stops caching until {@link #resume()}, used while changes made by other
+     * instances cannot be observed.
+     */
+    public void suspend() {
+        suspended = true;
+        invalidateAll();
+    }
+
+    public void resume() {
+        suspended = false;
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+
+    private PaymentDto getIfPresent(UUID id) {
+        sketch.increment(id);
+        Node node = data.get(id);
+        if (node == null) {
+            return null;
+        }
+        if (clock.getAsLong() - node.loadedAt >= expireNanos) {
+            remove(node);
+            expirations.increment();
+            return null;
+        }
+        onHit(node);
+        return node.value;
+    }
+
+    private synchronized void complete(UUID id, Object token, Optional<PaymentDto> loaded) {
+        if (loading.remove(id, token) && loaded.isPresent() && !suspended) {
+            put(id, loaded.get());
+        }
+    }
+
+    private void put(UUID id, PaymentDto value) {
+        int entryWeight = weigh(value);
+        if (entryWeight > maximumWeight) {
+            return;
+        }
+        Node previous = data.get(id);
+        if (previous != null) {
+            remove(previous);
+        }
+        Node node = new Node(id, value, entryWeight, clock.getAsLong());
+        data.put(id, node);
+        window.add(node);
+        windowWeight += entryWeight;
+        weight += entryWeight;
+        evict();
+    }
+
+    private void onHit(Node node) {
+        if (node.segment == Segment.WINDOW) {
+            window.moveToTail(node);
+        } else if (node.segment == Segment.PROTECTED) {
+            protectedSegment.moveToTail(node);
+        } else {
+            probation.remove(node);
+            node.segment = Segment.PROTECTED;
+            protectedSegment.add(node);
+            protectedWeight += node.weight;
+            while (protectedWeight > protectedMaximum) {
+                Node demoted = protectedSegment.head;
+                protectedSegment.remove(demoted);
+                protectedWeight -= demoted.weight;
+                demoted.segment = Segment.PROBATION;
+                probation.add(demoted);
+            }
+        }
+    }
+
+    private void evict() {
+        while (windowWeight > windowMaximum) {
+            Node candidate = window.head;
+            window.remove(candidate);
+            windowWeight -= candidate.weight;
+            candidate.segment = Segment.PROBATION;
+            probation.add(candidate);
+        }
+        while (weight > maximumWeight) {
+            Node victim = probation.head;
+            Node candidate = probation.tail;
+            if (victim == null) {
+                victim = protectedSegment.head != null ? protectedSegment.head : window.head;
+            } else if (victim != candidate && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                victim = candidate;
+            }
+            remove(victim);
+            sizeEvictions.increment();
+        }
+    }
+
+    private void remove(Node node) {
+        data.remove(node.key);
+        weight -= node.weight;
+        if (node.segment == Segment.WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.segment == Segment.PROTECTED) {
+            protectedSegment.remove(node);
+            protectedWeight -= node.weight;
+        } else {
+            probation.remove(node);
+        }
+    }
+
+    private static int weigh(PaymentDto payment) {
+        return payment.note() == null ? ENTRY_WEIGHT : ENTRY_WEIGHT + 2 * payment.note().length();
+    }
+
+    private enum Segment {
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+
+    private static final class Node {
+
+        private final UUID key;
+        private final PaymentDto value;
+        private final int weight;
+        private final long loadedAt;
+
+        private Segment segment = Segment.WINDOW;
+        private Node prev;
+        private Node next;
+
+        Node(UUID key, PaymentDto value, int weight, long loadedAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Doubly linked list from the least to the most recently used entry.
+     */
+    private static final class AccessOrder {
+
+        private Node head;
+        private Node tail;
+
+        void add(Node node) {
+            if (head == null) {
+                head = node;
+            } else {
+                tail.next = node;
+                node.prev = tail;
+            }
+            tail = node;
+        }
+
+        void remove(Node node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                head = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                tail = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToTail(Node node) {
+            if (node != tail) {
+                remove(node);
+                add(node);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+
+    /**
+     * Count-min sketch of lookups: four rows of 4-bit counters, sixteen
+     * counters per expected entry so that a scan rarely inflates the
+     * estimate of a payment it never touched. Once the number of increments
+     * reaches ten times the expected entries, all counters are halved so
+     * that old popularity fades.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final int MAX_TABLE_LENGTH = 1 << 20;
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long expectedEntries) {
+            int length = (int) Math.min(MAX_TABLE_LENGTH, Long.highestOneBit(Math.max(16, expectedEntries) - 1) << 1);
+            this.table = new long[length];
+            this.mask = length - 1;
+            this.sampleSize = 10 * length;
+        }
+
+        int frequency(UUID key) {
+            long hash = spread(key);
+            int frequency = 15;
+            for (long seed : SEEDS) {
+                long h = rehash(hash, seed);
+                frequency = Math.min(frequency, (int) ((table[index(h)] >>> offset(h)) & 15L));
+            }
+            return frequency;
+        }
+
+        void increment(UUID key) {
+            long hash = spread(key);
+            boolean added = false;
+            for (long seed : SEEDS) {
+                long h = rehash(hash, seed);
+                int index = index(h);
+                int offset = offset(h);
+                if (((table[index] >>> offset) & 15L) != 15L) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        private int index(long h) {
+            return (int) (h >>> 8) & mask;
+        }
+
+        private static int offset(long h) {
+            return (int) (h & 15L) << 2;
+        }
+
+        private static long rehash(long hash, long seed) {
+            long h = (hash + seed) * seed;
+            return h ^ (h >>> 32);
+        }
+
+        private static long spread(UUID key) {
+            long h = key.getMostSignificantBits() * 0x9E3779B97F4A7C15L ^ key.getLeastSignificantBits();
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            return h ^ (h >>> 33);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.iprody.paymentserviceapp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Invalidates {@link PaymentCache} entries of payments changed by any
+ * instance.
+ *
+ * <p>
+ * A trigger on the payment table sends the id of every updated or deleted
+ * payment to the {@code payment_changed} channel when the transaction commits.
+ * The listener keeps its own connection to the primary, outside the pool, and
+ * invalidates the ids it receives. Notifications sent while it is
+ * disconnected are lost, so the cache is suspended until it listens again.
+ */
+@Slf4j
+@Component
+public class PaymentChangeListener {
+
+    static final String CHANNEL = "payment_changed";
+
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final CacheProperties properties;
+    private final PaymentCache cache;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public PaymentChangeListener(DataSourceProperties dataSourceProperties,
+                                 CacheProperties properties,
+                                 PaymentCache cache) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.properties = properties;
+        this.cache = cache;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.enabled()) {
+            cache.suspend();
+            running = true;
+            worker = Thread.ofPlatform()
+                           .name("payment-change-listener")
+                           .daemon()
+                           .start(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                listen();
+            } catch (SQLException e) {
+                cache.suspend();
+                log.warn("Payment change listener disconnected, reconnecting in {}", properties.reconnectDelay(), e);
+                try {
+                    Thread.sleep(properties.reconnectDelay());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listen() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                                                                 dataSourceProperties.determineUsername(),
+                                                                 dataSourceProperties.determinePassword());
+             Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+            cache.resume();
+            log.info("Listening for payment changes on channel {}", CHANNEL);
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            while (running) {
+                PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        cache.invalidate(UUID.fromString(notification.getParameter()));
+                    }
+                }
+            }
+        }
+    }
+}
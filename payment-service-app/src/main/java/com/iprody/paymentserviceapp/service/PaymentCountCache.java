@@ -0,0 +1,89 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter.CountKey;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate number of payments matching a search filter.
+ *
+ * <p>
+ * Unfiltered searches are answered from {@code pg_class.reltuples}. Filtered
+ * ones run an exact {@code COUNT(*)} and reuse it for {@code ttl}, keyed by
+ * {@link QPaymentFilter#countKey()}, so paging through the same filter counts
+ * at most once per ttl.
+ */
+@Component
+public class PaymentCountCache {
+
+    private final PaymentRepository repository;
+    private final CountProperties properties;
+    private final LongSupplier clock;
+    private final Map<CountKey, CachedCount> counts = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter estimates;
+
+    @Autowired
+    public PaymentCountCache(PaymentRepository repository, CountProperties properties, MeterRegistry meterRegistry) {
+        this(repository, properties, meterRegistry, System::nanoTime);
+    }
+
+    PaymentCountCache(PaymentRepository repository,
+                      CountProperties properties,
+                      MeterRegistry meterRegistry,
+                      LongSupplier clock) {
+        this.repository = repository;
+        this.properties = properties;
+        this.clock = clock;
+        this.hits = meterRegistry.counter("payment.search.count", "source", "cache");
+        this.misses = meterRegistry.counter("payment.search.count", "source", "query");
+        this.estimates = meterRegistry.counter("payment.search.count", "source", "estimate");
+    }
+
+    public long count(QPaymentFilter filter) {
+        CountKey key = filter.countKey();
+        if (key.isUnfiltered() && properties.useEstimate()) {
+            long estimate = repository.estimateCount();
+            if (estimate > 0) {
+                estimates.increment();
+                return estimate;
+            }
+        }
+        long now = clock.getAsLong();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt() - now > 0) {
+            hits.increment();
+            return cached.count();
+        }
+        misses.increment();
+        long count = repository.count(filter.createPredicate());
+        if (counts.size() >= properties.maxEntries()) {
+            evict(now);
+        }
+        counts.put(key, new CachedCount(count, now + properties.ttl().toNanos()));
+        return count;
+    }
+
+    private void evict(long now) {
+        counts.values().removeIf(cached -> cached.expiresAt() - now <= 0);
+        Iterator<CountKey> keys = counts.keySet().iterator();
+        while (counts.size() >= properties.maxEntries() && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record CachedCount(long count, long expiresAt) {
+
+    }
+}
@@ -0,0 +1,17 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface PaymentExportService {
+
+    /**
+     * Writes matching payments to the stream as newline-delimited JSON, one
+     * {@code PaymentDto} per line, without materializing the result.
+     *
+     * @return number of exported payments
+     */
+    long exportNdjson(QPaymentFilter filter, OutputStream out) throws IOException;
+}
@@ -0,0 +1,68 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.converter.PaymentConverter;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SequenceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class PaymentExportServiceImpl implements PaymentExportService {
+
+    private static final String LINE_SEPARATOR = "\n";
+
+    private final PaymentRepository repository;
+    private final PaymentConverter converter;
+    private final EntityManager entityManager;
+    private final ExportProperties properties;
+    private final ObjectWriter writer;
+
+    public PaymentExportServiceImpl(PaymentRepository repository,
+                                    PaymentConverter converter,
+                                    EntityManager entityManager,
+                                    ExportProperties properties,
+                                    ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.converter = converter;
+        this.entityManager = entityManager;
+        this.properties = properties;
+        this.writer = objectMapper.writer()
+                                  .withRootValueSeparator(LINE_SEPARATOR)
+                                  .without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportNdjson(QPaymentFilter filter, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Payment> payments = repository.stream(filter.createPredicate(), properties.fetchSize());
+             SequenceWriter lines = writer.writeValues(out)) {
+            Iterator<Payment> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                lines.write(converter.convert(iterator.next()));
+                if (++count % properties.clearInterval() == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        log.debug("Exported {} payment(s)", count);
+        return count;
+    }
+}
@@ -0,0 +1,162 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.persistence.repository.PaymentPartitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the monthly partitions of the payment table in line with
+ * {@link PartitionProperties}: creates partitions for the current month and
+ * {@code premakeMonths} ahead, and detaches or drops partitions older than
+ * {@code retentionMonths}. An expired month is removed from payment_guid and
+ * payment_stats in the same transaction, so its guids can be reused and the
+ * statistics match the payments left.
+ *
+ * <p>
+ * Runs at startup and then every {@code checkInterval}. Every change is made
+ * in its own transaction under an advisory lock, so instances do not race
+ * and one failed change does not block the others.
+ */
+@Slf4j
+@Component
+public class PaymentPartitionMaintainer {
+
+    private final PaymentPartitionRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionProperties properties;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("partition-maintainer").daemon().factory());
+    private final AtomicInteger partitions = new AtomicInteger();
+    private final Counter created;
+    private final Counter expired;
+    private final Counter failed;
+
+    @Autowired
+    public PaymentPartitionMaintainer(PaymentPartitionRepository repository,
+                                      PlatformTransactionManager transactionManager,
+                                      PartitionProperties properties,
+                                      MeterRegistry meterRegistry) {
+        this(repository, transactionManager, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    PaymentPartitionMaintainer(PaymentPartitionRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               PartitionProperties properties,
+                               MeterRegistry meterRegistry,
+                               Clock clock) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.clock = clock;
+        this.created = meterRegistry.counter("payment.partition.changes", "action", "create");
+        this.expired = meterRegistry.counter("payment.partition.changes", "action",
+                                             properties.expiredAction().name().toLowerCase());
+        this.failed = meterRegistry.counter("payment.partition.failures");
+        Gauge.builder("payment.partition.count", partitions, AtomicInteger::get)
+             .description("Monthly partitions attached to the payment table")
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.enabled()) {
+            long interval = properties.checkInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::maintain, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    void maintain() {
+        try {
+            YearMonth current = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+            List<YearMonth> existing = transactionTemplate.execute(status -> repository.findMonths());
+            for (int i = 0; i <= properties.premakeMonths(); i++) {
+                YearMonth month = current.plusMonths(i);
+                if (!existing.contains(month)) {
+                    change(month, this::create, created);
+                }
+            }
+            if (properties.retentionMonths() > 0) {
+                // oldest first and only while that succeeds, see PaymentPartitionRepository#forget
+                YearMonth oldestKept = current.minusMonths(properties.retentionMonths());
+                for (YearMonth month : existing) {
+                    if (!month.isBefore(oldestKept) || !change(month, expiredAction(), expired)) {
+                        break;
+                    }
+                }
+            }
+            partitions.set(transactionTemplate.execute(status -> repository.findMonths()).size());
+        } catch (RuntimeException e) {
+            log.error("Payment partition maintenance failed", e);
+        }
+    }
+
+    private void create(YearMonth month) {
+        int moved = repository.create(month);
+        if (moved > 0) {
+            log.info("Moved {} payments from payment_default into partition {}",
+                     moved, PaymentPartitionRepository.name(month));
+        }
+    }
+
+    private Consumer<YearMonth> expiredAction() {
+        Consumer<YearMonth> action = switch (properties.expiredAction()) {
+            case DETACH -> repository::detach;
+            case DROP -> repository::drop;
+        };
+        return month -> {
+            int guids = repository.forget(month);
+            action.accept(month);
+            log.info("Removed {} expired payment guids and the statistics of {}", guids, month);
+        };
+    }
+
+    /**
+     * @return {@code true} if the change was made
+     */
+    private boolean change(YearMonth month, Consumer<YearMonth> action, Counter counter) {
+        String partition = PaymentPartitionRepository.name(month);
+        try {
+            Boolean changed = transactionTemplate.execute(status -> {
+                if (!repository.lock(properties.lockTimeout())) {
+                    return false;
+                }
+                action.accept(month);
+                return true;
+            });
+            if (Boolean.TRUE.equals(changed)) {
+                counter.increment();
+                log.info("Payment partition {}: {}", partition, counter.getId().getTag("action"));
+                return true;
+            }
+            log.debug("Payment partition {} is being changed by another instance", partition);
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Could not change payment partition {}", partition, e);
+        }
+        return false;
+    }
+}
@@ -1,13 +1,17 @@
 package com.iprody.paymentserviceapp.service;
 
+import com.iprody.paymentserviceapp.controller.model.CursorPage;
 import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.controller.model.SlicePage;
 import com.iprody.paymentserviceapp.persistence.PaymentFilter;
 import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
 import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.repository.StatusUpdateResult;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,17 +25,36 @@ public interface PaymentService {
 
     PaymentDto create(PaymentDto dto);
 
-    PaymentDto update(PaymentDto dto);
+    /**
+     * Replaces a payment.
+     *
+     * @param expectedVersion version the caller has seen, {@code null} to replace any version
+     * @return the payment with its incremented version
+     */
+    PaymentDto update(PaymentDto dto, Long expectedVersion);
 
     void delete(UUID id);
 
-    boolean updateNote(UUID id, String note);
+    /**
+     * Sets the note of a payment.
+     *
+     * @param expectedVersion version the caller has seen, {@code null} to update any version
+     */
+    boolean updateNote(UUID id, String note, Long expectedVersion);
 
-    PaymentDto updateStatus(UUID id, PaymentStatus status);
+    boolean updateStatus(UUID id, PaymentStatus status);
+
+    StatusUpdateResult updateStatuses(Map<UUID, PaymentStatus> statuses);
 
     List<PaymentDto> search(PaymentFilter filter);
 
     Page<PaymentDto> searchPaged(PaymentFilter filter, Pageable pageable);
 
     Page<PaymentDto> searchQPaged(QPaymentFilter filter);
+
+    SlicePage<PaymentDto> searchSliced(PaymentFilter filter, Pageable pageable);
+
+    SlicePage<PaymentDto> searchQSliced(QPaymentFilter filter, boolean withTotal);
+
+    CursorPage<PaymentDto> searchQKeyset(QPaymentFilter filter);
 }
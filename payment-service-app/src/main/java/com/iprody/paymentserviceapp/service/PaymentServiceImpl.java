@@ -1,8 +1,9 @@
 package com.iprody.paymentserviceapp.service;
 
-import com.iprody.paymentserviceapp.async.AsyncSender;
 import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import com.iprody.paymentserviceapp.controller.model.CursorPage;
 import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.controller.model.SlicePage;
 import com.iprody.paymentserviceapp.converter.PaymentConverter;
 import com.iprody.paymentserviceapp.converter.XPaymentAdapterMapper;
 import com.iprody.paymentserviceapp.exception.ServiceException;
@@ -11,20 +12,36 @@ import com.iprody.paymentserviceapp.persistence.PaymentFilterFactory;
 import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
 import com.iprody.paymentserviceapp.persistence.model.Payment;
 import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
 import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRow;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentSnapshot;
+import com.iprody.paymentserviceapp.persistence.repository.StatusUpdateResult;
+import com.querydsl.core.types.Predicate;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static com.iprody.paymentserviceapp.exception.ErrorMessage.PAYMENT_NOT_EXIST;
+import static com.iprody.paymentserviceapp.exception.ErrorMessage.VERSION_NOT_MATCH;
 
 @Slf4j
 @Service
@@ -33,104 +50,222 @@ public class PaymentServiceImpl implements PaymentService {
     private final PaymentRepository repository;
     private final PaymentConverter converter;
     private final XPaymentAdapterMapper xPaymentAdapterMapper;
-    private final AsyncSender<XPaymentAdapterRequestMessage> sender;
+    private final PaymentOutboxRepository outboxRepository;
+    private final PaymentCountCache countCache;
+    private final PaymentCache cache;
+    private final PaymentStatsService statsService;
+    private final TransactionTemplate primaryTransaction;
+    private final TransactionTemplate readOnlyTransaction;
 
     @Autowired
     public PaymentServiceImpl(PaymentRepository repository,
                               PaymentConverter converter,
                               XPaymentAdapterMapper xPaymentAdapterMapper,
-                              AsyncSender<XPaymentAdapterRequestMessage> sender) {
+                              PaymentOutboxRepository outboxRepository,
+                              PaymentCountCache countCache,
+                              PaymentCache cache,
+                              PaymentStatsService statsService,
+                              PlatformTransactionManager transactionManager) {
         this.repository = repository;
         this.converter = converter;
         this.xPaymentAdapterMapper = xPaymentAdapterMapper;
-        this.sender = sender;
+        this.outboxRepository = outboxRepository;
+        this.countCache = countCache;
+        this.cache = cache;
+        this.statsService = statsService;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PaymentDto> findAll() {
-        return repository.findAll()
-                         .stream()
-                         .map(converter::convert)
-                         .toList();
+        return converter.convertRows(repository.findRows(null, Sort.unsorted()));
     }
 
     @Override
     public Optional<PaymentDto> findById(UUID id) {
-        return repository.findById(id)
-                         .map(converter::convert);
+        return cache.get(id, this::load);
     }
 
     @Override
     public PaymentDto getById(UUID id) {
-        return converter.convert(repository.findById(id)
-                                           .orElseThrow(() -> {
-                                               log.error("Paymnent not found with id {}", id);
-                                               return new ServiceException(PAYMENT_NOT_EXIST, id);
-                                           }));
-
+        return findById(id).orElseThrow(() -> {
+            log.error("Paymnent not found with id {}", id);
+            return new ServiceException(PAYMENT_NOT_EXIST, id);
+        });
     }
 
     @Override
+    @Transactional
     public PaymentDto create(PaymentDto dto) {
         Payment entity = converter.convert(dto);
         Payment saved = repository.save(entity);
         PaymentDto resultDto = converter.convert(saved);
+        statsService.added(PaymentSnapshot.of(saved));
 
-        XPaymentAdapterRequestMessage requestMessage = xPaymentAdapterMapper.toXPaymentAdapterRequestMessage(entity);
-        sender.send(requestMessage);
+        XPaymentAdapterRequestMessage requestMessage = xPaymentAdapterMapper.toXPaymentAdapterRequestMessage(saved);
+        outboxRepository.add(requestMessage);
 
         return resultDto;
     }
 
     @Override
-    public PaymentDto update(PaymentDto dto) {
-        if (!repository.existsById(dto.guid())) {
-            throw new ServiceException(PAYMENT_NOT_EXIST, dto.guid());
+    @Transactional
+    public PaymentDto update(PaymentDto dto, Long expectedVersion) {
+        Payment current = repository.findForUpdate(dto.guid())
+                                    .orElseThrow(() -> new ServiceException(PAYMENT_NOT_EXIST, dto.guid()));
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            log.debug("Payment {} was not updated: version {} expected, {} found", dto.guid(), expectedVersion,
+                      current.getVersion());
+            throw new ServiceException(VERSION_NOT_MATCH, dto.guid());
         }
-        return converter.convert(repository.save(converter.convert(dto)));
+        PaymentSnapshot previous = PaymentSnapshot.of(current);
+        Payment entity = converter.convert(dto);
+        // the row is locked, so the version read above is still current
+        entity.setVersion(current.getVersion());
+        // flushed to get the incremented version into the response
+        Payment saved = repository.saveAndFlush(entity);
+        statsService.changed(previous, PaymentSnapshot.of(saved));
+        invalidate(dto.guid());
+        return converter.convert(saved);
     }
 
     @Override
     public void delete(UUID id) {
-        if (!repository.existsById(id)) {
-            log.error("Unexisted Paymnent with id {} could not be deleted", id);
-            throw new ServiceException(PAYMENT_NOT_EXIST, id);
+        PaymentSnapshot deleted = repository.deleteReturning(id)
+                                            .orElseThrow(() -> {
+                                                log.error("Unexisted Paymnent with id {} could not be deleted", id);
+                                                return new ServiceException(PAYMENT_NOT_EXIST, id);
+                                            });
+        statsService.removed(deleted);
+        invalidate(id);
+    }
+
+    @Override
+    @Transactional
+    public boolean updateNote(UUID id, String note, Long expectedVersion) {
+        if (repository.updateNote(id, note, expectedVersion) == 0) {
+            if (!repository.existsByGuid(id)) {
+                log.error("Unexisted Paymnent with id {} could not be updated", id);
+                throw new ServiceException(PAYMENT_NOT_EXIST, id);
+            }
+            log.debug("Note of payment {} was not updated: version {} expected", id, expectedVersion);
+            throw new ServiceException(VERSION_NOT_MATCH, id);
         }
-        repository.deleteById(id);
+        invalidate(id);
+        return true;
     }
 
     @Override
-    public boolean updateNote(UUID id, String note) {
-        if (repository.updateNote(id, note) == 0) {
-            log.error("Unexisted Paymnent with id {} could not be updated", id);
+    public boolean updateStatus(UUID id, PaymentStatus status) {
+        Optional<PaymentSnapshot> previous = repository.transitionStatus(id, status, OffsetDateTime.now());
+        if (previous.isPresent()) {
+            statsService.changed(previous.get(), previous.get().withStatus(status));
+            invalidate(id);
+            return true;
+        }
+        if (!repository.existsByGuid(id)) {
             throw new ServiceException(PAYMENT_NOT_EXIST, id);
         }
-        return true;
+        log.debug("Payment {} status was not changed to {}: transition not allowed", id, status);
+        return false;
     }
 
     @Override
-    public PaymentDto updateStatus(UUID id, PaymentStatus status) {
-        Payment payment = repository.findById(id)
-                                    .orElseThrow(() -> new ServiceException(PAYMENT_NOT_EXIST, id));
-        payment.setStatus(status);
-        payment.setUpdatedAt(OffsetDateTime.now());
-        return converter.convert(repository.save(payment));
+    public StatusUpdateResult updateStatuses(Map<UUID, PaymentStatus> statuses) {
+        StatusUpdateResult result = repository.updateStatuses(statuses, OffsetDateTime.now());
+        for (PaymentSnapshot previous : result.updated()) {
+            statsService.changed(previous, previous.withStatus(statuses.get(previous.guid())));
+            invalidate(previous.guid());
+        }
+        return result;
     }
 
+    @Transactional(readOnly = true)
     public List<PaymentDto> search(PaymentFilter filter) {
         Specification<Payment> spec = PaymentFilterFactory.fromFilter(filter);
         return converter.convert(repository.findAll(spec));
     }
 
+    @Transactional(readOnly = true)
     public Page<PaymentDto> searchPaged(PaymentFilter filter, Pageable pageable) {
         Specification<Payment> spec = PaymentFilterFactory.fromFilter(filter);
         Page<Payment> page = repository.findAll(spec, pageable);
         return page.map(converter::convert);
     }
 
+    @Transactional(readOnly = true)
     public Page<PaymentDto> searchQPaged(QPaymentFilter filter) {
-        Page<Payment> page = repository.findAll(filter.createPredicate(),
-                                                filter.createPageable());
-        return page.map(converter::convert);
+        Predicate predicate = filter.createPredicate();
+        Pageable pageable = filter.createPageable();
+        List<PaymentDto> content = converter.convertRows(repository.findRows(predicate, pageable.getSort(),
+                                                                             pageable.getOffset(),
+                                                                             pageable.getPageSize()));
+        return PageableExecutionUtils.getPage(content, pageable, () -> repository.count(predicate));
+    }
+
+    @Transactional(readOnly = true)
+    public SlicePage<PaymentDto> searchSliced(PaymentFilter filter, Pageable pageable) {
+        Specification<Payment> spec = PaymentFilterFactory.fromFilter(filter);
+        Slice<Payment> slice = repository.findBy(spec, query -> query.slice(pageable));
+        return SlicePage.of(slice.map(converter::convert), null);
+    }
+
+    @Transactional(readOnly = true)
+    public SlicePage<PaymentDto> searchQSliced(QPaymentFilter filter, boolean withTotal) {
+        Pageable pageable = filter.createPageable();
+        List<PaymentRow> rows = repository.findRows(filter.createPredicate(), pageable.getSort(),
+                                                    pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<PaymentDto> content = converter.convertRows(hasNext ? rows.subList(0, pageable.getPageSize()) : rows);
+        Long total = withTotal ? countCache.count(filter) : null;
+        return SlicePage.of(new SliceImpl<>(content, pageable, hasNext), total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PaymentDto> searchQKeyset(QPaymentFilter filter) {
+        int pageSize = filter.checkedPageSize();
+        List<QPaymentFilter.SortKey> keys = filter.createSortKeys();
+        List<Payment> rows = repository.findBy(filter.createKeysetPredicate(keys),
+                                               query -> query.sortBy(filter.createKeysetSort(keys))
+                                                             .limit(pageSize + 1)
+                                                             .all());
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(converter.convert(rows), null);
+        }
+        List<Payment> page = rows.subList(0, pageSize);
+        return new CursorPage<>(converter.convert(page), filter.nextCursor(keys, page.getLast()));
+    }
+
+    /**
+     * Reads the payment in a read-only transaction, which a replica may serve.
+     * A payment invalidated within the last seconds is read in a read-write
+     * transaction on the primary instead: the replica could still return the
+     * row as it was before that change, and nothing would invalidate it again.
+     */
+    private Optional<PaymentDto> load(UUID id) {
+        TransactionTemplate transaction = cache.changedRecently(id) ? primaryTransaction : readOnlyTransaction;
+        return transaction.execute(status -> repository.findByGuid(id)
+                                                       .map(converter::convert));
+    }
+
+    /**
+     * Drops the cached payment once the current transaction, if any, completes,
+     * so a concurrent lookup cannot cache the row as it was before the change.
+     */
+    private void invalidate(UUID id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.invalidate(id);
+            }
+        });
     }
 }
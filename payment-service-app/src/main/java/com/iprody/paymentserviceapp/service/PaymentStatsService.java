@@ -0,0 +1,36 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentStatsDto;
+import com.iprody.paymentserviceapp.persistence.PaymentStatsFilter;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentSnapshot;
+
+import java.util.List;
+
+public interface PaymentStatsService {
+
+    /**
+     * Payment count, amount sum and amount range per currency, status and
+     * time bucket. Reads the checkpointed statistics and the changes made by
+     * this instance since, so changes made by other instances show up after
+     * their next checkpoint.
+     */
+    List<PaymentStatsDto> find(PaymentStatsFilter filter);
+
+    /**
+     * Counts a new payment once the current transaction, if any, commits.
+     */
+    void added(PaymentSnapshot payment);
+
+    /**
+     * Moves a payment between statistics buckets once the current transaction, if any, commits.
+     *
+     * @param previous the payment before the change
+     * @param current  the payment after the change
+     */
+    void changed(PaymentSnapshot previous, PaymentSnapshot current);
+
+    /**
+     * Stops counting a deleted payment once the current transaction, if any, commits.
+     */
+    void removed(PaymentSnapshot payment);
+}
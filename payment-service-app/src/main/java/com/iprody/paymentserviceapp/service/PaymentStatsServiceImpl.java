@@ -0,0 +1,297 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentStatsDto;
+import com.iprody.paymentserviceapp.persistence.PaymentStatsFilter;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.model.StatsGranularity;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentSnapshot;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentStatsRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentStatsRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Payment statistics maintained incrementally instead of aggregated from
+ * the payment table on every read.
+ *
+ * <p>
+ * Every committed create, status change, update and delete adjusts the cell
+ * of its currency, status and hour of {@code created_at}. Cells are
+ * {@link LongAdder}s, so concurrent writers rarely contend. Every
+ * {@code checkpointInterval} the accumulated changes are drained and added
+ * to the payment_stats table in one transaction; on failure they are put
+ * back and retried with the next checkpoint. A cell with nothing to drain is
+ * removed from the map and drained once more on the next checkpoint, which
+ * picks up a change made by a writer that got hold of it just before.
+ *
+ * <p>
+ * Changes made since the last checkpoint are lost if the process dies
+ * without a graceful shutdown.
+ */
+@Slf4j
+@Service
+public class PaymentStatsServiceImpl implements PaymentStatsService {
+
+    private static final int AMOUNT_SCALE = 2;
+    private static final Comparator<PaymentStatsDto> ORDER = Comparator
+            .comparing(PaymentStatsDto::bucket, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(PaymentStatsDto::currency)
+            .thenComparing(PaymentStatsDto::status);
+
+    private final PaymentStatsRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatsProperties properties;
+    private final Map<CellKey, Cell> cells = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("payment-stats-checkpoint").daemon().factory());
+    private final Timer checkpointTimer;
+    private final Counter failed;
+
+    private volatile List<Cell> retired = List.of();
+
+    public PaymentStatsServiceImpl(PaymentStatsRepository repository,
+                                   PlatformTransactionManager transactionManager,
+                                   StatsProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.checkpointTimer = Timer.builder("payment.stats.checkpoint")
+                                    .description("Time spent writing accumulated statistics changes")
+                                    .register(meterRegistry);
+        this.failed = meterRegistry.counter("payment.stats.checkpoint.failures");
+        Gauge.builder("payment.stats.cells", cells, Map::size)
+             .description("Statistics cells changed since the last checkpoint or still active")
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = properties.checkpointInterval().toMillis();
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        checkpointer.shutdown();
+        if (checkpointer.awaitTermination(5, TimeUnit.SECONDS)) {
+            checkpoint();
+        } else {
+            log.warn("Payment statistics were not checkpointed before shutdown");
+        }
+    }
+
+    @Override
+    public List<PaymentStatsDto> find(PaymentStatsFilter filter) {
+        StatsGranularity granularity = filter.getGranularity();
+        Map<CellKey, Totals> totals = new HashMap<>();
+        for (PaymentStatsRow row : repository.find(filter)) {
+            totals.computeIfAbsent(new CellKey(row.bucket(), row.currency(), row.status()), key -> new Totals())
+                  .add(row);
+        }
+        List<Cell> pending = new ArrayList<>(cells.values());
+        pending.addAll(retired);
+        for (Cell cell : pending) {
+            CellKey key = cell.key;
+            if (filter.includes(key.bucket(), key.currency(), key.status())) {
+                CellKey rolledUp = new CellKey(granularity.truncate(key.bucket()), key.currency(), key.status());
+                totals.computeIfAbsent(rolledUp, k -> new Totals()).add(cell.peek());
+            }
+        }
+        List<PaymentStatsDto> result = new ArrayList<>(totals.size());
+        totals.forEach((key, value) -> {
+            if (value.count != 0 || value.amountMinor != 0) {
+                result.add(value.toDto(key));
+            }
+        });
+        result.sort(ORDER);
+        return result;
+    }
+
+    @Override
+    public void added(PaymentSnapshot payment) {
+        afterCommit(() -> apply(payment, 1));
+    }
+
+    @Override
+    public void changed(PaymentSnapshot previous, PaymentSnapshot current) {
+        afterCommit(() -> {
+            apply(previous, -1);
+            apply(current, 1);
+        });
+    }
+
+    @Override
+    public void removed(PaymentSnapshot payment) {
+        afterCommit(() -> apply(payment, -1));
+    }
+
+    /**
+     * Adds the changes accumulated since the previous run to the
+     * payment_stats table. Runs on the checkpoint thread only.
+     */
+    void checkpoint() {
+        List<PaymentStatsRow> changes = new ArrayList<>();
+        for (Cell cell : retired) {
+            cell.drainTo(changes);
+        }
+        List<Cell> idle = new ArrayList<>();
+        for (Cell cell : cells.values()) {
+            if (!cell.drainTo(changes) && cells.remove(cell.key, cell)) {
+                idle.add(cell);
+            }
+        }
+        retired = idle;
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            checkpointTimer.record(() -> transactionTemplate.executeWithoutResult(status -> repository.add(changes)));
+            log.debug("Checkpointed {} payment statistics change(s)", changes.size());
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Could not checkpoint {} payment statistics change(s), retrying later", changes.size(), e);
+            changes.forEach(change -> cell(change.bucket(), change.currency(), change.status()).add(change));
+        }
+    }
+
+    private void apply(PaymentSnapshot payment, int sign) {
+        long amountMinor = payment.amount().movePointRight(AMOUNT_SCALE).longValue();
+        Cell cell = cell(payment.createdAt().toInstant().truncatedTo(ChronoUnit.HOURS), payment.currency(),
+                         payment.status());
+        cell.count.add(sign);
+        cell.amountMinor.add(sign * amountMinor);
+        if (sign > 0) {
+            cell.min.accumulate(amountMinor);
+            cell.max.accumulate(amountMinor);
+        }
+    }
+
+    private Cell cell(Instant bucket, String currency, PaymentStatus status) {
+        return cells.computeIfAbsent(new CellKey(bucket, currency, status), Cell::new);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static BigDecimal amount(Long minor) {
+        return minor == null ? null : BigDecimal.valueOf(minor, AMOUNT_SCALE);
+    }
+
+    private record CellKey(Instant bucket, String currency, PaymentStatus status) {
+
+    }
+
+    /**
+     * Changes of one hourly bucket, currency and status since the last checkpoint.
+     */
+    private static final class Cell {
+
+        private final CellKey key;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder amountMinor = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        Cell(CellKey key) {
+            this.key = key;
+        }
+
+        void add(PaymentStatsRow change) {
+            count.add(change.count());
+            amountMinor.add(change.amountMinor());
+            if (change.minAmountMinor() != null) {
+                min.accumulate(change.minAmountMinor());
+            }
+            if (change.maxAmountMinor() != null) {
+                max.accumulate(change.maxAmountMinor());
+            }
+        }
+
+        PaymentStatsRow peek() {
+            return row(count.sum(), amountMinor.sum(), min.get(), max.get());
+        }
+
+        /**
+         * Moves the accumulated change to the list and resets the cell.
+         *
+         * @return {@code false} if there was nothing to move
+         */
+        boolean drainTo(List<PaymentStatsRow> changes) {
+            PaymentStatsRow change = row(count.sumThenReset(), amountMinor.sumThenReset(),
+                                         min.getThenReset(), max.getThenReset());
+            if (change.count() == 0 && change.amountMinor() == 0 && change.minAmountMinor() == null) {
+                return false;
+            }
+            changes.add(change);
+            return true;
+        }
+
+        private PaymentStatsRow row(long countDelta, long amountDelta, long minimum, long maximum) {
+            return new PaymentStatsRow(key.bucket(), key.currency(), key.status(), countDelta, amountDelta,
+                                       minimum == Long.MAX_VALUE ? null : minimum,
+                                       maximum == Long.MIN_VALUE ? null : maximum);
+        }
+    }
+
+    private static final class Totals {
+
+        private long count;
+        private long amountMinor;
+        private Long min;
+        private Long max;
+
+        void add(PaymentStatsRow row) {
+            count += row.count();
+            amountMinor += row.amountMinor();
+            if (row.minAmountMinor() != null) {
+                min = min == null ? row.minAmountMinor() : Math.min(min, row.minAmountMinor());
+            }
+            if (row.maxAmountMinor() != null) {
+                max = max == null ? row.maxAmountMinor() : Math.max(max, row.maxAmountMinor());
+            }
+        }
+
+        PaymentStatsDto toDto(CellKey key) {
+            return new PaymentStatsDto(key.bucket() == null ? null : key.bucket().atOffset(ZoneOffset.UTC),
+                                       key.currency(), key.status(), count, amount(amountMinor), amount(min),
+                                       amount(max));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.iprody.paymentserviceapp.service;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ExportProperties.class, CountProperties.class, BatchProperties.class,
+                                PartitionProperties.class, CacheProperties.class, StatsProperties.class})
+public class ServiceConfig {
+
+}
@@ -0,0 +1,18 @@
+package com.iprody.paymentserviceapp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of incrementally maintained payment statistics.
+ *
+ * @param checkpointInterval pause between writes of accumulated changes to the payment_stats table
+ */
+@ConfigurationProperties(prefix = "payment.stats")
+public record StatsProperties(
+        @DefaultValue("10s") Duration checkpointInterval
+) {
+
+}
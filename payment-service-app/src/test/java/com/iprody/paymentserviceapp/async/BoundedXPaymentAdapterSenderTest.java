@@ -0,0 +1,111 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedXPaymentAdapterSenderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("send() should fail with 503 when the queue is full and policy is FAIL")
+    void send_FailsFastWhenFull() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AsyncSender<XPaymentAdapterRequestMessage> delegate = message -> {
+            started.countDown();
+            awaitQuietly(release);
+        };
+        BoundedXPaymentAdapterSender sender = sender(delegate, OverflowPolicy.FAIL);
+        sender.send(request());
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        sender.send(request());
+        sender.send(request());
+
+        // when / then
+        assertThatThrownBy(() -> sender.send(request()))
+                .isInstanceOf(ServiceException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("payment.async.sender.rejected").counter().count()).isEqualTo(1);
+        release.countDown();
+        sender.close();
+    }
+
+    @Test
+    @DisplayName("send() should spill overflow to disk and deliver everything in order")
+    void send_SpillsOverflowAndPreservesOrder() throws Exception {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        List<UUID> delivered = new CopyOnWriteArrayList<>();
+        AsyncSender<XPaymentAdapterRequestMessage> delegate = message -> {
+            awaitQuietly(release);
+            delivered.add(message.getPaymentGuid());
+            done.countDown();
+        };
+        BoundedXPaymentAdapterSender sender = sender(delegate, OverflowPolicy.SPILL);
+        List<UUID> sent = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            XPaymentAdapterRequestMessage request = request();
+            sent.add(request.getPaymentGuid());
+            sender.send(request);
+        }
+        release.countDown();
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(delivered).containsExactlyElementsOf(sent);
+        assertThat(meterRegistry.get("payment.async.sender.spilled").counter().count()).isPositive();
+        sender.close();
+    }
+
+    private BoundedXPaymentAdapterSender sender(AsyncSender<XPaymentAdapterRequestMessage> delegate,
+                                                OverflowPolicy policy) {
+        SenderProperties properties = new SenderProperties(2, policy, Duration.ofMillis(100),
+                                                           directory.resolve("requests.spill"));
+        return new BoundedXPaymentAdapterSender(delegate, properties, meterRegistry);
+    }
+
+    private XPaymentAdapterRequestMessage request() {
+        XPaymentAdapterRequestMessage request = new XPaymentAdapterRequestMessage();
+        request.setPaymentGuid(UUID.randomUUID());
+        request.setAmount(new BigDecimal("10.00"));
+        request.setCurrency("USD");
+        request.setOccurredAt(OffsetDateTime.now());
+        return request;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringUuidSetTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("add() should return false for an id already seen within the window")
+    void add_ReturnsFalse_ForDuplicate() {
+        // given
+        ExpiringUuidSet set = new ExpiringUuidSet(16, Duration.ofSeconds(10), clock::get);
+        UUID id = UUID.randomUUID();
+
+        // when & then
+        assertThat(set.add(id)).isTrue();
+        assertThat(set.add(new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits()))).isFalse();
+        assertThat(set.add(UUID.randomUUID())).isTrue();
+        assertThat(set.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("add() should remember an id for at least half of the window")
+    void add_RemembersIdAcrossOneGeneration() {
+        // given
+        ExpiringUuidSet set = new ExpiringUuidSet(16, Duration.ofSeconds(10), clock::get);
+        UUID id = UUID.randomUUID();
+        set.add(id);
+
+        // when
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        // then
+        assertThat(set.add(id)).isFalse();
+    }
+
+    @Test
+    @DisplayName("add() should forget an id once the whole window has passed")
+    void add_ForgetsIdAfterWindow() {
+        // given
+        ExpiringUuidSet set = new ExpiringUuidSet(16, Duration.ofSeconds(10), clock::get);
+        UUID id = UUID.randomUUID();
+        set.add(id);
+
+        // when
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // then
+        assertThat(set.add(id)).isTrue();
+    }
+
+    @Test
+    @DisplayName("add() should keep memory bounded by evicting the oldest generation")
+    void add_EvictsOldestGeneration_WhenFull() {
+        // given
+        ExpiringUuidSet set = new ExpiringUuidSet(4, Duration.ofHours(1), clock::get);
+        UUID first = UUID.randomUUID();
+        set.add(first);
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            set.add(UUID.randomUUID());
+        }
+
+        // then
+        assertThat(set.size()).isLessThanOrEqualTo(8);
+        assertThat(set.add(first)).isTrue();
+    }
+
+    @Test
+    @DisplayName("add() should always accept the nil UUID")
+    void add_AcceptsNilUuid() {
+        // given
+        ExpiringUuidSet set = new ExpiringUuidSet(4, Duration.ofHours(1), clock::get);
+        UUID nil = new UUID(0, 0);
+
+        // when & then
+        assertThat(set.add(nil)).isTrue();
+        assertThat(set.add(nil)).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimingWheelTest {
+
+    private final HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(5), 8, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    @DisplayName("schedule() should run tasks after their delay, including delays longer than one rotation")
+    void schedule_RunsTasksAfterDelay() throws InterruptedException {
+        // given
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+
+        // when
+        wheel.schedule(() -> {
+            fired.add(100);
+            latch.countDown();
+        }, 100, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> {
+            fired.add(0);
+            latch.countDown();
+        }, 0, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> {
+            fired.add(20);
+            latch.countDown();
+        }, 20, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(fired).containsExactly(0, 20, 100);
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("cancel() should prevent a pending task from running")
+    void cancel_PreventsExecution() throws InterruptedException {
+        // given
+        CountDownLatch cancelledRan = new CountDownLatch(1);
+        CountDownLatch marker = new CountDownLatch(1);
+        HashedTimingWheel.Timeout timeout = wheel.schedule(cancelledRan::countDown, 30, TimeUnit.MILLISECONDS);
+        wheel.schedule(marker::countDown, 60, TimeUnit.MILLISECONDS);
+
+        // when
+        boolean cancelled = timeout.cancel();
+
+        // then
+        assertThat(cancelled).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(marker.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(cancelledRan.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a failing task should not stop the wheel from running later tasks")
+    void schedule_SurvivesFailingTask() throws InterruptedException {
+        // given
+        CountDownLatch marker = new CountDownLatch(1);
+        wheel.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, 0, TimeUnit.MILLISECONDS);
+
+        // when
+        wheel.schedule(marker::countDown, 20, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(marker.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(wheel.pending()).isZero();
+    }
+}
@@ -0,0 +1,224 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.exception.ErrorMessage;
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class MessageRetrierTest {
+
+    @Mock
+    private MessageHandler<XPaymentAdapterResponseMessage> handler;
+
+    @Mock
+    private PartitionedDispatcher dispatcher;
+
+    @Mock
+    private HashedTimingWheel scheduler;
+
+    @Mock
+    private DeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private StatusUpdateBatcher statusUpdateBatcher;
+
+    @Mock
+    private ResponseAcknowledger acknowledger;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MessageRetrier retrier;
+
+    @BeforeEach
+    void setUp() {
+        RetryProperties properties = new RetryProperties(3, Duration.ofMillis(100), Duration.ofMillis(250), 2.0, 0.5,
+                                                         Duration.ofMinutes(5));
+        retrier = new MessageRetrier(handler, dispatcher, scheduler, deadLetterRepository, statusUpdateBatcher,
+                                     acknowledger, properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("failed handling should be retried on the timer until max attempts, then dead-lettered")
+    void process_RetriesThenDeadLetters() {
+        // given
+        XPaymentAdapterResponseMessage message = message();
+        doThrow(new ServiceException(ErrorMessage.PAYMENT_NOT_EXIST, message.getPaymentGuid()))
+                .when(handler).handle(message);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(dispatcher).dispatch(eq(message.getPaymentGuid()), any());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(scheduler).schedule(any(), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        // when
+        retrier.submit(message);
+
+        // then
+        verify(handler, times(3)).handle(message);
+        verify(deadLetterRepository).add(eq(message), eq(3), anyString());
+        verify(acknowledger).acknowledge(message);
+        assertThat(meterRegistry.get("payment.async.retry").tag("outcome", "scheduled").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("payment.async.dlq.depth").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a replayed message that fails again should update its dead-letter record instead of adding one")
+    void process_KeepsDeadLetterRecord_WhenReplayFailsAgain() {
+        // given
+        XPaymentAdapterResponseMessage message = message();
+        message.setDeliveryAttempt(3);
+        message.setDeadLetterId(42L);
+        doThrow(new ServiceException(ErrorMessage.PAYMENT_NOT_EXIST, message.getPaymentGuid()))
+                .when(handler).handle(message);
+
+        // when
+        retrier.process(message);
+
+        // then
+        verify(deadLetterRepository).failedAgain(eq(42L), eq(3), anyString());
+        verify(deadLetterRepository, never()).add(any(), anyInt(), any());
+        verify(acknowledger).acknowledge(message);
+        assertThat(message.getDeadLetterId()).isNull();
+    }
+
+    @Test
+    @DisplayName("successful retry should be counted as recovered and not dead-lettered")
+    void process_CountsRecovery() {
+        // given
+        XPaymentAdapterResponseMessage message = message();
+        message.setDeliveryAttempt(2);
+
+        // when
+        retrier.process(message);
+
+        // then
+        verify(deadLetterRepository, never()).add(any(), anyInt(), any());
+        assertThat(meterRegistry.get("payment.async.retry").tag("outcome", "recovered").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a later status of the payment should wait until its earlier message is retried")
+    void submit_HoldsLaterMessages_UntilRetrySucceeds() {
+        // given
+        XPaymentAdapterResponseMessage processing = message();
+        XPaymentAdapterResponseMessage succeeded = message(processing.getPaymentGuid(),
+                                                           XPaymentAdapterStatus.SUCCEEDED);
+        doThrow(new ServiceException(ErrorMessage.PAYMENT_NOT_EXIST, processing.getPaymentGuid()))
+                .doNothing()
+                .when(handler).handle(processing);
+        runDispatchedTasks();
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+
+        // when
+        retrier.submit(processing);
+        retrier.submit(succeeded);
+
+        // then
+        verify(handler, never()).handle(succeeded);
+        verify(scheduler).schedule(retry.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        // when
+        retry.getValue().run();
+
+        // then
+        InOrder order = inOrder(handler);
+        order.verify(handler, times(2)).handle(processing);
+        order.verify(handler).handle(succeeded);
+    }
+
+    @Test
+    @DisplayName("held messages should be processed in order once the failing one is dead-lettered")
+    void submit_ReleasesHeldMessages_WhenRetriesAreExhausted() {
+        // given
+        XPaymentAdapterResponseMessage processing = message();
+        XPaymentAdapterResponseMessage canceled = message(processing.getPaymentGuid(),
+                                                          XPaymentAdapterStatus.CANCELED);
+        XPaymentAdapterResponseMessage succeeded = message(processing.getPaymentGuid(),
+                                                           XPaymentAdapterStatus.SUCCEEDED);
+        doThrow(new ServiceException(ErrorMessage.PAYMENT_NOT_EXIST, processing.getPaymentGuid()))
+                .when(handler).handle(processing);
+        runDispatchedTasks();
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+
+        // when
+        retrier.submit(processing);
+        retrier.submit(canceled);
+        retrier.submit(succeeded);
+        verify(scheduler).schedule(retry.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        retry.getValue().run();
+        verify(scheduler, times(2)).schedule(retry.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        retry.getValue().run();
+
+        // then
+        InOrder order = inOrder(handler, deadLetterRepository);
+        order.verify(handler, times(3)).handle(processing);
+        order.verify(deadLetterRepository).add(eq(processing), eq(3), anyString());
+        order.verify(handler).handle(canceled);
+        order.verify(handler).handle(succeeded);
+    }
+
+    @Test
+    @DisplayName("backoffNanos() should grow exponentially, respect the cap and apply jitter")
+    void backoffNanos_GrowsWithJitterAndCap() {
+        // when
+        List<Long> first = List.of(retrier.backoffNanos(1), retrier.backoffNanos(1), retrier.backoffNanos(1));
+        long capped = retrier.backoffNanos(10);
+
+        // then
+        assertThat(first).allSatisfy(backoff -> assertThat(backoff)
+                .isBetween(TimeUnit.MILLISECONDS.toNanos(50), TimeUnit.MILLISECONDS.toNanos(100)));
+        assertThat(capped).isBetween(TimeUnit.MILLISECONDS.toNanos(125), TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    private void runDispatchedTasks() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(dispatcher).dispatch(any(), any());
+    }
+
+    private XPaymentAdapterResponseMessage message() {
+        return message(UUID.randomUUID(), XPaymentAdapterStatus.PROCESSING);
+    }
+
+    private XPaymentAdapterResponseMessage message(UUID paymentGuid, XPaymentAdapterStatus status) {
+        XPaymentAdapterResponseMessage message = new XPaymentAdapterResponseMessage();
+        message.setMessageGuid(UUID.randomUUID());
+        message.setPaymentGuid(paymentGuid);
+        message.setStatus(status);
+        return message;
+    }
+}
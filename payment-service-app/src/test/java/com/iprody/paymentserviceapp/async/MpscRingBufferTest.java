@@ -0,0 +1,73 @@
+package com.iprody.paymentserviceapp.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MpscRingBufferTest {
+
+    @Test
+    @DisplayName("offer() should reject elements once the buffer is full")
+    void offer_RejectsWhenFull() {
+        // given
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        // then
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(4)).isTrue();
+    }
+
+    @Test
+    @DisplayName("poll() should see every element from concurrent producers in per-producer order")
+    void poll_ReceivesAllElementsFromConcurrentProducers() throws InterruptedException {
+        // given
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(256);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        // when
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            executor.execute(() -> {
+                for (long seq = 0; seq < perProducer; seq++) {
+                    long[] element = {producer, seq};
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        List<long[]> received = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+            long[] element = buffer.poll();
+            if (element != null) {
+                received.add(element);
+            }
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(received).hasSize(producers * perProducer);
+        long[] expected = new long[producers];
+        for (long[] element : received) {
+            assertThat(element[1]).isEqualTo(expected[(int) element[0]]++);
+        }
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,125 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.exception.ErrorMessage;
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository.OutboxEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.instancio.Instancio.create;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private PaymentOutboxRepository outboxRepository;
+
+    @Mock
+    private AsyncSender<XPaymentAdapterRequestMessage> sender;
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxRepository, sender,
+                                new OutboxProperties(true, 3, Duration.ofMillis(100), LEASE), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("poll() should keep relaying full batches and leave sent records to the acknowledgement")
+    void poll_RelaysUntilOutboxIsDrained() {
+        // given
+        when(outboxRepository.claimBatch(3, LEASE)).thenReturn(entries(1, 2, 3), entries(4));
+
+        // when
+        relay.poll();
+
+        // then
+        verify(sender, times(4)).send(any());
+        verify(outboxRepository, times(2)).claimBatch(anyInt(), eq(LEASE));
+        verify(outboxRepository, times(2)).release(List.of());
+        verify(outboxRepository, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("relayBatch() should release unsent records when the sender rejects")
+    void relayBatch_StopsOnRejection() {
+        // given
+        List<OutboxEntry> batch = entries(1, 2, 3);
+        when(outboxRepository.claimBatch(3, LEASE)).thenReturn(batch);
+        doNothing().when(sender).send(batch.get(0).message());
+        doThrow(new ServiceException(ErrorMessage.ADAPTER_QUEUE_FULL)).when(sender).send(batch.get(1).message());
+
+        // when
+        int sent = relay.relayBatch();
+
+        // then
+        assertThat(sent).isEqualTo(1);
+        verify(outboxRepository).release(List.of(2L, 3L));
+        verify(outboxRepository, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("relayBatch() should keep a record leased when the send queue dies before delivering it")
+    void relayBatch_KeepsRecord_WhenQueuedMessageIsLost() throws Exception {
+        // given
+        CountDownLatch consumerAlive = new CountDownLatch(1);
+        AsyncSender<XPaymentAdapterRequestMessage> broker = message -> {
+            try {
+                consumerAlive.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("consumer killed");
+        };
+        SenderProperties senderProperties = new SenderProperties(4, OverflowPolicy.FAIL, Duration.ofMillis(100),
+                                                                 Path.of("unused.spill"));
+        List<OutboxEntry> batch = entries(1);
+        when(outboxRepository.claimBatch(3, LEASE)).thenReturn(batch);
+        try (BoundedXPaymentAdapterSender queue = new BoundedXPaymentAdapterSender(broker, senderProperties,
+                                                                                 new SimpleMeterRegistry())) {
+            relay = new OutboxRelay(outboxRepository, queue,
+                                    new OutboxProperties(true, 3, Duration.ofMillis(100), LEASE),
+                                    new SimpleMeterRegistry());
+
+            // when
+            int sent = relay.relayBatch();
+            consumerAlive.countDown();
+
+            // then
+            assertThat(sent).isEqualTo(1);
+            verify(outboxRepository).release(List.of());
+            verify(outboxRepository, never()).delete(any());
+        }
+    }
+
+    private List<OutboxEntry> entries(long... ids) {
+        return LongStream.of(ids)
+                         .mapToObj(id -> new OutboxEntry(id, create(XPaymentAdapterRequestMessage.class)))
+                         .toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.iprody.paymentserviceapp.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionedDispatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PartitionedDispatcher dispatcher = new PartitionedDispatcher(new DispatchProperties(4),
+                                                                               meterRegistry, false);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("dispatch() should run tasks of the same key in submission order")
+    void dispatch_PreservesOrderPerKey() throws InterruptedException {
+        // given
+        int keys = 50;
+        int tasksPerKey = 200;
+        Map<UUID, List<Integer>> executed = new ConcurrentHashMap<>();
+        List<UUID> guids = new ArrayList<>();
+        for (int i = 0; i < keys; i++) {
+            UUID guid = UUID.randomUUID();
+            guids.add(guid);
+            executed.put(guid, new ArrayList<>());
+        }
+        CountDownLatch done = new CountDownLatch(keys * tasksPerKey);
+
+        // when
+        for (int seq = 0; seq < tasksPerKey; seq++) {
+            for (UUID guid : guids) {
+                int value = seq;
+                dispatcher.dispatch(guid, () -> {
+                    executed.get(guid).add(value);
+                    done.countDown();
+                });
+            }
+        }
+
+        // then
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        for (UUID guid : guids) {
+            assertThat(executed.get(guid)).hasSize(tasksPerKey).isSorted();
+        }
+    }
+
+    @Test
+    @DisplayName("dispatch() should keep processing after a failing task and expose per-partition meters")
+    void dispatch_SurvivesFailureAndRecordsMetrics() throws InterruptedException {
+        // given
+        UUID guid = UUID.randomUUID();
+        CountDownLatch done = new CountDownLatch(1);
+
+        // when
+        dispatcher.dispatch(guid, () -> {
+            throw new IllegalStateException("boom");
+        });
+        dispatcher.dispatch(guid, done::countDown);
+
+        // then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.find("payment.async.dispatch.queue.depth").gauges()).hasSize(4);
+        long recorded = meterRegistry.find("payment.async.dispatch.lag").timers().stream()
+                                     .mapToLong(timer -> timer.count())
+                                     .sum();
+        assertThat(recorded).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("dispatch() should run tasks on virtual threads when they are enabled")
+    void dispatch_RunsOnVirtualThreads() throws Exception {
+        // given
+        PartitionedDispatcher virtual = new PartitionedDispatcher(new DispatchProperties(2),
+                                                                  new SimpleMeterRegistry(), true);
+        CompletableFuture<Thread> worker = new CompletableFuture<>();
+
+        // when
+        virtual.dispatch(UUID.randomUUID(), () -> worker.complete(Thread.currentThread()));
+
+        // then
+        try {
+            assertThat(worker.get(5, TimeUnit.SECONDS))
+                    .satisfies(thread -> assertThat(thread.isVirtual()).isTrue())
+                    .extracting(Thread::getName)
+                    .asString()
+                    .startsWith("adapter-dispatch-");
+        } finally {
+            virtual.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.async.journal.MessageJournal;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseAcknowledgerTest {
+
+    @Mock
+    private MessageJournal journal;
+
+    @Mock
+    private PaymentOutboxRepository outboxRepository;
+
+    @Mock
+    private DeadLetterRepository deadLetterRepository;
+
+    private ResponseAcknowledger acknowledger;
+
+    @BeforeEach
+    void setUp() {
+        acknowledger = new ResponseAcknowledger(journal, outboxRepository, deadLetterRepository);
+    }
+
+    @Test
+    @DisplayName("acknowledge() should delete the outbox request once its final response is stored")
+    void acknowledge_DeletesOutboxRecord_WhenStatusIsTerminal() {
+        // given
+        XPaymentAdapterResponseMessage message = message(XPaymentAdapterStatus.SUCCEEDED);
+
+        // when
+        acknowledger.acknowledge(message);
+
+        // then
+        verify(journal).appendResponse(message);
+        verify(outboxRepository).delete(message.getPaymentGuid());
+    }
+
+    @Test
+    @DisplayName("acknowledge() should keep the outbox request until the final response arrives")
+    void acknowledge_KeepsOutboxRecord_WhenStatusIsProcessing() {
+        // given
+        XPaymentAdapterResponseMessage message = message(XPaymentAdapterStatus.PROCESSING);
+
+        // when
+        acknowledger.acknowledge(message);
+
+        // then
+        verify(journal).appendResponse(message);
+        verify(outboxRepository, never()).delete(any());
+        verify(deadLetterRepository, never()).delete(anyLong());
+    }
+
+    @Test
+    @DisplayName("acknowledge() should delete the dead-letter record of a replayed message")
+    void acknowledge_DeletesDeadLetterRecord_WhenMessageWasReplayed() {
+        // given
+        XPaymentAdapterResponseMessage message = message(XPaymentAdapterStatus.PROCESSING);
+        message.setDeadLetterId(42L);
+
+        // when
+        acknowledger.acknowledge(message);
+
+        // then
+        verify(journal).appendResponse(message);
+        verify(deadLetterRepository).delete(42L);
+    }
+
+    private static XPaymentAdapterResponseMessage message(XPaymentAdapterStatus status) {
+        XPaymentAdapterResponseMessage message = new XPaymentAdapterResponseMessage();
+        message.setMessageGuid(UUID.randomUUID());
+        message.setPaymentGuid(UUID.randomUUID());
+        message.setStatus(status);
+        return message;
+    }
+}
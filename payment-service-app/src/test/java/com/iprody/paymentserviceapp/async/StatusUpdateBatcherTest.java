@@ -0,0 +1,188 @@
+package com.iprody.paymentserviceapp.async;
+
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.repository.StatusUpdateResult;
+import com.iprody.paymentserviceapp.service.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StatusUpdateBatcherTest {
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private ResponseAcknowledger acknowledger;
+
+    @Captor
+    private ArgumentCaptor<Map<UUID, PaymentStatus>> batchCaptor;
+
+    private MeterRegistry meterRegistry;
+
+    private StatusUpdateBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        batcher = new StatusUpdateBatcher(new StatusBatchProperties(true, Duration.ofMinutes(1), 2),
+                                          paymentService,
+                                          acknowledger,
+                                          meterRegistry);
+    }
+
+    @Test
+    @DisplayName("flush() should write only the latest status per payment")
+    void flush_WritesLatestStatusPerPayment() {
+        // given
+        UUID guid = UUID.randomUUID();
+        OffsetDateTime now = OffsetDateTime.now();
+        when(paymentService.updateStatuses(any())).thenReturn(StatusUpdateResult.EMPTY);
+
+        batcher.submit(guid, PaymentStatus.PENDING, now);
+        batcher.submit(guid, PaymentStatus.APPROVED, now.plusSeconds(20));
+        batcher.submit(guid, PaymentStatus.PENDING, now.plusSeconds(10));
+
+        // when
+        batcher.flush();
+
+        // then
+        verify(paymentService, times(1)).updateStatuses(batchCaptor.capture());
+        assertThat(batchCaptor.getValue()).containsExactly(Map.entry(guid, PaymentStatus.APPROVED));
+        assertThat(meterRegistry.counter("payment.status.batch.coalesced").count()).isEqualTo(2);
+        assertThat(meterRegistry.timer("payment.status.batch.flush").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("flush() should split pending updates into batches of maxBatchSize")
+    void flush_SplitsIntoBatches() {
+        // given
+        when(paymentService.updateStatuses(any())).thenReturn(StatusUpdateResult.EMPTY);
+        for (int i = 0; i < 3; i++) {
+            batcher.submit(UUID.randomUUID(), PaymentStatus.PENDING, OffsetDateTime.now());
+        }
+
+        // when
+        batcher.flush();
+
+        // then
+        verify(paymentService, times(2)).updateStatuses(batchCaptor.capture());
+        assertThat(batchCaptor.getAllValues()).extracting(Map::size).containsExactlyInAnyOrder(2, 1);
+    }
+
+    @Test
+    @DisplayName("flush() should hand updates for missing payments to the not-applied listener")
+    void flush_NotifiesListenerAboutMissingPayments() {
+        // given
+        XPaymentAdapterResponseMessage missing = new XPaymentAdapterResponseMessage();
+        missing.setPaymentGuid(UUID.randomUUID());
+        missing.setOccurredAt(OffsetDateTime.now());
+        List<XPaymentAdapterResponseMessage> notified = new ArrayList<>();
+        batcher.setNotAppliedListener(notified::add);
+        when(paymentService.updateStatuses(any())).thenReturn(new StatusUpdateResult(Set.of(missing.getPaymentGuid()), Set.of()));
+        batcher.submit(missing, PaymentStatus.PENDING);
+
+        // when
+        batcher.flush();
+
+        // then
+        assertThat(notified).containsExactly(missing);
+        assertThat(meterRegistry.counter("payment.status.batch.not.applied").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("flush() should acknowledge adapter messages only after their batch is written")
+    void flush_AcknowledgesWrittenMessages() {
+        // given
+        XPaymentAdapterResponseMessage applied = message();
+        XPaymentAdapterResponseMessage missing = message();
+        batcher = new StatusUpdateBatcher(new StatusBatchProperties(true, Duration.ofMinutes(1), 10),
+                                          paymentService,
+                                          acknowledger,
+                                          meterRegistry);
+        when(paymentService.updateStatuses(any()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new StatusUpdateResult(Set.of(missing.getPaymentGuid()), Set.of()));
+        batcher.submit(applied, PaymentStatus.APPROVED);
+        batcher.submit(missing, PaymentStatus.APPROVED);
+
+        // when
+        batcher.flush();
+        verify(acknowledger, never()).acknowledge(any());
+        batcher.flush();
+
+        // then
+        verify(acknowledger).acknowledge(applied);
+        verify(acknowledger, never()).acknowledge(missing);
+    }
+
+    @Test
+    @DisplayName("flush() should keep a failed batch and write it with the next window")
+    void flush_RetriesFailedBatch() {
+        // given
+        UUID failedGuid = UUID.randomUUID();
+        UUID laterGuid = UUID.randomUUID();
+        OffsetDateTime now = OffsetDateTime.now();
+        batcher = new StatusUpdateBatcher(new StatusBatchProperties(true, Duration.ofMinutes(1), 10),
+                                          paymentService,
+                                          acknowledger,
+                                          meterRegistry);
+        when(paymentService.updateStatuses(any())).thenThrow(new DataAccessResourceFailureException("down"))
+                                                  .thenReturn(StatusUpdateResult.EMPTY);
+        batcher.submit(failedGuid, PaymentStatus.PENDING, now);
+        batcher.submit(laterGuid, PaymentStatus.PENDING, now);
+
+        // when
+        batcher.flush();
+        batcher.submit(laterGuid, PaymentStatus.APPROVED, now.plusSeconds(5));
+        batcher.flush();
+
+        // then
+        verify(paymentService, times(2)).updateStatuses(batchCaptor.capture());
+        assertThat(batchCaptor.getAllValues().get(1)).containsOnly(Map.entry(failedGuid, PaymentStatus.PENDING),
+                                                                   Map.entry(laterGuid, PaymentStatus.APPROVED));
+        assertThat(meterRegistry.counter("payment.status.batch.failures").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("flush() should not call the service when nothing is pending")
+    void flush_DoesNothing_WhenEmpty() {
+        // when
+        batcher.flush();
+
+        // then
+        verify(paymentService, never()).updateStatuses(any());
+    }
+
+    private static XPaymentAdapterResponseMessage message() {
+        XPaymentAdapterResponseMessage message = new XPaymentAdapterResponseMessage();
+        message.setPaymentGuid(UUID.randomUUID());
+        message.setStatus(XPaymentAdapterStatus.SUCCEEDED);
+        message.setOccurredAt(OffsetDateTime.now());
+        return message;
+    }
+}
@@ -0,0 +1,112 @@
+package com.iprody.paymentserviceapp.async.journal;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedMessageJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("replayPending() should return requests without a terminal response after reopen")
+    void replayPending_ReturnsUnacknowledgedRequests() {
+        // given
+        XPaymentAdapterRequestMessage acknowledged = request();
+        XPaymentAdapterRequestMessage inFlight = request();
+        XPaymentAdapterRequestMessage notStarted = request();
+
+        try (MappedMessageJournal journal = new MappedMessageJournal(directory, SEGMENT_SIZE, false)) {
+            journal.appendRequest(acknowledged);
+            journal.appendRequest(inFlight);
+            journal.appendRequest(notStarted);
+            journal.appendResponse(response(acknowledged, XPaymentAdapterStatus.PROCESSING));
+            journal.appendResponse(response(inFlight, XPaymentAdapterStatus.PROCESSING));
+            journal.appendResponse(response(acknowledged, XPaymentAdapterStatus.SUCCEEDED));
+        }
+
+        // when
+        List<XPaymentAdapterRequestMessage> pending;
+        try (MappedMessageJournal journal = new MappedMessageJournal(directory, SEGMENT_SIZE, false)) {
+            pending = journal.replayPending();
+        }
+
+        // then
+        assertThat(pending).extracting(XPaymentAdapterRequestMessage::getPaymentGuid)
+                           .containsExactly(inFlight.getPaymentGuid(), notStarted.getPaymentGuid());
+        assertThat(pending.getFirst().getAmount()).isEqualByComparingTo(inFlight.getAmount());
+        assertThat(pending.getFirst().getCurrency()).isEqualTo(inFlight.getCurrency());
+        assertThat(pending.getFirst().getOccurredAt()).isEqualTo(inFlight.getOccurredAt());
+    }
+
+    @Test
+    @DisplayName("journal should roll segments and delete fully acknowledged ones")
+    void append_RollsSegmentsAndDeletesAcknowledged() throws IOException {
+        // given
+        XPaymentAdapterRequestMessage pendingRequest = request();
+
+        try (MappedMessageJournal journal = new MappedMessageJournal(directory, SEGMENT_SIZE, false)) {
+            // when
+            for (int i = 0; i < 200; i++) {
+                XPaymentAdapterRequestMessage request = request();
+                journal.appendRequest(request);
+                journal.appendResponse(response(request, XPaymentAdapterStatus.SUCCEEDED));
+            }
+            journal.appendRequest(pendingRequest);
+            for (int i = 0; i < 100; i++) {
+                XPaymentAdapterRequestMessage request = request();
+                journal.appendRequest(request);
+                journal.appendResponse(response(request, XPaymentAdapterStatus.CANCELED));
+            }
+        }
+
+        // then
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments.count()).isGreaterThan(1).isLessThan(10);
+        }
+        try (MappedMessageJournal journal = new MappedMessageJournal(directory, SEGMENT_SIZE, false)) {
+            assertThat(journal.replayPending()).extracting(XPaymentAdapterRequestMessage::getPaymentGuid)
+                                               .containsExactly(pendingRequest.getPaymentGuid());
+            assertThat(journal.replayPending()).isEmpty();
+        }
+    }
+
+    private XPaymentAdapterRequestMessage request() {
+        XPaymentAdapterRequestMessage request = new XPaymentAdapterRequestMessage();
+        request.setPaymentGuid(UUID.randomUUID());
+        request.setAmount(new BigDecimal("123.45"));
+        request.setCurrency("EUR");
+        request.setOccurredAt(OffsetDateTime.of(2025, 12, 8, 10, 0, 0, 0, ZoneOffset.ofHours(3)));
+        return request;
+    }
+
+    private XPaymentAdapterResponseMessage response(XPaymentAdapterRequestMessage request,
+                                                    XPaymentAdapterStatus status) {
+        XPaymentAdapterResponseMessage response = new XPaymentAdapterResponseMessage();
+        response.setPaymentGuid(request.getPaymentGuid());
+        response.setAmount(request.getAmount());
+        response.setCurrency(request.getCurrency());
+        response.setTransactionRefId(UUID.randomUUID());
+        response.setStatus(status);
+        response.setOccurredAt(OffsetDateTime.now());
+        return response;
+    }
+}
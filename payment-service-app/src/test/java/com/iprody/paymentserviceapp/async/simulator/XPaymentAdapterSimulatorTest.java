@@ -0,0 +1,126 @@
+package com.iprody.paymentserviceapp.async.simulator;
+
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XPaymentAdapterSimulatorTest {
+
+    private final Random random = new Random(42);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("plan() should reproduce the 0s/10s/20s schedule by default")
+    void plan_DefaultsToFixedSchedule() {
+        // given
+        XPaymentAdapterSimulator simulator = new XPaymentAdapterSimulator(properties(0, 0, 0, 0));
+
+        // when
+        List<SimulatedEvent> events = simulator.plan(random);
+
+        // then
+        assertThat(events).extracting(SimulatedEvent::status)
+                          .containsExactly(XPaymentAdapterStatus.PROCESSING,
+                                           XPaymentAdapterStatus.PROCESSING,
+                                           XPaymentAdapterStatus.SUCCEEDED);
+        assertThat(events).extracting(SimulatedEvent::delayNanos)
+                          .containsExactly(0L, TimeUnit.SECONDS.toNanos(10), TimeUnit.SECONDS.toNanos(20));
+        assertThat(events).extracting(SimulatedEvent::messageGuid).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("plan() should cancel, reorder and duplicate events at the configured rates")
+    void plan_AppliesFaultRates() {
+        // given
+        XPaymentAdapterSimulator simulator = new XPaymentAdapterSimulator(properties(1, 1, 1, 0));
+
+        // when
+        List<SimulatedEvent> events = simulator.plan(random);
+
+        // then
+        assertThat(events).extracting(SimulatedEvent::status)
+                          .containsExactly(XPaymentAdapterStatus.PROCESSING,
+                                           XPaymentAdapterStatus.PROCESSING,
+                                           XPaymentAdapterStatus.CANCELED,
+                                           XPaymentAdapterStatus.CANCELED,
+                                           XPaymentAdapterStatus.PROCESSING,
+                                           XPaymentAdapterStatus.PROCESSING);
+        assertThat(events.get(2).messageGuid()).isEqualTo(events.get(3).messageGuid());
+    }
+
+    @Test
+    @DisplayName("plan() should drop every event when the drop rate is 1")
+    void plan_DropsEvents() {
+        // given
+        XPaymentAdapterSimulator simulator = new XPaymentAdapterSimulator(properties(0, 0, 0, 1));
+
+        // when / then
+        assertThat(simulator.plan(random)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("histogram latency should only return latencies listed in the file")
+    void histogram_SamplesListedLatencies() throws IOException {
+        // given
+        Path file = Files.writeString(directory.resolve("latency.txt"), """
+                # latency-ms count
+                5 90
+                250, 10
+                1000 0
+                """);
+        LatencyDistribution distribution = LatencyDistribution.histogram(file);
+
+        // when
+        long fast = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long sample = distribution.sampleNanos(random);
+            assertThat(sample).isIn(TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(250));
+            if (sample == TimeUnit.MILLISECONDS.toNanos(5)) {
+                fast++;
+            }
+        }
+
+        // then
+        assertThat(fast).isBetween(8_500L, 9_500L);
+    }
+
+    @Test
+    @DisplayName("log-normal latency should be centred on the median and capped")
+    void logNormal_CentredOnMedian() {
+        // given
+        LatencyDistribution distribution = LatencyDistribution.of(
+                new LatencyProperties(LatencyType.LOG_NORMAL, Duration.ofMillis(100), Duration.ZERO,
+                                      Duration.ofSeconds(1), 1.0, null));
+
+        // when
+        long below = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long sample = distribution.sampleNanos(random);
+            assertThat(sample).isBetween(0L, TimeUnit.SECONDS.toNanos(1));
+            if (sample < TimeUnit.MILLISECONDS.toNanos(100)) {
+                below++;
+            }
+        }
+
+        // then
+        assertThat(below).isBetween(4_500L, 5_500L);
+    }
+
+    private SimulatorProperties properties(double canceledRate, double duplicateRate,
+                                           double reorderRate, double dropRate) {
+        return new SimulatorProperties(null, null, null, canceledRate, duplicateRate, reorderRate, dropRate);
+    }
+}
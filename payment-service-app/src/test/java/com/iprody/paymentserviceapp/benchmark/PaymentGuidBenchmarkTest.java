@@ -0,0 +1,83 @@
+package com.iprody.paymentserviceapp.benchmark;
+
+import com.iprody.paymentserviceapp.AbstractPostgresIntegrationTest;
+import com.iprody.paymentserviceapp.persistence.model.TimeOrderedUuidGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares insert throughput and primary-key index size for random v4 UUIDs
+ * and {@link TimeOrderedUuidGenerator} v7 UUIDs. Each generator fills its own
+ * copy of the payment table. Row count is set with {@code -Dpayment.guid.rows}.
+ * Run with {@code mvn test -Pperformance}.
+ */
+@Tag("performance")
+class PaymentGuidBenchmarkTest extends AbstractPostgresIntegrationTest {
+
+    private static final int ROWS = Integer.getInteger("payment.guid.rows", 1_000_000);
+    private static final int BATCH_SIZE = 1_000;
+    private static final String[] TABLES = {"guid_bench_random", "guid_bench_v7"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void dropTables() {
+        for (String table : TABLES) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        }
+    }
+
+    @Test
+    @DisplayName("insert throughput and index size: random v4 vs time-ordered v7")
+    void randomVersusTimeOrdered() {
+        Result random = insert(TABLES[0], UUID::randomUUID);
+        Result timeOrdered = insert(TABLES[1], TimeOrderedUuidGenerator::next);
+
+        System.out.printf("Inserted %d payments in batches of %d%n", ROWS, BATCH_SIZE);
+        System.out.printf("  random v4:       %s%n", random);
+        System.out.printf("  time-ordered v7: %s%n", timeOrdered);
+        assertThat(timeOrdered.indexBytes()).isLessThan(random.indexBytes());
+    }
+
+    private Result insert(String table, Supplier<UUID> guids) {
+        jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE payment INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD PRIMARY KEY (guid)");
+        String sql = "INSERT INTO " + table + " (guid, inquiry_ref_id, amount, currency, status, created_at, updated_at)"
+                + " VALUES (?, ?, 10.00, 'EUR', 'RECEIVED', now(), now())";
+
+        long started = System.nanoTime();
+        for (int inserted = 0; inserted < ROWS; inserted += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(new Object[] {guids.get(), UUID.randomUUID()});
+            }
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+        long elapsed = System.nanoTime() - started;
+
+        Long indexBytes = jdbcTemplate.queryForObject(
+                "SELECT pg_relation_size(indexrelid) FROM pg_index WHERE indrelid = ?::regclass AND indisprimary",
+                Long.class, table);
+        return new Result(ROWS * 1_000_000_000L / elapsed, indexBytes);
+    }
+
+    private record Result(long rowsPerSecond, long indexBytes) {
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows/s, primary key index %,d KB", rowsPerSecond, indexBytes / 1024);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.iprody.paymentserviceapp.benchmark;
+
+import com.iprody.paymentserviceapp.AbstractPostgresIntegrationTest;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import com.iprody.paymentserviceapp.service.PaymentService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+/**
+ * Seeds the payment table with millions of rows, runs the searches the
+ * service offers and checks with EXPLAIN that the SQL Hibernate generates
+ * for them, with the values it binds, is answered by an index and only
+ * touches the partitions its created_at range covers.
+ * Row count is set with {@code -Dpayment.explain.rows}.
+ * Run with {@code mvn test -Pperformance}.
+ */
+@Tag("performance")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaymentIndexPlanTest extends AbstractPostgresIntegrationTest {
+
+    private static final int ROWS = Integer.getInteger("payment.explain.rows", 2_000_000);
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on \\S+ \\S+\\s+\\(cost=[\\d.]+\\.\\.([\\d.]+)");
+    private static final Pattern PARTITION = Pattern.compile("payment_p\\d{6}");
+    private static final Pattern PAYMENT_PARTITION = Pattern.compile("\\bon (payment_p\\d{6}|payment_default)\\b");
+    private static final double CHEAP_SEQ_SCAN = 10;
+
+    private static final String SEED_SQL = """
+            INSERT INTO payment (guid, inquiry_ref_id, amount, currency, transaction_ref_id, status, note,
+                                 created_at, updated_at)
+            SELECT gen_random_uuid(),
+                   gen_random_uuid(),
+                   round((random() * 999)::numeric, 2),
+                   (ARRAY ['EUR', 'USD', 'GBP', 'CHF', 'JPY'])[1 + i % 5],
+                   CASE WHEN i % 20 = 0 THEN NULL ELSE gen_random_uuid() END,
+                   CASE WHEN i % 100 = 0 THEN 'RECEIVED'
+                        WHEN i % 100 = 1 THEN 'PENDING'
+                        WHEN i % 10 < 2 THEN 'DECLINED'
+                        WHEN i % 10 < 3 THEN 'NOT_SENT'
+                        ELSE 'APPROVED' END,
+                   NULL,
+                   now() - make_interval(secs => i),
+                   now() - make_interval(secs => i) + make_interval(secs => i % 600)
+            FROM generate_series(1, ?) AS i
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private CapturePostProcessor capture;
+
+    @BeforeAll
+    void seed() {
+        // seeded rows go back ROWS seconds, the first partition holds every month before the current one
+        jdbcTemplate.update(SEED_SQL, ROWS);
+        jdbcTemplate.execute("ANALYZE payment");
+    }
+
+    static Stream<Arguments> searches() {
+        OffsetDateTime recent = OffsetDateTime.now(ZoneOffset.UTC).minusHours(1);
+        return Stream.of(
+                arguments("default order", keyset(QPaymentFilter.builder())),
+                arguments("createdFrom/createdTo", keyset(QPaymentFilter.builder()
+                        .createdFrom(recent.minusHours(1))
+                        .createdTo(recent))),
+                arguments("updatedFrom/updatedTo sorted by updatedAt", keyset(QPaymentFilter.builder()
+                        .updatedFrom(recent.minusHours(1))
+                        .updatedTo(recent)
+                        .directionUpdatedAt(ASC))),
+                arguments("minAmount/maxAmount sorted by amount", keyset(QPaymentFilter.builder()
+                        .minAmount(BigDecimal.valueOf(100))
+                        .maxAmount(BigDecimal.valueOf(101))
+                        .directionAmount(ASC))),
+                arguments("sorted by amount", keyset(QPaymentFilter.builder().directionAmount(DESC))),
+                arguments("status", keyset(QPaymentFilter.builder().status(PaymentStatus.DECLINED))),
+                arguments("status and createdFrom", keyset(QPaymentFilter.builder()
+                        .status(PaymentStatus.NOT_SENT)
+                        .createdFrom(recent.minusDays(1)))),
+                arguments("currencies", keyset(QPaymentFilter.builder().currencies(Set.of("CHF", "JPY")))),
+                arguments("inquiryRefIds", keyset(QPaymentFilter.builder()
+                        .inquiryRefIds(Set.of(UUID.randomUUID(), UUID.randomUUID())))),
+                arguments("transactionRefIds", keyset(QPaymentFilter.builder()
+                        .transactionRefIds(Set.of(UUID.randomUUID(), UUID.randomUUID())))),
+                arguments("sliced by updatedAt", (Consumer<PaymentService>) service -> service.searchQSliced(
+                        QPaymentFilter.builder().directionUpdatedAt(DESC).build(), false))
+        );
+    }
+
+    private static Consumer<PaymentService> keyset(QPaymentFilter.QPaymentFilterBuilder filter) {
+        return service -> service.searchQKeyset(filter.pageSize(25).build());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("searches")
+    void usesIndex(String search, Consumer<PaymentService> run) {
+        for (String plan : plans(() -> run.accept(paymentService))) {
+            assertIndexed(search, plan);
+        }
+    }
+
+    @Test
+    void usesIndex_OnNextKeysetPage() {
+        QPaymentFilter filter = QPaymentFilter.builder().pageSize(25).build();
+        filter.setCursor(paymentService.searchQKeyset(filter).nextCursor());
+
+        for (String plan : plans(() -> paymentService.searchQKeyset(filter))) {
+            assertIndexed("keyset next page", plan);
+        }
+    }
+
+    @Test
+    void prunesPartitionsByCreatedAt() {
+        OffsetDateTime recent = OffsetDateTime.now(ZoneOffset.UTC).minusHours(1);
+        QPaymentFilter filter = QPaymentFilter.builder()
+                                              .createdFrom(recent.minusHours(1))
+                                              .createdTo(recent)
+                                              .pageSize(25)
+                                              .build();
+
+        for (String plan : plans(() -> paymentService.searchQKeyset(filter))) {
+            assertPruned(plan);
+        }
+    }
+
+    @Test
+    void prunesPartitionsByGuid() {
+        UUID guid = jdbcTemplate.queryForObject("SELECT guid FROM payment ORDER BY created_at LIMIT 1", UUID.class);
+
+        // created_at comes from payment_guid while the query runs, so pruning only shows in the executed plan
+        for (String plan : plans(() -> paymentRepository.findByGuid(guid), "EXPLAIN (ANALYZE, COSTS OFF) ")) {
+            assertThat(executedPartitions(plan)).as(plan).hasSize(1);
+        }
+    }
+
+    private List<String> plans(Runnable search) {
+        return plans(search, "EXPLAIN ");
+    }
+
+    private List<String> plans(Runnable search, String explain) {
+        List<CapturedQuery> queries = capture.dataSource().capture(search);
+        assertThat(queries).as("captured queries").isNotEmpty();
+        return queries.stream()
+                      .map(query -> String.join("\n", jdbcTemplate.execute(
+                              (Connection connection) -> query.explain(connection, explain))))
+                      .toList();
+    }
+
+    private static void assertIndexed(String search, String plan) {
+        assertThat(plan).as(search).containsPattern("Index (Only )?Scan|Bitmap Index Scan");
+        // empty future partitions and the default partition are cheaper to scan than to probe
+        Matcher seqScan = SEQ_SCAN.matcher(plan);
+        while (seqScan.find()) {
+            assertThat(Double.parseDouble(seqScan.group(1))).as(search + ": " + seqScan.group())
+                                                             .isLessThan(CHEAP_SEQ_SCAN);
+        }
+    }
+
+    private static void assertPruned(String plan) {
+        assertThat(plan).doesNotContain("payment_default");
+        assertThat(PARTITION.matcher(plan).results().map(MatchResult::group).distinct().count())
+                .as(plan)
+                .isLessThanOrEqualTo(2);
+    }
+
+    private static Set<String> executedPartitions(String plan) {
+        return plan.lines()
+                   .filter(line -> !line.contains("never executed"))
+                   .flatMap(line -> PAYMENT_PARTITION.matcher(line).results().map(result -> result.group(1)))
+                   .collect(Collectors.toSet());
+    }
+
+    /**
+     * Prepared query as the application ran it: its text and the
+     * {@code set*} calls that bound its parameters.
+     */
+    record CapturedQuery(String sql, List<Bind> binds) {
+
+        List<String> explain(Connection connection, String explain) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(explain + sql)) {
+                for (Bind bind : binds) {
+                    invoke(statement, bind.method(), bind.args());
+                }
+                List<String> plan = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        plan.add(rows.getString(1));
+                    }
+                }
+                return plan;
+            }
+        }
+    }
+
+    record Bind(Method method, Object[] args) {
+
+    }
+
+    /**
+     * Records the queries the thread calling {@link #capture} prepares on its
+     * connections, leaving out those of background pollers.
+     */
+    static final class CapturingDataSource extends DelegatingDataSource {
+
+        private final List<CapturedQuery> captured = new CopyOnWriteArrayList<>();
+        private volatile Thread capturing;
+
+        CapturingDataSource(DataSource target) {
+            super(target);
+        }
+
+        List<CapturedQuery> capture(Runnable action) {
+            captured.clear();
+            capturing = Thread.currentThread();
+            try {
+                action.run();
+            } finally {
+                capturing = null;
+            }
+            return List.copyOf(captured);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = obtainTargetDataSource().getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                                                       (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                return "prepareStatement".equals(method.getName())
+                        ? recorded((PreparedStatement) result, (String) args[0])
+                        : result;
+            });
+        }
+
+        private PreparedStatement recorded(PreparedStatement statement, String sql) {
+            List<Bind> binds = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                              new Class<?>[]{PreparedStatement.class},
+                                                              (proxy, method, args) -> {
+                if (method.getName().startsWith("set") && args != null && args.length > 1
+                        && args[0] instanceof Integer) {
+                    binds.add(new Bind(method, args));
+                } else if ("executeQuery".equals(method.getName()) && Thread.currentThread() == capturing) {
+                    captured.add(new CapturedQuery(sql, List.copyOf(binds)));
+                }
+                return invoke(statement, method, args);
+            });
+        }
+    }
+
+    static final class CapturePostProcessor implements BeanPostProcessor {
+
+        private CapturingDataSource dataSource;
+
+        CapturingDataSource dataSource() {
+            return dataSource;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if ("dataSource".equals(beanName) && bean instanceof DataSource target) {
+                dataSource = new CapturingDataSource(target);
+                return dataSource;
+            }
+            return bean;
+        }
+    }
+
+    @TestConfiguration
+    static class CaptureConfig {
+
+        @Bean
+        static CapturePostProcessor capturePostProcessor() {
+            return new CapturePostProcessor();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getTargetException() instanceof SQLException sql) {
+                throw sql;
+            } else if (e.getTargetException() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getTargetException());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.iprody.paymentserviceapp.benchmark;
+
+import com.iprody.paymentserviceapp.AbstractPostgresIntegrationTest;
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.converter.PaymentConverter;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares reading a page of payments as managed entities mapped through
+ * {@link PaymentConverter} with the constructor-expression projection of
+ * {@link PaymentRepository#findRows}, mapped by the same converter. Run with
+ * {@code mvn test -Pperformance}.
+ */
+@Tag("performance")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaymentReadPathBenchmarkTest extends AbstractPostgresIntegrationTest {
+
+    private static final int ROWS = 50_000;
+    private static final int PAGE_SIZE = 1_000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    private static final String SEED_SQL = """
+            INSERT INTO payment (guid, inquiry_ref_id, amount, currency, transaction_ref_id, status, note,
+                                 created_at, updated_at)
+            SELECT gen_random_uuid(), gen_random_uuid(), round((random() * 999)::numeric, 2), 'EUR',
+                   gen_random_uuid(), 'APPROVED', 'benchmark payment ' || i,
+                   now() - make_interval(secs => i), now()
+            FROM generate_series(1, ?) AS i
+            """;
+
+    @Autowired
+    private PaymentRepository repository;
+
+    @Autowired
+    private PaymentConverter converter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update(SEED_SQL, ROWS);
+        jdbcTemplate.execute("ANALYZE payment");
+    }
+
+    @Test
+    @DisplayName("page read: entities + converter vs row projection + converter")
+    void entityVersusProjection() {
+        QPaymentFilter filter = QPaymentFilter.builder()
+                                              .currencies(Set.of("EUR"))
+                                              .build();
+        Predicate predicate = filter.createPredicate();
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt");
+
+        Supplier<List<PaymentDto>> entities = () -> {
+            List<Payment> page = repository.findBy(predicate, query -> query.sortBy(sort).limit(PAGE_SIZE).all());
+            return converter.convert(page);
+        };
+        Supplier<List<PaymentDto>> projection =
+                () -> converter.convertRows(repository.findRows(predicate, sort, 0, PAGE_SIZE));
+
+        assertThat(projection.get()).containsExactlyElementsOf(entities.get());
+
+        Result entityResult = measure(entities);
+        Result projectionResult = measure(projection);
+
+        System.out.printf("Page of %d payments, %d iterations%n", PAGE_SIZE, ITERATIONS);
+        System.out.printf("  entities + converter: %s%n", entityResult);
+        System.out.printf("  row projection:       %s%n", projectionResult);
+    }
+
+    private Result measure(Supplier<List<PaymentDto>> read) {
+        for (int i = 0; i < WARMUP; i++) {
+            read.get();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long[] latencies = new long[ITERATIONS];
+        long allocated = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long started = System.nanoTime();
+            assertThat(read.get()).hasSize(PAGE_SIZE);
+            latencies[i] = System.nanoTime() - started;
+            allocated += threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        }
+        Arrays.sort(latencies);
+        return new Result(allocated / ITERATIONS, latencies[ITERATIONS / 2], latencies[(int) (ITERATIONS * 0.99)]);
+    }
+
+    private record Result(long bytesPerPage, long p50Nanos, long p99Nanos) {
+
+        @Override
+        public String toString() {
+            return String.format("%,d KB allocated per page, latency p50 %.2f ms, p99 %.2f ms",
+                                 bytesPerPage / 1024, p50Nanos / 1e6, p99Nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.iprody.paymentserviceapp.benchmark;
+
+import com.iprody.paymentserviceapp.AbstractPostgresIntegrationTest;
+import com.iprody.paymentserviceapp.config.datasource.GatedDataSource;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.service.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares serving requests on a pool of platform threads sized like
+ * Tomcat's default with one virtual thread per request. A request waits
+ * {@value #DOWNSTREAM_MS} ms on a simulated downstream call and then reads a
+ * page of payments through {@link GatedDataSource}, so both runs share the
+ * same connection limit. Latency counts from the moment a request is
+ * submitted, queueing for a thread included. Run with
+ * {@code mvn test -Pperformance}.
+ */
+@Tag("performance")
+@TestPropertySource(properties = "logging.level.root=INFO")
+class RequestThreadingLoadTest extends AbstractPostgresIntegrationTest {
+
+    private static final int PLATFORM_THREADS = 200;
+    private static final int IN_FLIGHT = 2_000;
+    private static final int REQUESTS = 20_000;
+    private static final int WARMUP = 2_000;
+    private static final long DOWNSTREAM_MS = 20;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("concurrent requests: platform thread pool vs virtual threads")
+    void platformVersusVirtualThreads() throws InterruptedException {
+        assertThat(dataSource).isInstanceOf(GatedDataSource.class);
+
+        Result platform;
+        try (ExecutorService executor = Executors.newFixedThreadPool(PLATFORM_THREADS)) {
+            run(executor, WARMUP);
+            platform = run(executor, REQUESTS);
+        }
+        Result virtual;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            run(executor, WARMUP);
+            virtual = run(executor, REQUESTS);
+        }
+
+        System.out.printf("%,d requests, %,d in flight, %d ms downstream call each%n", REQUESTS, IN_FLIGHT,
+                          DOWNSTREAM_MS);
+        System.out.printf("  %d platform threads: %s%n", PLATFORM_THREADS, platform);
+        System.out.printf("  virtual threads:     %s%n", virtual);
+        System.out.printf("  connection gate timeouts: %.0f%n",
+                          meterRegistry.counter("payment.datasource.gate.timeouts").count());
+        assertThat(platform.failures()).isZero();
+        assertThat(virtual.failures()).isZero();
+    }
+
+    private Result run(ExecutorService executor, int requests) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(IN_FLIGHT);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger failures = new AtomicInteger();
+        long[] latencies = new long[requests];
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    handle();
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[index] = System.nanoTime() - submitted;
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(5, TimeUnit.MINUTES)).isTrue();
+        long elapsed = System.nanoTime() - started;
+        Arrays.sort(latencies);
+        return new Result(requests * 1e9 / elapsed, latencies[requests / 2], latencies[(int) (requests * 0.99)],
+                          failures.get());
+    }
+
+    private void handle() throws InterruptedException {
+        Thread.sleep(DOWNSTREAM_MS);
+        QPaymentFilter filter = QPaymentFilter.builder()
+                                              .pageSize(20)
+                                              .build();
+        paymentService.searchQKeyset(filter);
+    }
+
+    private record Result(double throughput, long p50Nanos, long p99Nanos, int failures) {
+
+        @Override
+        public String toString() {
+            return String.format("%,.0f requests/s, latency p50 %.1f ms, p99 %.1f ms, %d failed",
+                                 throughput, p50Nanos / 1e6, p99Nanos / 1e6, failures);
+        }
+    }
+}
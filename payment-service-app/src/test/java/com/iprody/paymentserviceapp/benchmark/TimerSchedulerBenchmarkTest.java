@@ -0,0 +1,125 @@
+package com.iprody.paymentserviceapp.benchmark;
+
+import com.iprody.paymentserviceapp.async.HashedTimingWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares {@link HashedTimingWheel} with the {@code ScheduledThreadPoolExecutor} previously used by the
+ * adapter broker. Run with {@code mvn test -Pperformance}.
+ */
+@Tag("performance")
+class TimerSchedulerBenchmarkTest {
+
+    private static final int PENDING_TASKS = 1_000_000;
+    private static final int JITTER_TASKS = 20_000;
+    private static final long JITTER_MAX_DELAY_MS = 1_000;
+
+    @Test
+    @DisplayName("memory per pending task: timing wheel vs ScheduledThreadPoolExecutor")
+    void memoryPerPendingTask() throws InterruptedException {
+        long wheelBytes = wheelFootprint();
+        long executorBytes = executorFootprint();
+
+        System.out.printf("Pending task footprint (%d tasks): timing wheel %d B, scheduled executor %d B%n",
+                          PENDING_TASKS, wheelBytes, executorBytes);
+    }
+
+    @Test
+    @DisplayName("dispatch jitter: timing wheel vs ScheduledThreadPoolExecutor")
+    void dispatchJitter() throws InterruptedException {
+        HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(10), 512,
+                                                        Executors.newVirtualThreadPerTaskExecutor());
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+        Scheduler wheelScheduler = (task, delay) -> wheel.schedule(task, delay, TimeUnit.NANOSECONDS);
+        Scheduler executorScheduler = (task, delay) -> executor.schedule(task, delay, TimeUnit.NANOSECONDS);
+
+        // warm-up
+        measureLateness(wheelScheduler);
+        measureLateness(executorScheduler);
+
+        long[] wheelLateness = measureLateness(wheelScheduler);
+        long[] executorLateness = measureLateness(executorScheduler);
+        wheel.close();
+        executor.shutdownNow();
+
+        System.out.printf("Dispatch lateness (%d tasks) p50/p99/max, ms: timing wheel %s, scheduled executor %s%n",
+                          JITTER_TASKS, percentiles(wheelLateness), percentiles(executorLateness));
+    }
+
+    private long wheelFootprint() throws InterruptedException {
+        HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(10), 512,
+                                                        Executors.newVirtualThreadPerTaskExecutor());
+        long before = usedHeap();
+        for (int i = 0; i < PENDING_TASKS; i++) {
+            Object payload = new Object();
+            wheel.schedule(payload::hashCode, 1, TimeUnit.HOURS);
+        }
+        // let the wheel thread move every task from the hand-off queue into its bucket
+        Thread.sleep(500);
+        long bytes = (usedHeap() - before) / PENDING_TASKS;
+        assertThat(wheel.pending()).isEqualTo(PENDING_TASKS);
+        wheel.close();
+        return bytes;
+    }
+
+    private long executorFootprint() {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+        long before = usedHeap();
+        for (int i = 0; i < PENDING_TASKS; i++) {
+            Object payload = new Object();
+            executor.schedule(payload::hashCode, 1, TimeUnit.HOURS);
+        }
+        long bytes = (usedHeap() - before) / PENDING_TASKS;
+        executor.shutdownNow();
+        return bytes;
+    }
+
+    private long[] measureLateness(Scheduler scheduler) throws InterruptedException {
+        long[] lateness = new long[JITTER_TASKS];
+        AtomicInteger index = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(JITTER_TASKS);
+        for (int i = 0; i < JITTER_TASKS; i++) {
+            long delay = TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(JITTER_MAX_DELAY_MS));
+            long expected = System.nanoTime() + delay;
+            scheduler.schedule(() -> {
+                lateness[index.getAndIncrement()] = System.nanoTime() - expected;
+                done.countDown();
+            }, delay);
+        }
+        assertThat(done.await(JITTER_MAX_DELAY_MS * 10, TimeUnit.MILLISECONDS)).isTrue();
+        Arrays.sort(lateness);
+        return lateness;
+    }
+
+    private String percentiles(long[] sorted) {
+        return String.format("%.2f/%.2f/%.2f",
+                             sorted[sorted.length / 2] / 1e6,
+                             sorted[(int) (sorted.length * 0.99)] / 1e6,
+                             sorted[sorted.length - 1] / 1e6);
+    }
+
+    private long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @FunctionalInterface
+    private interface Scheduler {
+
+        void schedule(Runnable task, long delayNanos);
+    }
+}
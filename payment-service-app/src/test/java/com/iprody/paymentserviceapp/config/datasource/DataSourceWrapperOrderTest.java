@@ -0,0 +1,35 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceWrapperOrderTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withBean("dataSource", DataSource.class, HikariDataSource::new)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    @DisplayName("the connection gate should wrap statement timing, which wraps the pool, whatever the config order")
+    void dataSource_GateIsOutermost() {
+        runner.withUserConfiguration(ConnectionGateConfig.class, StatementTimingConfig.class)
+              .run(context -> assertWrappedInOrder(context.getBean("dataSource", DataSource.class)));
+        runner.withUserConfiguration(StatementTimingConfig.class, ConnectionGateConfig.class)
+              .run(context -> assertWrappedInOrder(context.getBean("dataSource", DataSource.class)));
+    }
+
+    private static void assertWrappedInOrder(DataSource dataSource) {
+        assertThat(dataSource).isInstanceOf(GatedDataSource.class);
+        DataSource timed = ((GatedDataSource) dataSource).getTargetDataSource();
+        assertThat(timed).isInstanceOf(StatementTimingDataSource.class);
+        assertThat(((StatementTimingDataSource) timed).getTargetDataSource()).isInstanceOf(HikariDataSource.class);
+    }
+}
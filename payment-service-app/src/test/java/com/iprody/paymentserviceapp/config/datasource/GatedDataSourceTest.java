@@ -0,0 +1,106 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GatedDataSourceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource target = mock(DataSource.class);
+
+    @Test
+    @DisplayName("getConnection() should time out while all permits are taken and succeed after a close")
+    void getConnection_WaitsForPermit() throws SQLException {
+        // given
+        Connection pooled = mock(Connection.class);
+        when(target.getConnection()).thenReturn(pooled);
+        GatedDataSource dataSource = new GatedDataSource(target, 1, Duration.ofMillis(50), meterRegistry);
+        Connection first = dataSource.getConnection();
+
+        // when / then
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        first.close();
+        first.close();
+        try (Connection second = dataSource.getConnection()) {
+            assertThat(((ConnectionProxy) second).getTargetConnection()).isSameAs(pooled);
+        }
+        assertThat(dataSource.getConnection()).isNotNull();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(meterRegistry.counter("payment.datasource.gate.timeouts").count()).isEqualTo(2);
+        verify(pooled, times(3)).close();
+    }
+
+    @Test
+    @DisplayName("getConnection() should return the permit when the pool fails")
+    void getConnection_ReleasesPermitOnFailure() throws SQLException {
+        // given
+        when(target.getConnection()).thenThrow(new SQLException("pool down"))
+                                    .thenReturn(mock(Connection.class));
+        GatedDataSource dataSource = new GatedDataSource(target, 1, Duration.ofMillis(50), meterRegistry);
+
+        // when / then
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool down");
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("getConnection() should keep thousands of virtual threads within the permits")
+    void getConnection_BoundsVirtualThreads() throws Exception {
+        // given
+        int permits = 4;
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        when(target.getConnection()).thenAnswer(invocation -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            doAnswer(close -> open.decrementAndGet()).when(connection).close();
+            return connection;
+        });
+        GatedDataSource dataSource = new GatedDataSource(target, permits, Duration.ofSeconds(30), meterRegistry);
+        List<Future<?>> calls = new ArrayList<>();
+
+        // when
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2_000; i++) {
+                calls.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        Thread.sleep(1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        // then
+        assertThat(maxOpen.get()).isLessThanOrEqualTo(permits);
+        assertThat(open.get()).isZero();
+        assertThat(meterRegistry.timer("payment.datasource.gate.acquire").count()).isEqualTo(2_000);
+    }
+}
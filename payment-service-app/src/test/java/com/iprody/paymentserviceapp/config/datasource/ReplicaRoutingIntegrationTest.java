@@ -0,0 +1,135 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.service.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two independent PostgreSQL instances stand in for the primary and a
+ * replica. The replica holds a row the primary does not have, so where a
+ * read was served is visible from its result.
+ */
+@SpringBootTest
+@Testcontainers
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingIntegrationTest {
+
+    private static final UUID REPLICA_ONLY = UUID.fromString("00000000-0000-0000-0000-00000000beef");
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:18.1");
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:18.1");
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY::getUsername);
+        registry.add("spring.datasource.password", PRIMARY::getPassword);
+        registry.add("spring.liquibase.change-log", () -> "classpath:/db.changelog/master-test-changelog.yml");
+        registry.add("payment.datasource.replica.enabled", () -> true);
+        registry.add("payment.datasource.replica.instances[0].url", REPLICA::getJdbcUrl);
+        registry.add("payment.datasource.replica.instances[0].username", REPLICA::getUsername);
+        registry.add("payment.datasource.replica.instances[0].password", REPLICA::getPassword);
+        registry.add("payment.datasource.replica.check-interval", () -> "200ms");
+        // where a lookup was served is only visible when it is not answered from the cache
+        registry.add("payment.cache.enabled", () -> false);
+    }
+
+    @BeforeAll
+    static void seedReplica() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA.getJdbcUrl(),
+                                                                           REPLICA.getUsername(),
+                                                                           REPLICA.getPassword()));
+        replica.execute("""
+                CREATE TABLE payment (guid uuid PRIMARY KEY, inquiry_ref_id uuid NOT NULL,
+                                      amount numeric(5, 2) NOT NULL, currency varchar(3) NOT NULL,
+                                      transaction_ref_id uuid, status varchar(10) NOT NULL, note text,
+                                      created_at timestamptz NOT NULL, updated_at timestamptz NOT NULL,
+                                      version bigint NOT NULL DEFAULT 0)
+                """);
+        replica.update("INSERT INTO payment VALUES (?, ?, 1.00, 'EUR', NULL, 'RECEIVED', NULL, now(), now(), 0)",
+                       REPLICA_ONLY, UUID.randomUUID());
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionsAreServedByTheReplica() throws InterruptedException {
+        awaitRouting(true);
+
+        assertThat(paymentService.findById(REPLICA_ONLY)).isPresent();
+        assertThat(paymentService.findAll()).extracting(PaymentDto::guid).containsExactly(REPLICA_ONLY);
+        assertThat(reads("replica-1")).isPositive();
+    }
+
+    @Test
+    @Order(2)
+    void writesStayOnThePrimary() {
+        PaymentDto created = paymentService.create(new PaymentDto(null, UUID.randomUUID(), BigDecimal.TEN, "USD",
+                                                                  null, PaymentStatus.RECEIVED, null,
+                                                                  OffsetDateTime.now(), OffsetDateTime.now(), null));
+
+        Integer onPrimary = jdbcTemplate.queryForObject("SELECT count(*) FROM payment WHERE guid = ?",
+                                                        Integer.class, created.guid());
+        assertThat(onPrimary).isOne();
+        assertThat(paymentService.findById(created.guid())).isEmpty();
+    }
+
+    @Test
+    @Order(3)
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() throws InterruptedException {
+        REPLICA.stop();
+        awaitRouting(false);
+        double primaryReads = reads("primary");
+
+        assertThat(paymentService.findById(REPLICA_ONLY)).isEmpty();
+        assertThat(paymentService.findAll()).isNotEmpty();
+        assertThat(reads("primary")).isGreaterThan(primaryReads);
+    }
+
+    private double reads(String target) {
+        return meterRegistry.counter("payment.datasource.reads", "target", target).count();
+    }
+
+    private void awaitRouting(boolean toReplica) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            double lag = meterRegistry.get("payment.datasource.replica.lag").gauge().value();
+            if (toReplica != Double.isNaN(lag)) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Replica routing did not switch " + (toReplica ? "on" : "off"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.iprody.paymentserviceapp.config.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(OutputCaptureExtension.class)
+class StatementTimingDataSourceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+
+    @Test
+    @DisplayName("normalize() should replace literals and collapse placeholder lists and whitespace")
+    void normalize_RemovesValues() {
+        assertThat(StatementShapes.normalize("""
+                SELECT p1_0.guid FROM payment p1_0
+                WHERE p1_0.note = 'it''s mine' AND p1_0.amount > 10.50 AND p1_0.guid IN (?, ?,?)
+                LIMIT 25"""))
+                .isEqualTo("SELECT p1_0.guid FROM payment p1_0 WHERE p1_0.note = ? AND p1_0.amount > ? "
+                                   + "AND p1_0.guid IN (?) LIMIT ?");
+    }
+
+    @Test
+    @DisplayName("prepared statements of the same shape should share one timer, also when they fail")
+    void execute_RecordsPerShape() throws SQLException {
+        // given
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(prepared);
+        when(prepared.executeUpdate()).thenReturn(1)
+                                      .thenThrow(new SQLException("deadlock"));
+        StatementTimingDataSource dataSource = dataSource(10);
+
+        // when
+        try (Connection timed = dataSource.getConnection()) {
+            timed.prepareStatement("DELETE FROM payment WHERE guid IN (?, ?)").executeUpdate();
+            PreparedStatement second = timed.prepareStatement("DELETE FROM payment WHERE guid IN (?, ?, ?)");
+            second.setString(1, "value");
+            assertThatThrownBy(second::executeUpdate).hasMessage("deadlock");
+        }
+
+        // then
+        assertThat(timers()).singleElement()
+                            .satisfies(timer -> {
+                                assertThat(timer.getId().getTag("operation")).isEqualTo("delete");
+                                assertThat(timer.count()).isEqualTo(2);
+                            });
+        verify(prepared).setString(1, "value");
+        verify(connection).close();
+    }
+
+    @Test
+    @DisplayName("plain statements should be timed by their text and shapes over the limit share a timer")
+    void execute_LimitsShapes() throws SQLException {
+        // given
+        Statement statement = mock(Statement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        StatementTimingDataSource dataSource = dataSource(2);
+
+        // when
+        try (Connection timed = dataSource.getConnection(); Statement plain = timed.createStatement()) {
+            plain.execute("ANALYZE payment");
+            plain.execute("VACUUM payment");
+            plain.execute("SELECT 1");
+            plain.execute("SELECT 2");
+            plain.addBatch("UPDATE payment SET note = 'a'");
+            plain.executeBatch();
+        }
+
+        // then
+        assertThat(timers()).hasSize(3);
+        assertThat(meterRegistry.get("payment.datasource.statement").tag("shape", "other").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("statements over the slow threshold should be logged at WARN by shape, without their values")
+    void execute_LogsSlowStatements(CapturedOutput output) throws SQLException {
+        // given
+        Statement statement = mock(Statement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        StatementTimingDataSource dataSource = dataSource(10, Duration.ofNanos(1), 0);
+
+        // when
+        try (Connection timed = dataSource.getConnection(); Statement plain = timed.createStatement()) {
+            plain.executeQuery("SELECT guid FROM payment WHERE note = 'card 4111'");
+        }
+
+        // then
+        assertThat(output).contains("WARN")
+                          .contains("Slow statement")
+                          .contains("SELECT guid FROM payment WHERE note = ?")
+                          .doesNotContain("4111");
+        Timer timer = timers().iterator().next();
+        assertThat(timer.takeSnapshot().histogramCounts()).singleElement()
+                                                          .satisfies(bucket -> assertThat(bucket.count()).isZero());
+    }
+
+    @Test
+    @DisplayName("statements under the slow threshold should be logged at INFO only when sampled")
+    void execute_SamplesStatements(CapturedOutput output) throws SQLException {
+        // given
+        Statement statement = mock(Statement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        StatementTimingDataSource sampled = dataSource(10, Duration.ofHours(1), 1.0);
+        StatementTimingDataSource unsampled = dataSource(10, Duration.ofHours(1), 0);
+
+        // when
+        try (Connection timed = sampled.getConnection(); Statement plain = timed.createStatement()) {
+            plain.execute("SELECT count(*) FROM payment_stats");
+        }
+        try (Connection timed = unsampled.getConnection(); Statement plain = timed.createStatement()) {
+            plain.execute("SELECT count(*) FROM payment_outbox");
+        }
+
+        // then
+        assertThat(output).contains("INFO")
+                          .containsPattern("Statement \\w+ took [\\d.,]+ ms: SELECT count\\(\\*\\) FROM payment_stats")
+                          .doesNotContain("Slow statement")
+                          .doesNotContain("ms: SELECT count(*) FROM payment_outbox");
+    }
+
+    private StatementTimingDataSource dataSource(int maxShapes) {
+        return dataSource(maxShapes, Duration.ofMillis(200), 1.0);
+    }
+
+    private StatementTimingDataSource dataSource(int maxShapes, Duration slowThreshold, double sampleRate) {
+        return new StatementTimingDataSource(target,
+                                             new StatementTimingProperties(true, slowThreshold, sampleRate,
+                                                                           maxShapes),
+                                             meterRegistry);
+    }
+
+    private Collection<Timer> timers() {
+        return meterRegistry.find("payment.datasource.statement")
+                            .timers()
+                            .stream()
+                            .filter(timer -> timer.count() > 0)
+                            .toList();
+    }
+}
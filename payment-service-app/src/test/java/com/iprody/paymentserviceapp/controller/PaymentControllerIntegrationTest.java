@@ -67,7 +67,8 @@ class PaymentControllerIntegrationTest extends AbstractPostgresIntegrationTest {
                                         PaymentStatus.PENDING,
                                         "note",
                                         OffsetDateTime.now(),
-                                        OffsetDateTime.now());
+                                        OffsetDateTime.now(),
+                                        null);
 
         String json = objectMapper.writeValueAsString(dto);
         String response = mockMvc.perform(post("/payments")
@@ -83,7 +84,7 @@ class PaymentControllerIntegrationTest extends AbstractPostgresIntegrationTest {
                                  .getContentAsString();
         PaymentDto created = objectMapper.readValue(response, PaymentDto.class);
         Optional<Payment> saved =
-                paymentRepository.findById(created.guid());
+                paymentRepository.findByGuid(created.guid());
         assertThat(saved).isPresent();
         assertThat(saved.get().getCurrency()).isEqualTo("EUR");
         assertThat(saved.get().getAmount()).isEqualByComparingTo("123.45");
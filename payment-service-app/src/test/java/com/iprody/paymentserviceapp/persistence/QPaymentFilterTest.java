@@ -0,0 +1,147 @@
+package com.iprody.paymentserviceapp.persistence;
+
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter.SortKey;
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.querydsl.QSort;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.instancio.Instancio.create;
+
+class QPaymentFilterTest {
+
+    @Test
+    @DisplayName("keyset sort should default to createdAt DESC with guid as tie-breaker")
+    void createKeysetSort_DefaultsToCreatedAtDesc() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder().build();
+
+        // when
+        Sort sort = filter.createKeysetSort(filter.createSortKeys());
+
+        // then
+        assertThat(sort).containsExactly(Sort.Order.desc("createdAt"), Sort.Order.asc("guid"));
+    }
+
+    @Test
+    @DisplayName("nextCursor() should produce a token that seeks past the last row")
+    void nextCursor_RoundTripsIntoSeekPredicate() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder()
+                                              .directionAmount(Direction.ASC)
+                                              .directionCreatedAt(Direction.DESC)
+                                              .build();
+        List<SortKey> keys = filter.createSortKeys();
+        Payment last = create(Payment.class);
+        last.setAmount(new BigDecimal("12.50"));
+        last.setCreatedAt(OffsetDateTime.parse("2025-01-01T10:00:00.123456Z"));
+
+        // when
+        filter.setCursor(filter.nextCursor(keys, last));
+        String predicate = filter.createKeysetPredicate(keys).toString();
+
+        // then
+        assertThat(predicate).contains("payment.amount > 12.50")
+                             .contains("payment.amount = 12.50 && payment.createdAt < 2025-01-01T10:00:00.123456Z")
+                             .contains("payment.guid > " + last.getGuid());
+    }
+
+    @Test
+    @DisplayName("a cursor issued for another sort should be rejected")
+    void createKeysetPredicate_RejectsForeignCursor() {
+        // given
+        QPaymentFilter amountSorted = QPaymentFilter.builder().directionAmount(Direction.ASC).build();
+        String token = amountSorted.nextCursor(amountSorted.createSortKeys(), create(Payment.class));
+        QPaymentFilter defaultSorted = QPaymentFilter.builder().cursor(token).build();
+
+        // when / then
+        assertThatThrownBy(() -> defaultSorted.createKeysetPredicate(defaultSorted.createSortKeys()))
+                .isInstanceOf(ServiceException.class);
+    }
+
+    @Test
+    @DisplayName("a note fragment should filter case-insensitively and order by relevance")
+    void createSort_OrdersNoteMatchesByRelevance() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder().note("  Refund ").build();
+
+        // when
+        String predicate = filter.createPredicate().toString();
+        Sort sort = filter.createSort();
+
+        // then
+        assertThat(predicate).contains("containsIc(payment.note,Refund)");
+        assertThat(sort).isInstanceOf(QSort.class);
+        assertThat(((QSort) sort).getOrderSpecifiers())
+                .extracting(Object::toString)
+                .containsExactly("function('word_similarity', Refund, payment.note) DESC",
+                                 "payment.createdAt DESC", "payment.guid ASC");
+    }
+
+    @Test
+    @DisplayName("an explicit direction should replace the relevance order of a note search")
+    void createSort_KeepsExplicitDirectionForNoteSearch() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder().note("refund").directionAmount(Direction.DESC).build();
+
+        // when
+        Sort sort = filter.createSort();
+
+        // then
+        assertThat(sort).containsExactly(Sort.Order.desc("amount"));
+    }
+
+    @Test
+    @DisplayName("a note fragment too short for the trigram index should be rejected")
+    void createPredicate_RejectsShortNote() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder().note(" re ").build();
+
+        // when / then
+        assertThatThrownBy(filter::createPredicate)
+                .isInstanceOf(ServiceException.class)
+                .hasMessage("Note search needs at least 3 characters");
+    }
+
+    @Test
+    @DisplayName("page sizes below 1 or above the maximum should be rejected with 400")
+    void checkedPageSize_RejectsOutOfRange() {
+        // given
+        QPaymentFilter empty = QPaymentFilter.builder().pageSize(0).build();
+        QPaymentFilter huge = QPaymentFilter.builder().pageSize(QPaymentFilter.MAX_PAGE_SIZE + 1).build();
+        QPaymentFilter largest = QPaymentFilter.builder().pageSize(QPaymentFilter.MAX_PAGE_SIZE).build();
+
+        // when / then
+        assertThatThrownBy(empty::checkedPageSize)
+                .isInstanceOf(ServiceException.class)
+                .hasMessage("Page size must be between 1 and " + QPaymentFilter.MAX_PAGE_SIZE)
+                .extracting("status")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThatThrownBy(huge::createPageable).isInstanceOf(ServiceException.class);
+        assertThat(largest.checkedPageSize()).isEqualTo(QPaymentFilter.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    @DisplayName("countKey() should tell note searches apart regardless of case")
+    void countKey_IncludesNote() {
+        // given
+        QPaymentFilter lower = QPaymentFilter.builder().note("refund").build();
+        QPaymentFilter upper = QPaymentFilter.builder().note("REFUND ").build();
+        QPaymentFilter other = QPaymentFilter.builder().note("chargeback").build();
+
+        // when / then
+        assertThat(lower.countKey()).isEqualTo(upper.countKey())
+                                    .isNotEqualTo(other.countKey());
+        assertThat(lower.countKey().isUnfiltered()).isFalse();
+    }
+}
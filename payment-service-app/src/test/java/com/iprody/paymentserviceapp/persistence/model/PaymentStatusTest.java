@@ -0,0 +1,29 @@
+package com.iprody.paymentserviceapp.persistence.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentStatusTest {
+
+    @Test
+    @DisplayName("final statuses should not move back to PENDING or to each other")
+    void canTransitionFrom_RejectsRegressions() {
+        assertThat(PaymentStatus.PENDING.canTransitionFrom(PaymentStatus.APPROVED)).isFalse();
+        assertThat(PaymentStatus.PENDING.canTransitionFrom(PaymentStatus.DECLINED)).isFalse();
+        assertThat(PaymentStatus.APPROVED.canTransitionFrom(PaymentStatus.DECLINED)).isFalse();
+        assertThat(PaymentStatus.DECLINED.canTransitionFrom(PaymentStatus.APPROVED)).isFalse();
+        assertThat(PaymentStatus.RECEIVED.predecessors()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("adapter lifecycle transitions should be allowed")
+    void canTransitionFrom_AllowsLifecycle() {
+        assertThat(PaymentStatus.PENDING.canTransitionFrom(PaymentStatus.RECEIVED)).isTrue();
+        assertThat(PaymentStatus.PENDING.canTransitionFrom(PaymentStatus.PENDING)).isTrue();
+        assertThat(PaymentStatus.APPROVED.canTransitionFrom(PaymentStatus.PENDING)).isTrue();
+        assertThat(PaymentStatus.DECLINED.canTransitionFrom(PaymentStatus.PENDING)).isTrue();
+        assertThat(PaymentStatus.NOT_SENT.canTransitionFrom(PaymentStatus.RECEIVED)).isTrue();
+    }
+}
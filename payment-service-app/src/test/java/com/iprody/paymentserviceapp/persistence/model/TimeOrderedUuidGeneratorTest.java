@@ -0,0 +1,57 @@
+package com.iprody.paymentserviceapp.persistence.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+    private static final long NOW = 1_760_745_600_000L;
+
+    @Test
+    @DisplayName("generated UUIDs should carry version 7, the RFC variant and the millisecond timestamp")
+    void generate_EncodesVersionVariantAndTimestamp() {
+        UUID uuid = new TimeOrderedUuidGenerator(() -> NOW).generate();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(NOW);
+    }
+
+    @Test
+    @DisplayName("UUIDs should keep increasing within a millisecond, on counter overflow and when the clock goes back")
+    void generate_IsMonotonic() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator(clock::get);
+
+        UUID previous = generator.generate();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.set(NOW - 1_000);
+            }
+            UUID next = generator.generate();
+            assertThat(next.getMostSignificantBits()).isGreaterThan(previous.getMostSignificantBits());
+            previous = next;
+        }
+        assertThat(previous.getMostSignificantBits() >>> 16).isEqualTo(NOW + 2);
+    }
+
+    @Test
+    @DisplayName("a later millisecond should restart the counter")
+    void generate_RestartsCounterOnNewMillisecond() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator(clock::get);
+        generator.generate();
+        generator.generate();
+
+        clock.set(NOW + 10);
+        UUID uuid = generator.generate();
+
+        assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(NOW + 10);
+        assertThat(uuid.getMostSignificantBits() & 0xFFF).isZero();
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -25,6 +26,7 @@ import java.util.UUID;
 import static org.instancio.Select.field;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -32,6 +34,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -101,6 +104,25 @@ class PaymentControllerTest {
                .andExpect(jsonPath("$.guid").value(dto.guid().toString().toLowerCase()));
     }
 
+    @Test
+    @DisplayName("GET /payments/{id} should return the version as ETag and 304 when it did not change")
+    void getById_ReturnsNotModified_WhenETagMatches() throws Exception {
+        // given
+        PaymentDto dto = Instancio.of(PaymentDto.class)
+                                  .set(field(PaymentDto::version), 3L)
+                                  .create();
+        when(paymentService.getById(dto.guid())).thenReturn(dto);
+
+        // when & then
+        mockMvc.perform(get("/payments/{id}", dto.guid()))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get("/payments/{id}", dto.guid())
+                                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+               .andExpect(status().isNotModified())
+               .andExpect(content().string(""));
+    }
+
     @Test
     @DisplayName("GET /payments/{id} should return 404 when payment not found")
     void getById_ReturnsNotFound_WhenMissing() throws Exception {
@@ -174,7 +196,7 @@ class PaymentControllerTest {
                                          .set(field(PaymentDto::note), "updated note")
                                          .create();
 
-        when(paymentService.update(inputDto)).thenReturn(updatedDto);
+        when(paymentService.update(inputDto, null)).thenReturn(updatedDto);
 
         // when & then
         mockMvc.perform(put("/payments/{id}", inputDto.guid())
@@ -186,13 +208,48 @@ class PaymentControllerTest {
                .andExpect(jsonPath("$.note").value("updated note"));
     }
 
+    @Test
+    @DisplayName("PUT /payments/{id} should pass the If-Match version and return the new ETag")
+    void updatePayment_ChecksIfMatchVersion() throws Exception {
+        // given
+        PaymentDto inputDto = Instancio.create(PaymentDto.class);
+        PaymentDto updatedDto = Instancio.of(PaymentDto.class)
+                                         .set(field(PaymentDto::version), 8L)
+                                         .create();
+        when(paymentService.update(inputDto, 7L)).thenReturn(updatedDto);
+
+        // when & then
+        mockMvc.perform(put("/payments/{id}", inputDto.guid())
+                                .header(HttpHeaders.IF_MATCH, "\"7\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(inputDto)))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"8\""));
+    }
+
+    @Test
+    @DisplayName("PUT /payments/{id} should return 412 when the payment has another version")
+    void updatePayment_ReturnsPreconditionFailed_WhenVersionNotMatch() throws Exception {
+        // given
+        PaymentDto inputDto = Instancio.create(PaymentDto.class);
+        doThrow(new ServiceException(ErrorMessage.VERSION_NOT_MATCH, inputDto.guid()))
+                .when(paymentService).update(inputDto, 7L);
+
+        // when & then
+        mockMvc.perform(put("/payments/{id}", inputDto.guid())
+                                .header(HttpHeaders.IF_MATCH, "\"7\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(inputDto)))
+               .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("PUT /payments/{id} should return 404 when payment not exists")
     void updatePayment_ThrowsNotFound_WhenNotExists() throws Exception {
         // given
         PaymentDto inputDto = Instancio.create(PaymentDto.class);
         doThrow(new ServiceException(ErrorMessage.PAYMENT_NOT_EXIST, inputDto.guid()))
-                .when(paymentService).update(inputDto);
+                .when(paymentService).update(inputDto, null);
 
         // when & then
         mockMvc.perform(put("/payments/{id}", inputDto.guid())
@@ -207,7 +264,7 @@ class PaymentControllerTest {
         // given
         UUID id = UUID.randomUUID();
         String newNote = "patch note";
-        when(paymentService.updateNote(id, newNote)).thenReturn(true);
+        when(paymentService.updateNote(id, newNote, null)).thenReturn(true);
 
         // when & then
         mockMvc.perform(patch("/payments/{id}", id)
@@ -218,6 +275,20 @@ class PaymentControllerTest {
                .andExpect(jsonPath("$").value(true));
     }
 
+    @Test
+    @DisplayName("PATCH /payments/{id} should return 412 for a weak If-Match ETag")
+    void updateNotePatch_ReturnsPreconditionFailed_WhenETagWeak() throws Exception {
+        // given
+        UUID id = UUID.randomUUID();
+
+        // when & then
+        mockMvc.perform(patch("/payments/{id}", id)
+                                .param("note", "patch note")
+                                .header(HttpHeaders.IF_MATCH, "W/\"7\""))
+               .andExpect(status().isPreconditionFailed());
+        verifyNoInteractions(paymentService);
+    }
+
     @Test
     @DisplayName("PATCH /payments/{id} should return 404 when payment not exists")
     void updateNotePatch_ThrowsNotFound_WhenNotExists() throws Exception {
@@ -225,7 +296,7 @@ class PaymentControllerTest {
         UUID id = UUID.randomUUID();
         String newNote = "patch note";
         doThrow(new ServiceException(ErrorMessage.PAYMENT_NOT_EXIST, id))
-                .when(paymentService).updateNote(id, newNote);
+                .when(paymentService).updateNote(id, newNote, null);
 
         // when & then
         mockMvc.perform(patch("/payments/{id}", id)
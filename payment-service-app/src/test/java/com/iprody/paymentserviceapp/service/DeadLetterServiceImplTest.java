@@ -0,0 +1,126 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.async.MessageRetrier;
+import com.iprody.paymentserviceapp.async.RetryProperties;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterResponseMessage;
+import com.iprody.paymentserviceapp.async.XPaymentAdapterStatus;
+import com.iprody.paymentserviceapp.converter.DeadLetterMapper;
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository;
+import com.iprody.paymentserviceapp.persistence.repository.DeadLetterRepository.DeadLetter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterServiceImplTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Mock
+    private DeadLetterRepository repository;
+
+    @Mock
+    private DeadLetterMapper mapper;
+
+    @Mock
+    private MessageRetrier retrier;
+
+    @Captor
+    private ArgumentCaptor<List<XPaymentAdapterResponseMessage>> messagesCaptor;
+
+    private DeadLetterService service;
+
+    @BeforeEach
+    void setUp() {
+        RetryProperties properties = new RetryProperties(5, Duration.ofMillis(200), Duration.ofSeconds(30), 2.0, 0.5,
+                                                         LEASE);
+        service = new DeadLetterServiceImpl(repository, mapper, retrier, properties);
+    }
+
+    @Test
+    @DisplayName("replayOldest() should lease the records and replay them without deleting any")
+    void replayOldest_ClaimsRecordsWithoutDeleting() {
+        // given
+        DeadLetter first = deadLetter(1);
+        DeadLetter second = deadLetter(2);
+        when(repository.claim(100, LEASE)).thenReturn(List.of(first, second));
+
+        // when
+        int replayed = service.replayOldest(100);
+
+        // then
+        assertThat(replayed).isEqualTo(2);
+        verify(retrier).replay(messagesCaptor.capture());
+        assertThat(messagesCaptor.getValue())
+                .extracting(XPaymentAdapterResponseMessage::getDeadLetterId)
+                .containsExactly(1L, 2L);
+        verify(repository, never()).delete(anyLong());
+    }
+
+    @Test
+    @DisplayName("replay() should lease only the requested records")
+    void replay_ClaimsRequestedRecords() {
+        // given
+        when(repository.claim(List.of(7L), LEASE)).thenReturn(List.of(deadLetter(7)));
+
+        // when
+        int replayed = service.replay(List.of(7L));
+
+        // then
+        assertThat(replayed).isEqualTo(1);
+        verify(retrier).replay(messagesCaptor.capture());
+        assertThat(messagesCaptor.getValue())
+                .extracting(XPaymentAdapterResponseMessage::getDeadLetterId)
+                .containsExactly(7L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, 501})
+    @DisplayName("replayOldest() and findAll() should reject a limit outside 1..500")
+    void replayOldest_RejectsLimitOutOfRange(int limit) {
+        // when / then
+        assertThatThrownBy(() -> service.replayOldest(limit))
+                .isInstanceOf(ServiceException.class)
+                .hasMessage("Limit must be between 1 and " + QPaymentFilter.MAX_PAGE_SIZE)
+                .extracting("status")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThatThrownBy(() -> service.findAll(limit))
+                .isInstanceOf(ServiceException.class);
+        verify(repository, never()).claim(anyInt(), any());
+        verifyNoInteractions(retrier);
+    }
+
+    private static DeadLetter deadLetter(long id) {
+        XPaymentAdapterResponseMessage message = new XPaymentAdapterResponseMessage();
+        message.setMessageGuid(UUID.randomUUID());
+        message.setPaymentGuid(UUID.randomUUID());
+        message.setStatus(XPaymentAdapterStatus.SUCCEEDED);
+        message.setDeliveryAttempt(5);
+        return new DeadLetter(id, message, 5, "Payment does not exist", OffsetDateTime.now());
+    }
+}
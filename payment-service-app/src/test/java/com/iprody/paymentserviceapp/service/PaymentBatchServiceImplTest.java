@@ -0,0 +1,225 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.BatchCreateResult;
+import com.iprody.paymentserviceapp.controller.model.BatchItemResult;
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.converter.PaymentConverterImpl;
+import com.iprody.paymentserviceapp.converter.XPaymentAdapterMapperImpl;
+import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentBatchRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentBatchServiceImplTest {
+
+    @Mock
+    private PaymentBatchRepository batchRepository;
+
+    @Mock
+    private PaymentOutboxRepository outboxRepository;
+
+    @Mock
+    private PaymentStatsService statsService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<Payment>> paymentsCaptor;
+
+    private PaymentBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        batchService = new PaymentBatchServiceImpl(batchRepository,
+                                                   outboxRepository,
+                                                   new PaymentConverterImpl(),
+                                                   new XPaymentAdapterMapperImpl(),
+                                                   statsService,
+                                                   transactionManager,
+                                                   new BatchProperties(5, 100, 3),
+                                                   new ObjectMapper(),
+                                                   new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("createAll() should insert valid payments and report invalid ones by index")
+    void createAll_ReportsInvalidItems() {
+        // given
+        List<PaymentDto> payments = new ArrayList<>();
+        payments.add(payment(new BigDecimal("10.50"), "EUR"));
+        payments.add(payment(new BigDecimal("10.505"), "EUR"));
+        payments.add(null);
+        payments.add(payment(BigDecimal.ONE, "EURO"));
+
+        // when
+        BatchCreateResult result = batchService.createAll(payments);
+
+        // then
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(result.items()).extracting(BatchItemResult::index).containsExactly(0, 1, 2, 3);
+        assertThat(result.items().getFirst().error()).isNull();
+        assertThat(result.items().subList(1, 4)).allSatisfy(item -> {
+            assertThat(item.guid()).isNull();
+            assertThat(item.error()).isNotBlank();
+        });
+
+        verify(batchRepository).insertAll(paymentsCaptor.capture(), eq(100));
+        Payment inserted = paymentsCaptor.getValue().getFirst();
+        assertThat(inserted.getGuid()).isEqualTo(result.items().getFirst().guid());
+        assertThat(inserted.getStatus()).isEqualTo(PaymentStatus.RECEIVED);
+        assertThat(inserted.getCreatedAt()).isNotNull();
+        assertThat(inserted.getUpdatedAt()).isEqualTo(inserted.getCreatedAt());
+        verify(outboxRepository).addAll(anyList(), eq(100));
+        verify(batchRepository, never()).copyAll(any());
+        verify(statsService).added(PaymentSnapshot.of(inserted));
+    }
+
+    @Test
+    @DisplayName("createAll() should switch to COPY once the batch reaches the threshold")
+    void createAll_UsesCopyForLargeBatches() {
+        // given
+        List<PaymentDto> payments = List.of(payment(BigDecimal.ONE, "EUR"),
+                                            payment(BigDecimal.TEN, "USD"),
+                                            payment(BigDecimal.TWO, "GBP"));
+
+        // when
+        BatchCreateResult result = batchService.createAll(payments);
+
+        // then
+        assertThat(result.created()).isEqualTo(3);
+        verify(batchRepository).copyAll(paymentsCaptor.capture());
+        assertThat(paymentsCaptor.getValue()).hasSize(3);
+        verify(batchRepository, never()).insertAll(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("createAll() should report a payment whose guid is already stored without failing the batch")
+    void createAll_ReportsTakenGuidByIndex() {
+        // given
+        List<PaymentDto> payments = List.of(payment(BigDecimal.ONE, "EUR"), payment(BigDecimal.TEN, "USD"));
+        when(batchRepository.findExisting(anyList()))
+                .thenAnswer(invocation -> Set.of(invocation.<List<UUID>>getArgument(0).get(1)));
+
+        // when
+        BatchCreateResult result = batchService.createAll(payments);
+
+        // then
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.items().getFirst().error()).isNull();
+        assertThat(result.items().get(1).guid()).isNull();
+        assertThat(result.items().get(1).error()).isEqualTo("guid already exists");
+        verify(batchRepository).insertAll(paymentsCaptor.capture(), eq(100));
+        assertThat(paymentsCaptor.getValue()).extracting(Payment::getGuid)
+                                             .containsExactly(result.items().getFirst().guid());
+    }
+
+    @Test
+    @DisplayName("createAll() should insert one by one and report the failing payment when the database rejects "
+            + "the batch")
+    void createAll_ReportsDatabaseFailureByIndex() {
+        // given
+        PaymentDto rejectedPayment = payment(BigDecimal.TEN, "USD");
+        List<PaymentDto> payments = List.of(payment(BigDecimal.ONE, "EUR"), rejectedPayment);
+        doAnswer(invocation -> {
+            List<Payment> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(p -> p.getInquiryRefId().equals(rejectedPayment.inquiryRefId()))) {
+                throw new DataIntegrityViolationException("check_payment_status");
+            }
+            return null;
+        }).when(batchRepository).insertAll(anyList(), anyInt());
+
+        // when
+        BatchCreateResult result = batchService.createAll(payments);
+
+        // then
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.items()).extracting(BatchItemResult::index).containsExactly(0, 1);
+        assertThat(result.items().getFirst().guid()).isNotNull();
+        assertThat(result.items().get(1).guid()).isNull();
+        assertThat(result.items().get(1).error()).isEqualTo("payment could not be stored");
+        verify(outboxRepository).addAll(anyList(), eq(100));
+    }
+
+    @Test
+    @DisplayName("createAll() should reject a batch larger than the configured maximum")
+    void createAll_RejectsOversizedBatch() {
+        // given
+        List<PaymentDto> payments = Collections.nCopies(6, payment(BigDecimal.ONE, "EUR"));
+
+        // when / then
+        assertThatThrownBy(() -> batchService.createAll(payments))
+                .isInstanceOf(ServiceException.class)
+                .hasMessageContaining("5");
+        verifyNoInteractions(batchRepository, outboxRepository);
+    }
+
+    @Test
+    @DisplayName("createAll(ndjson) should report a malformed line without failing the batch")
+    void createAllNdjson_ReportsMalformedLine() throws IOException {
+        // given
+        String ndjson = """
+                {"inquiryRefId":"%s","amount":12.5,"currency":"EUR"}
+                {"inquiryRefId":
+                
+                {"inquiryRefId":"%s","amount":3,"currency":"USD","status":"PENDING"}
+                """.formatted(UUID.randomUUID(), UUID.randomUUID());
+
+        // when
+        BatchCreateResult result = batchService.createAll(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.items()).hasSize(3);
+        assertThat(result.items().get(1).error()).startsWith("Malformed JSON");
+        verify(batchRepository).insertAll(paymentsCaptor.capture(), eq(100));
+        assertThat(paymentsCaptor.getValue()).extracting(Payment::getStatus)
+                                             .containsExactly(PaymentStatus.RECEIVED, PaymentStatus.PENDING);
+    }
+
+    private static PaymentDto payment(BigDecimal amount, String currency) {
+        return new PaymentDto(null, UUID.randomUUID(), amount, currency, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,214 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<UUID, Optional<PaymentDto>> loader = id -> {
+        loads.incrementAndGet();
+        return Optional.of(payment(id, null));
+    };
+
+    @Test
+    @DisplayName("get() should load a payment once and answer the following lookups from the cache")
+    void get_LoadsOnce() {
+        // given
+        PaymentCache cache = cache(DataSize.ofMegabytes(1));
+        UUID id = UUID.randomUUID();
+
+        // when
+        cache.get(id, loader);
+        Optional<PaymentDto> cached = cache.get(id, loader);
+
+        // then
+        assertThat(cached).map(PaymentDto::guid).contains(id);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("payment.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("payment.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(meterRegistry.get("payment.cache.load").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get() should not cache missing payments")
+    void get_DoesNotCacheMissingPayments() {
+        // given
+        PaymentCache cache = cache(DataSize.ofMegabytes(1));
+        UUID id = UUID.randomUUID();
+
+        // when
+        cache.get(id, missing -> Optional.empty());
+
+        // then
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("get() should discard a payment invalidated while it was being loaded")
+    void get_DiscardsValueInvalidatedDuringLoad() {
+        // given
+        PaymentCache cache = cache(DataSize.ofMegabytes(1));
+        UUID id = UUID.randomUUID();
+
+        // when
+        Optional<PaymentDto> stale = cache.get(id, loading -> {
+            cache.invalidate(loading);
+            return Optional.of(payment(loading, "stale"));
+        });
+        Optional<PaymentDto> fresh = cache.get(id, loader);
+
+        // then
+        assertThat(stale).map(PaymentDto::note).contains("stale");
+        assertThat(fresh).map(PaymentDto::note).isEmpty();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("invalidate() should make the next lookup load the payment again")
+    void invalidate_ForcesReload() {
+        // given
+        PaymentCache cache = cache(DataSize.ofMegabytes(1));
+        UUID id = UUID.randomUUID();
+        cache.get(id, loader);
+
+        // when
+        cache.invalidate(id);
+        cache.get(id, loader);
+
+        // then
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get("payment.cache.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("changedRecently() should report an invalidated payment until primaryReads has passed")
+    void changedRecently_ExpiresAfterPrimaryReads() {
+        // given
+        PaymentCache cache = cache(DataSize.ofMegabytes(1));
+        UUID changed = UUID.randomUUID();
+        UUID untouched = UUID.randomUUID();
+
+        // when
+        cache.invalidate(changed);
+
+        // then
+        assertThat(cache.changedRecently(changed)).isTrue();
+        assertThat(cache.changedRecently(untouched)).isFalse();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(cache.changedRecently(changed)).isFalse();
+    }
+
+    @Test
+    @DisplayName("get() should reload a payment cached longer than expireAfterWrite")
+    void get_ReloadsExpiredPayment() {
+        // given
+        PaymentCache cache = cache(DataSize.ofMegabytes(1));
+        UUID id = UUID.randomUUID();
+        cache.get(id, loader);
+
+        // when
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+        cache.get(id, loader);
+
+        // then
+        assertThat(loads).hasValue(2);
+        assertThat(meterRegistry.get("payment.cache.evictions").tag("cause", "expired").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get() should keep frequently read payments when a scan overflows the cache")
+    void get_KeepsHotPaymentsDuringScan() {
+        // given
+        PaymentCache cache = cache(DataSize.ofKilobytes(50));
+        UUID[] hot = new UUID[10];
+        for (int i = 0; i < hot.length; i++) {
+            hot[i] = UUID.randomUUID();
+        }
+        for (int round = 0; round < 5; round++) {
+            for (UUID id : hot) {
+                cache.get(id, loader);
+            }
+        }
+        int hotLoads = loads.get();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            cache.get(UUID.randomUUID(), loader);
+        }
+        loads.set(0);
+        for (UUID id : hot) {
+            cache.get(id, loader);
+        }
+
+        // then
+        assertThat(hotLoads).isEqualTo(hot.length);
+        assertThat(loads).hasValue(0);
+        assertThat(cache.weight()).isLessThanOrEqualTo(DataSize.ofKilobytes(50).toBytes());
+        assertThat(meterRegistry.get("payment.cache.evictions").tag("cause", "size").counter().count())
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("get() should weigh payments by the length of their note")
+    void get_WeighsPaymentsByNote() {
+        // given
+        PaymentCache cache = cache(DataSize.ofKilobytes(8));
+        String note = "x".repeat(1024);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            cache.get(UUID.randomUUID(), id -> Optional.of(payment(id, note)));
+        }
+
+        // then
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.weight()).isLessThanOrEqualTo(DataSize.ofKilobytes(8).toBytes());
+    }
+
+    @Test
+    @DisplayName("suspend() should send every lookup to the loader until resume()")
+    void suspend_BypassesCache() {
+        // given
+        PaymentCache cache = cache(DataSize.ofMegabytes(1));
+        UUID id = UUID.randomUUID();
+        cache.get(id, loader);
+
+        // when
+        cache.suspend();
+        cache.get(id, loader);
+        cache.get(id, loader);
+        cache.resume();
+        cache.get(id, loader);
+        cache.get(id, loader);
+
+        // then
+        assertThat(loads).hasValue(4);
+    }
+
+    private PaymentCache cache(DataSize maximumSize) {
+        return new PaymentCache(new CacheProperties(true, maximumSize, Duration.ofMinutes(10), Duration.ofSeconds(5),
+                                                    Duration.ofSeconds(10)),
+                                meterRegistry,
+                                clock::get);
+    }
+
+    private static PaymentDto payment(UUID id, String note) {
+        return new PaymentDto(id, UUID.randomUUID(), null, "EUR", null, null, note, null, null, null);
+    }
+}
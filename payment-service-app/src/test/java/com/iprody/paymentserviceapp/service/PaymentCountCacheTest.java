@@ -0,0 +1,100 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentCountCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    private PaymentCountCache countCache;
+
+    @BeforeEach
+    void setUp() {
+        countCache = new PaymentCountCache(paymentRepository,
+                                           new CountProperties(Duration.ofSeconds(30), 10, true),
+                                           new SimpleMeterRegistry(),
+                                           clock::get);
+    }
+
+    @Test
+    @DisplayName("count() should reuse the exact count of an equivalent filter until the ttl expires")
+    void count_ReusesExactCountWithinTtl() {
+        // given
+        QPaymentFilter first = QPaymentFilter.builder()
+                                             .currencies(Set.of("EUR", "USD"))
+                                             .minAmount(new BigDecimal("10"))
+                                             .pageNumber(0)
+                                             .build();
+        QPaymentFilter second = QPaymentFilter.builder()
+                                              .currencies(Set.of("USD", "EUR"))
+                                              .minAmount(new BigDecimal("10.00"))
+                                              .pageNumber(3)
+                                              .build();
+        when(paymentRepository.count(any(Predicate.class))).thenReturn(7L, 8L);
+
+        // when
+        long cached = countCache.count(first);
+        long reused = countCache.count(second);
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        long refreshed = countCache.count(second);
+
+        // then
+        assertThat(cached).isEqualTo(7);
+        assertThat(reused).isEqualTo(7);
+        assertThat(refreshed).isEqualTo(8);
+        verify(paymentRepository, times(2)).count(any(Predicate.class));
+    }
+
+    @Test
+    @DisplayName("count() should answer an unfiltered search from planner statistics")
+    void count_UsesEstimateForUnfilteredSearch() {
+        // given
+        when(paymentRepository.estimateCount()).thenReturn(1_000_000L);
+
+        // when
+        long count = countCache.count(QPaymentFilter.builder().pageSize(50).build());
+
+        // then
+        assertThat(count).isEqualTo(1_000_000L);
+        verify(paymentRepository, never()).count(any(Predicate.class));
+    }
+
+    @Test
+    @DisplayName("count() should fall back to an exact count when the table has not been analyzed")
+    void count_FallsBackToExactCountWithoutStatistics() {
+        // given
+        when(paymentRepository.estimateCount()).thenReturn(-1L);
+        when(paymentRepository.count(any(Predicate.class))).thenReturn(3L);
+
+        // when
+        long count = countCache.count(new QPaymentFilter());
+
+        // then
+        assertThat(count).isEqualTo(3);
+    }
+}
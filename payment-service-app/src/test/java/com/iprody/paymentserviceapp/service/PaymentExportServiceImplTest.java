@@ -0,0 +1,105 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.converter.PaymentConverterImpl;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
+import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentExportServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private PaymentExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new PaymentExportServiceImpl(paymentRepository,
+                                                     new PaymentConverterImpl(),
+                                                     entityManager,
+                                                     new ExportProperties(100, 2),
+                                                     objectMapper);
+    }
+
+    @Test
+    @DisplayName("exportNdjson() should write one JSON line per payment and clear the persistence context")
+    void exportNdjson_WritesOneLinePerPayment() throws IOException {
+        // given
+        List<Payment> payments = Instancio.ofList(Payment.class)
+                                          .size(5)
+                                          .create();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(paymentRepository.stream(any(), eq(100)))
+                .thenReturn(payments.stream().onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long count = exportService.exportNdjson(new QPaymentFilter(), out);
+
+        // then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertThat(count).isEqualTo(5);
+        assertThat(lines).hasSize(6);
+        assertThat(lines[5]).isEmpty();
+        for (int i = 0; i < payments.size(); i++) {
+            PaymentDto dto = objectMapper.readValue(lines[i], PaymentDto.class);
+            assertThat(dto.guid()).isEqualTo(payments.get(i).getGuid());
+        }
+        assertThat(closed).isTrue();
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("exportNdjson() should write nothing when no payment matches")
+    void exportNdjson_WritesNothingForEmptyResult() throws IOException {
+        // given
+        when(paymentRepository.stream(any(), eq(100))).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long count = exportService.exportNdjson(new QPaymentFilter(), out);
+
+        // then
+        assertThat(count).isZero();
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("ExportProperties should reject a fetch size or clear interval that is not positive")
+    void exportProperties_RejectsNonPositiveValues() {
+        assertThatThrownBy(() -> new ExportProperties(0, 500)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ExportProperties(500, 0)).isInstanceOf(IllegalArgumentException.class)
+                                                               .hasMessageContaining("clear interval");
+    }
+}
@@ -0,0 +1,122 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.persistence.repository.PaymentPartitionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentPartitionMaintainerTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T12:00:00Z"), ZoneOffset.UTC);
+    private static final Duration LOCK_TIMEOUT = Duration.ofSeconds(5);
+
+    @Mock
+    private PaymentPartitionRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("maintain() should create missing future partitions and detach expired ones")
+    void maintain_CreatesAndDetaches() {
+        // given
+        when(repository.findMonths()).thenReturn(List.of(YearMonth.of(2025, 9), YearMonth.of(2025, 10),
+                                                         YearMonth.of(2026, 10), YearMonth.of(2026, 11)));
+        when(repository.lock(LOCK_TIMEOUT)).thenReturn(true);
+
+        // when
+        maintainer(PartitionRetentionAction.DETACH).maintain();
+
+        // then
+        verify(repository).create(YearMonth.of(2026, 12));
+        verify(repository).create(YearMonth.of(2027, 1));
+        verify(repository, never()).create(YearMonth.of(2026, 11));
+        verify(repository).detach(YearMonth.of(2025, 9));
+        verify(repository, never()).detach(YearMonth.of(2025, 10));
+        verify(repository, never()).drop(any());
+    }
+
+    @Test
+    @DisplayName("maintain() should remove the guids and statistics of an expired month before dropping it")
+    void maintain_ForgetsExpiredMonthBeforeDrop() {
+        // given
+        YearMonth expired = YearMonth.of(2025, 9);
+        when(repository.findMonths()).thenReturn(List.of(expired, YearMonth.of(2026, 10), YearMonth.of(2026, 11),
+                                                         YearMonth.of(2026, 12), YearMonth.of(2027, 1)));
+        when(repository.lock(LOCK_TIMEOUT)).thenReturn(true);
+
+        // when
+        maintainer(PartitionRetentionAction.DROP).maintain();
+
+        // then
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).lock(LOCK_TIMEOUT);
+        inOrder.verify(repository).forget(expired);
+        inOrder.verify(repository).drop(expired);
+        verify(repository).forget(any());
+    }
+
+    @Test
+    @DisplayName("maintain() should keep expired partitions, newer ones too, once removing the oldest one fails")
+    void maintain_KeepsPartitions_WhenForgetFails() {
+        // given
+        YearMonth expired = YearMonth.of(2025, 8);
+        when(repository.findMonths()).thenReturn(List.of(expired, YearMonth.of(2025, 9), YearMonth.of(2026, 10),
+                                                         YearMonth.of(2026, 11), YearMonth.of(2026, 12),
+                                                         YearMonth.of(2027, 1)));
+        when(repository.lock(LOCK_TIMEOUT)).thenReturn(true);
+        doThrow(new IllegalStateException("lock timeout")).when(repository).forget(expired);
+
+        // when
+        maintainer(PartitionRetentionAction.DETACH).maintain();
+
+        // then
+        verify(repository, never()).forget(YearMonth.of(2025, 9));
+        verify(repository, never()).detach(any());
+    }
+
+    @Test
+    @DisplayName("maintain() should keep going after one change fails and skip changes locked by another instance")
+    void maintain_ContinuesAfterFailure() {
+        // given
+        when(repository.findMonths()).thenReturn(List.of(YearMonth.of(2025, 1), YearMonth.of(2026, 10)));
+        when(repository.lock(LOCK_TIMEOUT)).thenReturn(true, true, true, false);
+        doThrow(new IllegalStateException("default partition contains rows"))
+                .when(repository).create(YearMonth.of(2026, 11));
+
+        // when
+        maintainer(PartitionRetentionAction.DROP).maintain();
+
+        // then
+        verify(repository).create(YearMonth.of(2026, 12));
+        verify(repository).create(YearMonth.of(2027, 1));
+        verify(repository, never()).drop(any());
+    }
+
+    private PaymentPartitionMaintainer maintainer(PartitionRetentionAction action) {
+        PartitionProperties properties = new PartitionProperties(true, Duration.ofHours(1), 3, 12, action,
+                                                                  LOCK_TIMEOUT);
+        return new PaymentPartitionMaintainer(repository, transactionManager, properties, new SimpleMeterRegistry(),
+                                              CLOCK);
+    }
+}
@@ -1,24 +1,41 @@
 package com.iprody.paymentserviceapp.service;
 
-import com.iprody.paymentserviceapp.async.AsyncSender;
 import com.iprody.paymentserviceapp.async.XPaymentAdapterRequestMessage;
 import com.iprody.paymentserviceapp.controller.model.PaymentDto;
+import com.iprody.paymentserviceapp.controller.model.SlicePage;
 import com.iprody.paymentserviceapp.converter.PaymentConverter;
 import com.iprody.paymentserviceapp.converter.PaymentConverterImpl;
 import com.iprody.paymentserviceapp.converter.XPaymentAdapterMapper;
 import com.iprody.paymentserviceapp.exception.ServiceException;
+import com.iprody.paymentserviceapp.persistence.QPaymentFilter;
 import com.iprody.paymentserviceapp.persistence.model.Payment;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentOutboxRepository;
 import com.iprody.paymentserviceapp.persistence.repository.PaymentRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentRow;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentSnapshot;
+import com.iprody.paymentserviceapp.persistence.repository.StatusUpdateResult;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static java.util.Collections.emptyList;
@@ -26,9 +43,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.instancio.Instancio.create;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,47 +63,66 @@ class PaymentServiceImplTest {
     private XPaymentAdapterMapper xPaymentAdapterMapper;
 
     @Mock
-    private AsyncSender<XPaymentAdapterRequestMessage> sender;
+    private PaymentOutboxRepository outboxRepository;
+
+    @Mock
+    private PaymentCountCache countCache;
+
+    @Mock
+    private PaymentStatsService statsService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @BeforeEach
     void setUp() {
         PaymentConverter paymentConverter = new PaymentConverterImpl();
+        PaymentCache cache = new PaymentCache(new CacheProperties(true, DataSize.ofMegabytes(1),
+                                                                  Duration.ofMinutes(10), Duration.ofSeconds(5),
+                                                                  Duration.ofSeconds(10)),
+                                              new SimpleMeterRegistry());
         paymentService = new PaymentServiceImpl(paymentRepository,
                                                 paymentConverter,
                                                 xPaymentAdapterMapper,
-                                                sender);
+                                                outboxRepository,
+                                                countCache,
+                                                cache,
+                                                statsService,
+                                                transactionManager);
     }
 
     @Test
     @DisplayName("findAll() should return a list of PaymentDto")
     void findAll_ReturnsListOfPaymentDto() {
         // given
-        List<Payment> payments = Instancio.ofList(Payment.class)
-                                          .size(3)
-                                          .create();
+        List<PaymentRow> payments = Instancio.ofList(PaymentRow.class)
+                                             .size(3)
+                                             .create();
 
-        when(paymentRepository.findAll()).thenReturn(payments);
+        when(paymentRepository.findRows(any(), any())).thenReturn(payments);
 
         // when
         List<PaymentDto> result = paymentService.findAll();
 
         // then
-        assertThat(result).hasSize(3);
-        verify(paymentRepository, times(1)).findAll();
+        assertThat(result).extracting(PaymentDto::guid)
+                          .containsExactlyElementsOf(payments.stream().map(PaymentRow::guid).toList());
+        verify(paymentRepository, times(1)).findRows(any(), any());
+        verify(paymentRepository, never()).findAll();
     }
 
     @Test
     @DisplayName("findAll() should return an empty list when the repository is empty")
     void findAll_ReturnsEmptyList_WhenRepositoryEmpty() {
         // given
-        when(paymentRepository.findAll()).thenReturn(emptyList());
+        when(paymentRepository.findRows(any(), any())).thenReturn(emptyList());
 
         // when
         List<PaymentDto> result = paymentService.findAll();
 
         // then
         assertThat(result).isEmpty();
-        verify(paymentRepository, times(1)).findAll();
+        verify(paymentRepository, times(1)).findRows(any(), any());
     }
 
     @Test
@@ -93,7 +132,7 @@ class PaymentServiceImplTest {
         Payment payment = create(Payment.class);
         UUID id = payment.getGuid();
 
-        when(paymentRepository.findById(id)).thenReturn(Optional.of(payment));
+        when(paymentRepository.findByGuid(id)).thenReturn(Optional.of(payment));
 
         // when
         Optional<PaymentDto> result = paymentService.findById(id);
@@ -105,7 +144,7 @@ class PaymentServiceImplTest {
         assertThat(result.get().note()).isEqualTo(payment.getNote());
         assertThat(result.get().createdAt()).isNotNull();
         assertThat(result.get().updatedAt()).isNotNull();
-        verify(paymentRepository, times(1)).findById(id);
+        verify(paymentRepository, times(1)).findByGuid(id);
     }
 
     @Test
@@ -113,24 +152,93 @@ class PaymentServiceImplTest {
     void findById_ReturnsEmpty_WhenNotFound() {
         // given
         UUID id = UUID.randomUUID();
-        when(paymentRepository.findById(id)).thenReturn(Optional.empty());
+        when(paymentRepository.findByGuid(id)).thenReturn(Optional.empty());
 
         // when
         Optional<PaymentDto> result = paymentService.findById(id);
 
         // then
         assertThat(result).isEmpty();
-        verify(paymentRepository, times(1)).findById(id);
+        verify(paymentRepository, times(1)).findByGuid(id);
+    }
+
+    @Test
+    @DisplayName("findById() should answer repeated lookups from the cache until the payment is changed")
+    void findById_ReadsThroughCache_UntilStatusUpdated() {
+        // given
+        Payment payment = create(Payment.class);
+        UUID id = payment.getGuid();
+        when(paymentRepository.findByGuid(id)).thenReturn(Optional.of(payment));
+        when(paymentRepository.transitionStatus(eq(id), eq(PaymentStatus.APPROVED), any()))
+                .thenReturn(Optional.of(PaymentSnapshot.of(payment)));
+
+        // when
+        paymentService.getById(id);
+        paymentService.getById(id);
+        paymentService.updateStatus(id, PaymentStatus.APPROVED);
+        paymentService.getById(id);
+
+        // then
+        verify(paymentRepository, times(2)).findByGuid(id);
+    }
+
+    @Test
+    @DisplayName("findById() should load misses read-only, and from the primary right after a change")
+    void findById_LoadsReadOnly_UnlessChangedRecently() {
+        // given
+        Payment payment = create(Payment.class);
+        UUID id = payment.getGuid();
+        when(paymentRepository.findByGuid(id)).thenReturn(Optional.of(payment));
+        when(paymentRepository.transitionStatus(eq(id), eq(PaymentStatus.APPROVED), any()))
+                .thenReturn(Optional.of(PaymentSnapshot.of(payment)));
+
+        // when
+        paymentService.getById(id);
+        paymentService.updateStatus(id, PaymentStatus.APPROVED);
+        paymentService.getById(id);
+
+        // then
+        ArgumentCaptor<TransactionDefinition> loads = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(loads.capture());
+        assertThat(loads.getAllValues()).extracting(TransactionDefinition::isReadOnly)
+                                        .containsExactly(true, false);
     }
 
     @Test
-    @DisplayName("create() should save and return new PaymentDto")
+    @DisplayName("updateStatuses() should invalidate only the payments whose status was changed")
+    void updateStatuses_InvalidatesAppliedUpdatesOnly() {
+        // given
+        Payment applied = create(Payment.class);
+        Payment rejected = create(Payment.class);
+        when(paymentRepository.findByGuid(applied.getGuid())).thenReturn(Optional.of(applied));
+        when(paymentRepository.findByGuid(rejected.getGuid())).thenReturn(Optional.of(rejected));
+        when(paymentRepository.updateStatuses(any(), any()))
+                .thenReturn(new StatusUpdateResult(Set.of(), Set.of(rejected.getGuid()),
+                                                   List.of(PaymentSnapshot.of(applied))));
+        paymentService.getById(applied.getGuid());
+        paymentService.getById(rejected.getGuid());
+
+        // when
+        paymentService.updateStatuses(Map.of(applied.getGuid(), PaymentStatus.APPROVED,
+                                              rejected.getGuid(), PaymentStatus.APPROVED));
+        paymentService.getById(applied.getGuid());
+        paymentService.getById(rejected.getGuid());
+
+        // then
+        verify(paymentRepository, times(2)).findByGuid(applied.getGuid());
+        verify(paymentRepository, times(1)).findByGuid(rejected.getGuid());
+    }
+
+    @Test
+    @DisplayName("create() should save and return new PaymentDto and enqueue the adapter request")
     void create_SavesAndReturnsPaymentDto() {
         // given
         PaymentDto dto = create(PaymentDto.class);
         Payment entity = new PaymentConverterImpl().convert(dto);
+        XPaymentAdapterRequestMessage message = create(XPaymentAdapterRequestMessage.class);
 
         when(paymentRepository.save(entity)).thenReturn(entity);
+        when(xPaymentAdapterMapper.toXPaymentAdapterRequestMessage(entity)).thenReturn(message);
 
         // when
         PaymentDto result = paymentService.create(dto);
@@ -139,26 +247,48 @@ class PaymentServiceImplTest {
         assertThat(result).isNotNull();
         assertThat(result.guid()).isEqualTo(dto.guid());
         verify(paymentRepository, times(1)).save(entity);
+        verify(outboxRepository, times(1)).add(message);
     }
 
     @Test
-    @DisplayName("update() should update existing PaymentDto")
+    @DisplayName("update() should update existing PaymentDto and move it between statistics buckets")
     void update_UpdatesExistingPayment() {
         // given
         PaymentDto dto = create(PaymentDto.class);
         Payment entity = new PaymentConverterImpl().convert(dto);
+        Payment stored = create(Payment.class);
+        stored.setGuid(dto.guid());
 
-        when(paymentRepository.existsById(dto.guid())).thenReturn(true);
-        when(paymentRepository.save(entity)).thenReturn(entity);
+        when(paymentRepository.findForUpdate(dto.guid())).thenReturn(Optional.of(stored));
+        when(paymentRepository.saveAndFlush(entity)).thenReturn(entity);
 
         // when
-        PaymentDto result = paymentService.update(dto);
+        PaymentDto result = paymentService.update(dto, stored.getVersion());
 
         // then
         assertThat(result).isNotNull();
         assertThat(result.guid()).isEqualTo(dto.guid());
-        verify(paymentRepository, times(1)).existsById(dto.guid());
-        verify(paymentRepository, times(1)).save(entity);
+        verify(paymentRepository, times(1)).saveAndFlush(argThat(saved -> saved.getVersion()
+                                                                               .equals(stored.getVersion())));
+        verify(statsService).changed(PaymentSnapshot.of(stored), PaymentSnapshot.of(entity));
+    }
+
+    @Test
+    @DisplayName("update() should throw ServiceException when the payment has another version")
+    void update_ThrowsException_WhenVersionNotMatch() {
+        // given
+        PaymentDto dto = create(PaymentDto.class);
+        Payment stored = create(Payment.class);
+        stored.setGuid(dto.guid());
+        when(paymentRepository.findForUpdate(dto.guid())).thenReturn(Optional.of(stored));
+
+        // when & then
+        assertThatThrownBy(() -> paymentService.update(dto, stored.getVersion() + 1))
+                .isInstanceOf(ServiceException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        verify(paymentRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(statsService);
     }
 
     @Test
@@ -166,29 +296,29 @@ class PaymentServiceImplTest {
     void update_ThrowsException_WhenNotExists() {
         // given
         PaymentDto dto = create(PaymentDto.class);
-        when(paymentRepository.existsById(dto.guid())).thenReturn(false);
+        when(paymentRepository.findForUpdate(dto.guid())).thenReturn(Optional.empty());
 
         // when & then
-        assertThatThrownBy(() -> paymentService.update(dto))
+        assertThatThrownBy(() -> paymentService.update(dto, null))
                 .isInstanceOf(ServiceException.class)
                 .hasMessageContaining("Payment id=" + dto.guid() + " does not exist");
-        verify(paymentRepository, times(1)).existsById(dto.guid());
-        verify(paymentRepository, never()).save(any());
+        verify(paymentRepository, never()).saveAndFlush(any());
     }
 
     @Test
-    @DisplayName("delete() should delete existing payment")
+    @DisplayName("delete() should delete existing payment and stop counting it")
     void delete_DeletesExistingPayment() {
         // given
-        UUID id = UUID.randomUUID();
-        when(paymentRepository.existsById(id)).thenReturn(true);
+        PaymentSnapshot deleted = create(PaymentSnapshot.class);
+        UUID id = deleted.guid();
+        when(paymentRepository.deleteReturning(id)).thenReturn(Optional.of(deleted));
 
         // when
         paymentService.delete(id);
 
         // then
-        verify(paymentRepository, times(1)).existsById(id);
-        verify(paymentRepository, times(1)).deleteById(id);
+        verify(paymentRepository, times(1)).deleteReturning(id);
+        verify(statsService).removed(deleted);
     }
 
     @Test
@@ -196,14 +326,79 @@ class PaymentServiceImplTest {
     void delete_ThrowsException_WhenNotExists() {
         // given
         UUID id = UUID.randomUUID();
-        when(paymentRepository.existsById(id)).thenReturn(false);
+        when(paymentRepository.deleteReturning(id)).thenReturn(Optional.empty());
 
         // when & then
         assertThatThrownBy(() -> paymentService.delete(id))
                 .isInstanceOf(ServiceException.class)
                 .hasMessageContaining("Payment id=" + id + " does not exist");
-        verify(paymentRepository, times(1)).existsById(id);
-        verify(paymentRepository, never()).deleteById(id);
+        verify(statsService, never()).removed(any());
+    }
+
+    @Test
+    @DisplayName("updateStatuses() should delegate to repository batch update")
+    void updateStatuses_ReturnsNotUpdatedGuids() {
+        // given
+        UUID existing = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        Map<UUID, PaymentStatus> statuses = Map.of(existing, PaymentStatus.PENDING,
+                                                   missing, PaymentStatus.APPROVED);
+        when(paymentRepository.updateStatuses(eq(statuses), any()))
+                .thenReturn(new StatusUpdateResult(Set.of(missing), Set.of()));
+
+        // when
+        StatusUpdateResult result = paymentService.updateStatuses(statuses);
+
+        // then
+        assertThat(result.missing()).containsExactly(missing);
+        verify(paymentRepository, times(1)).updateStatuses(eq(statuses), any());
+    }
+
+    @Test
+    @DisplayName("updateStatus() should apply a legal transition with a single conditional update")
+    void updateStatus_ReturnsTrue_WhenTransitionApplied() {
+        // given
+        PaymentSnapshot previous = create(PaymentSnapshot.class).withStatus(PaymentStatus.PENDING);
+        UUID id = previous.guid();
+        when(paymentRepository.transitionStatus(eq(id), eq(PaymentStatus.APPROVED), any()))
+                .thenReturn(Optional.of(previous));
+
+        // when
+        boolean result = paymentService.updateStatus(id, PaymentStatus.APPROVED);
+
+        // then
+        assertThat(result).isTrue();
+        verify(paymentRepository, never()).findByGuid(any());
+        verify(paymentRepository, never()).save(any());
+        verify(statsService).changed(previous, previous.withStatus(PaymentStatus.APPROVED));
+    }
+
+    @Test
+    @DisplayName("updateStatus() should return false when the current status does not allow the transition")
+    void updateStatus_ReturnsFalse_WhenTransitionRejected() {
+        // given
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.transitionStatus(eq(id), eq(PaymentStatus.PENDING), any())).thenReturn(Optional.empty());
+        when(paymentRepository.existsByGuid(id)).thenReturn(true);
+
+        // when
+        boolean result = paymentService.updateStatus(id, PaymentStatus.PENDING);
+
+        // then
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    @DisplayName("updateStatus() should throw ServiceException when payment does not exist")
+    void updateStatus_ThrowsException_WhenPaymentMissing() {
+        // given
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.transitionStatus(eq(id), eq(PaymentStatus.PENDING), any())).thenReturn(Optional.empty());
+        when(paymentRepository.existsByGuid(id)).thenReturn(false);
+
+        // when / then
+        assertThatThrownBy(() -> paymentService.updateStatus(id, PaymentStatus.PENDING))
+                .isInstanceOf(ServiceException.class);
     }
 
     @Test
@@ -212,15 +407,15 @@ class PaymentServiceImplTest {
         // given
         UUID id = UUID.randomUUID();
         String note = "new note";
-//        when(paymentRepository.existsById(id)).thenReturn(true);
-        when(paymentRepository.updateNote(id, note)).thenReturn(1);
+//        when(paymentRepository.existsByGuid(id)).thenReturn(true);
+        when(paymentRepository.updateNote(id, note, null)).thenReturn(1);
 
         // when
-        boolean result = paymentService.updateNote(id, note);
+        boolean result = paymentService.updateNote(id, note, null);
 
         // then
         assertThat(result).isTrue();
-        verify(paymentRepository, times(1)).updateNote(id, note);
+        verify(paymentRepository, times(1)).updateNote(id, note, null);
     }
 
     @Test
@@ -229,13 +424,80 @@ class PaymentServiceImplTest {
         // given
         UUID id = UUID.randomUUID();
         String note = "new note";
-        when(paymentRepository.updateNote(id, note)).thenReturn(0);
+        when(paymentRepository.updateNote(id, note, 3L)).thenReturn(0);
 
         // when & then
-        assertThatThrownBy(() -> paymentService.updateNote(id, note))
+        assertThatThrownBy(() -> paymentService.updateNote(id, note, 3L))
                 .isInstanceOf(ServiceException.class)
                 .hasMessageContaining("Payment id=" + id + " does not exist");
-        verify(paymentRepository, times(1)).updateNote(id, note);
+        verify(paymentRepository, times(1)).updateNote(id, note, 3L);
+    }
+
+    @Test
+    @DisplayName("updateNote() should throw ServiceException when the payment has another version")
+    void updateNote_ThrowsException_WhenVersionNotMatch() {
+        // given
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.updateNote(id, "new note", 3L)).thenReturn(0);
+        when(paymentRepository.existsByGuid(id)).thenReturn(true);
+
+        // when & then
+        assertThatThrownBy(() -> paymentService.updateNote(id, "new note", 3L))
+                .isInstanceOf(ServiceException.class)
+                .hasMessageContaining("Payment with id=" + id + " has been modified");
+    }
+
+    @Test
+    @DisplayName("searchQSliced() should return hasNext and the cached total only when requested")
+    void searchQSliced_ReturnsSliceWithOptionalTotal() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder().pageSize(2).build();
+        List<PaymentRow> rows = Instancio.ofList(PaymentRow.class).size(3).create();
+        when(paymentRepository.findRows(any(), any(), eq(0L), eq(3))).thenReturn(rows);
+        when(countCache.count(filter)).thenReturn(42L);
+
+        // when
+        SlicePage<PaymentDto> withTotal = paymentService.searchQSliced(filter, true);
+        SlicePage<PaymentDto> withoutTotal = paymentService.searchQSliced(filter, false);
+
+        // then
+        assertThat(withTotal.items()).hasSize(2);
+        assertThat(withTotal.hasNext()).isTrue();
+        assertThat(withTotal.approximateTotal()).isEqualTo(42L);
+        assertThat(withoutTotal.approximateTotal()).isNull();
+        verify(countCache, times(1)).count(filter);
+        verify(paymentRepository, never()).count(any(Predicate.class));
     }
 
+    @Test
+    @DisplayName("searchQKeyset() should reject a page size out of range before querying")
+    void searchQKeyset_ThrowsException_WhenPageSizeOutOfRange() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder().pageSize(0).build();
+
+        // when & then
+        assertThatThrownBy(() -> paymentService.searchQKeyset(filter))
+                .isInstanceOf(ServiceException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(paymentRepository, never()).findBy(any(Predicate.class), any());
+    }
+
+    @Test
+    @DisplayName("searchQPaged() should skip the count query when the first page is not full")
+    void searchQPaged_SkipsCount_WhenFirstPageNotFull() {
+        // given
+        QPaymentFilter filter = QPaymentFilter.builder().pageSize(10).build();
+        List<PaymentRow> rows = Instancio.ofList(PaymentRow.class).size(4).create();
+        when(paymentRepository.findRows(any(), any(), eq(0L), eq(10))).thenReturn(rows);
+
+        // when
+        Page<PaymentDto> page = paymentService.searchQPaged(filter);
+
+        // then
+        assertThat(page.getContent()).extracting(PaymentDto::guid)
+                                     .containsExactlyElementsOf(rows.stream().map(PaymentRow::guid).toList());
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        verify(paymentRepository, never()).count(any(Predicate.class));
+    }
 }
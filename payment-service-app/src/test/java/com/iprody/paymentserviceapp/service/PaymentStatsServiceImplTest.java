@@ -0,0 +1,168 @@
+package com.iprody.paymentserviceapp.service;
+
+import com.iprody.paymentserviceapp.controller.model.PaymentStatsDto;
+import com.iprody.paymentserviceapp.persistence.PaymentStatsFilter;
+import com.iprody.paymentserviceapp.persistence.model.PaymentStatus;
+import com.iprody.paymentserviceapp.persistence.model.StatsGranularity;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentSnapshot;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentStatsRepository;
+import com.iprody.paymentserviceapp.persistence.repository.PaymentStatsRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentStatsServiceImplTest {
+
+    private static final OffsetDateTime MORNING = OffsetDateTime.parse("2026-10-18T09:15:00Z");
+    private static final OffsetDateTime EVENING = OffsetDateTime.parse("2026-10-18T21:40:00Z");
+
+    @Mock
+    private PaymentStatsRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<PaymentStatsRow>> changesCaptor;
+
+    private PaymentStatsServiceImpl statsService;
+
+    @BeforeEach
+    void setUp() {
+        statsService = new PaymentStatsServiceImpl(repository,
+                                                   transactionManager,
+                                                   new StatsProperties(Duration.ofSeconds(10)),
+                                                   new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("find() should add changes not yet checkpointed to the stored statistics")
+    void find_MergesPendingChangesWithStoredRows() {
+        // given
+        Instant day = Instant.parse("2026-10-18T00:00:00Z");
+        when(repository.find(any())).thenReturn(List.of(
+                new PaymentStatsRow(day, "EUR", PaymentStatus.RECEIVED, 2, 3000, 1000L, 2000L)));
+        PaymentSnapshot first = payment("EUR", "5.25", PaymentStatus.RECEIVED, MORNING);
+        PaymentSnapshot second = payment("EUR", "40.00", PaymentStatus.RECEIVED, EVENING);
+        statsService.added(first);
+        statsService.added(second);
+        statsService.changed(second, second.withStatus(PaymentStatus.APPROVED));
+        PaymentStatsFilter filter = new PaymentStatsFilter();
+        filter.setGranularity(StatsGranularity.DAY);
+
+        // when
+        List<PaymentStatsDto> stats = statsService.find(filter);
+
+        // then
+        OffsetDateTime bucket = day.atOffset(ZoneOffset.UTC);
+        assertThat(stats).containsExactly(
+                new PaymentStatsDto(bucket, "EUR", PaymentStatus.RECEIVED, 3, amount("35.25"), amount("5.25"),
+                                    amount("40.00")),
+                new PaymentStatsDto(bucket, "EUR", PaymentStatus.APPROVED, 1, amount("40.00"), amount("40.00"),
+                                    amount("40.00")));
+    }
+
+    @Test
+    @DisplayName("find() should leave out pending changes outside the selected range and currencies")
+    void find_FiltersPendingChanges() {
+        // given
+        statsService.added(payment("EUR", "1.00", PaymentStatus.RECEIVED, MORNING));
+        statsService.added(payment("USD", "2.00", PaymentStatus.RECEIVED, MORNING));
+        statsService.added(payment("EUR", "3.00", PaymentStatus.RECEIVED, EVENING));
+        PaymentStatsFilter filter = new PaymentStatsFilter();
+        filter.setFrom(Instant.parse("2026-10-18T09:59:00Z"));
+        filter.setTo(Instant.parse("2026-10-18T21:00:00Z"));
+        filter.setCurrencies(Set.of("EUR"));
+
+        // when
+        List<PaymentStatsDto> stats = statsService.find(filter);
+
+        // then
+        assertThat(stats).singleElement()
+                         .satisfies(total -> {
+                             assertThat(total.bucket()).isNull();
+                             assertThat(total.count()).isEqualTo(1);
+                             assertThat(total.amount()).isEqualTo(amount("1.00"));
+                         });
+    }
+
+    @Test
+    @DisplayName("checkpoint() should write every change once and then read it from the table only")
+    void checkpoint_WritesChangesOnce() {
+        // given
+        PaymentSnapshot payment = payment("EUR", "12.34", PaymentStatus.RECEIVED, MORNING);
+        statsService.added(payment);
+        statsService.removed(payment(null, "EUR", "1.00", PaymentStatus.RECEIVED, MORNING));
+
+        // when
+        statsService.checkpoint();
+        statsService.checkpoint();
+        statsService.checkpoint();
+
+        // then
+        verify(repository, times(1)).add(changesCaptor.capture());
+        assertThat(changesCaptor.getValue()).containsExactly(
+                new PaymentStatsRow(Instant.parse("2026-10-18T09:00:00Z"), "EUR", PaymentStatus.RECEIVED, 0, 1134,
+                                    1234L, 1234L));
+        when(repository.find(any())).thenReturn(List.of());
+        assertThat(statsService.find(new PaymentStatsFilter())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("checkpoint() should keep the changes it could not write for the next run")
+    void checkpoint_RetriesFailedChanges() {
+        // given
+        statsService.added(payment("EUR", "7.00", PaymentStatus.PENDING, MORNING));
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(repository).add(any());
+
+        // when
+        statsService.checkpoint();
+        statsService.checkpoint();
+
+        // then
+        verify(repository, times(2)).add(changesCaptor.capture());
+        assertThat(changesCaptor.getAllValues().get(1)).singleElement()
+                                                       .extracting(PaymentStatsRow::count,
+                                                                   PaymentStatsRow::amountMinor)
+                                                       .containsExactly(1L, 700L);
+    }
+
+    private static PaymentSnapshot payment(String currency, String amount, PaymentStatus status,
+                                           OffsetDateTime createdAt) {
+        return payment(UUID.randomUUID(), currency, amount, status, createdAt);
+    }
+
+    private static PaymentSnapshot payment(UUID guid, String currency, String amount, PaymentStatus status,
+                                           OffsetDateTime createdAt) {
+        return new PaymentSnapshot(guid, currency, new BigDecimal(amount), status, createdAt);
+    }
+
+    private static BigDecimal amount(String value) {
+        return new BigDecimal(value);
+    }
+}